@@ -0,0 +1,20 @@
+package com.talhahasanzia.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Marks a field of a @Routeable class as an intent extra, router gets a typed routeWithExtras(...) method
+// and a <Activity>Binder is generated to read extras back into fields. Field can not be private, static or final.
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.FIELD)
+public @interface Extra {
+
+    // intent extra key, defaults to field name
+    String value() default "";
+
+    // Parcelable (Bundle included) only: value is passed through ExtrasStore (runtime) and only its token travels in
+    // the intent. Call binder save / bind(activity, savedInstanceState) to keep it across process death
+    boolean byReference() default false;
+}
@@ -0,0 +1,17 @@
+package com.talhahasanzia.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Marks an Interceptor<Context, Intent> (runtime artifact) that every generated router of the module calls right
+// before starting an activity. Class has to be public, not abstract and have a public no-arg constructor,
+// processor creates one instance of it. Needs router.module processor option.
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface RouteInterceptor {
+
+    // interceptors run in ascending priority, same priority in order of class name
+    int priority() default 0;
+}
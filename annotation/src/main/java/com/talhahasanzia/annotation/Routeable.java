@@ -5,7 +5,50 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
-@Retention(RetentionPolicy.SOURCE)
+@Retention(RetentionPolicy.CLASS)
 @Target(ElementType.TYPE)
 public @interface Routeable {
+
+    // stable route name used by generated RouteRegistry, defaults to simple name of annotated class
+    String name() default "";
+
+    // router builds a template Intent once and copies it for each navigation, for frequently opened screens
+    boolean prototype() default false;
+
+    // deep link URI patterns matched by generated RouteRegistry, e.g. "app://orders/{id}", {params} become String extras
+    String[] paths() default {};
+
+    // dynamically delivered feature module the activity is in, router then gets routeAsync and builder goAsync,
+    // which route once RouteResolver installed in RouteResolution has loaded the module
+    String featureModule() default "";
+
+    // navigations of this route are dropped while one is in flight and for singleFlightMillis after it,
+    // e.g. on double taps, instead of starting the activity twice
+    boolean singleFlight() default false;
+
+    long singleFlightMillis() default 500;
+
+    // families of static route overloads generated besides route(context), all by default. Families that are never
+    // used can be dropped to cut method count of routers, fluent builder and routeWithExtras are not affected
+    Overload[] overloads() default {Overload.MODIFIER, Overload.FINISH, Overload.BUNDLE, Overload.STRING,
+            Overload.SERIALIZABLE, Overload.PARCELABLE, Overload.FOR_RESULT};
+
+    // an overload is generated only if families of all of its parameters are enabled,
+    // e.g. route(context, bundle, finishCurrent) needs BUNDLE and FINISH
+    enum Overload {
+        // IntentModifier parameter
+        MODIFIER,
+        // finishCurrent parameter
+        FINISH,
+        // Bundle parameter
+        BUNDLE,
+        // key and String extra parameters
+        STRING,
+        // key and Serializable extra parameters
+        SERIALIZABLE,
+        // key and Parcelable extra parameters
+        PARCELABLE,
+        // routeForResult overloads
+        FOR_RESULT
+    }
 }
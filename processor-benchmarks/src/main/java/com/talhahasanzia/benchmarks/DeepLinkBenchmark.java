@@ -0,0 +1,95 @@
+package com.talhahasanzia.benchmarks;
+
+import com.talhahasanzia.runtime.RouteTrie;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Deep link matching of generated RouteTrie against a list of precompiled regexes tried in order,
+// which is what hand written deep link routers usually do. Each invocation matches the same 64 URIs,
+// one of them matches no pattern.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DeepLinkBenchmark {
+
+    private static final int URIS = 64;
+
+    @Param({"5000"})
+    public int patterns;
+
+    private RouteTrie trie;
+    private Pattern[] regexes;
+    private String[] uris;
+
+    @Setup
+    public void setUp() {
+        List<String> paths = new ArrayList<>(patterns);
+        for (int i = 0; i < patterns; i++) {
+            paths.add(i % 2 == 0
+                    ? "app://section" + (i % 50) + "/screen" + i + "/{id}"
+                    : "https://x.com/screen" + i + "/u/{user}/posts");
+        }
+
+        RouteTrie.Builder builder = new RouteTrie.Builder();
+        regexes = new Pattern[patterns];
+        for (int i = 0; i < patterns; i++) {
+            builder.add(paths.get(i), i);
+            regexes[i] = Pattern.compile(Pattern.quote(paths.get(i))
+                    .replaceAll("\\{[^}/]+\\}", "\\\\E([^/]+)\\\\Q"));
+        }
+        // same path as generated RouteRegistry takes
+        trie = RouteTrie.decode(builder.encode(16384));
+
+        Random random = new Random(42);
+        uris = new String[URIS];
+        for (int i = 0; i < URIS - 1; i++) {
+            uris[i] = paths.get(random.nextInt(patterns)).replaceAll("\\{[^}/]+\\}", "v" + i);
+        }
+        uris[URIS - 1] = "app://section1/missing/1";
+    }
+
+    @Benchmark
+    public void trie(Blackhole blackhole) {
+        for (String uri : uris) {
+            blackhole.consume(trie.match(uri));
+        }
+    }
+
+    @Benchmark
+    public void regexList(Blackhole blackhole) {
+        for (String uri : uris) {
+            blackhole.consume(matchRegex(uri));
+        }
+    }
+
+    private int matchRegex(String uri) {
+        for (int i = 0; i < regexes.length; i++) {
+            Matcher matcher = regexes[i].matcher(uri);
+            if (matcher.matches()) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
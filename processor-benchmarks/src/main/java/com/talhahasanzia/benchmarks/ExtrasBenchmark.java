@@ -0,0 +1,159 @@
+package com.talhahasanzia.benchmarks;
+
+import com.talhahasanzia.processor.RouteProcessor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.ToolProvider;
+
+// Passing an order of five values to an activity: as one Serializable through route(Context, String, Serializable)
+// and read back with getSerializableExtra, against typed routeWithExtras of @Extra fields and generated bind(activity).
+// Extras cross Binder in a Parcel, so each navigation copies the intent through bytes the way Parcel.writeValue does:
+// primitives and Strings as they are, Serializable with ObjectOutputStream. Routers, binder and both navigations are
+// generated and compiled in memory against android stubs at setup, then called without reflection.
+// Run with the GC profiler of the jmh task for allocation per navigation (gc.alloc.rate.norm).
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExtrasBenchmark {
+
+    private Callable<?> serializable;
+    private Callable<?> typed;
+
+    @Setup
+    public void setUp() throws Exception {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        final SyntheticModule.InMemoryFileManager fileManager =
+                new SyntheticModule.InMemoryFileManager(compiler.getStandardFileManager(null, null, null));
+        List<JavaFileObject> sources = new ArrayList<>(SyntheticModule.androidRuntimeStubs());
+        sources.add(SyntheticModule.source("com.example.app.Order", "package com.example.app;\n"
+                + "public class Order implements java.io.Serializable {\n"
+                + "final long id; final String title; final int quantity; final double price; final boolean isGift;\n"
+                + "Order(long id, String title, int quantity, double price, boolean isGift) {\n"
+                + "this.id = id; this.title = title; this.quantity = quantity; this.price = price; this.isGift = isGift; }\n"
+                + "}"));
+        sources.add(SyntheticModule.source("com.example.app.OrderActivity", "package com.example.app;\n"
+                + "import com.talhahasanzia.annotation.Extra;\n"
+                + "@com.talhahasanzia.annotation.Routeable public class OrderActivity extends android.app.Activity {\n"
+                + "@Extra long orderId; @Extra String title; @Extra int quantity; @Extra double price; @Extra boolean isGift;\n"
+                + "}"));
+        // keeps the intent it starts, as the activity manager would
+        sources.add(SyntheticModule.source("com.example.app.Navigator", "package com.example.app;\n"
+                + "public class Navigator extends android.app.Activity {\n"
+                + "android.content.Intent started;\n"
+                + "@Override public void startActivity(android.content.Intent intent) { started = intent; }\n"
+                + "}"));
+        sources.add(SyntheticModule.source("com.example.app.Parcels", "package com.example.app;\n"
+                + "import android.content.Intent;\n"
+                + "import java.io.*;\n"
+                + "final class Parcels {\n"
+                + "// copy of intent whose extras went through bytes, tagged by type\n"
+                + "static Intent parcel(Intent intent) throws Exception {\n"
+                + "ByteArrayOutputStream bytes = new ByteArrayOutputStream();\n"
+                + "DataOutputStream out = new DataOutputStream(bytes);\n"
+                + "android.os.Bundle extras = intent.getExtras();\n"
+                + "out.writeInt(extras.size());\n"
+                + "for (String key : extras.keySet()) {\n"
+                + "Object value = extras.get(key);\n"
+                + "out.writeUTF(key);\n"
+                + "if (value instanceof String) { out.writeByte(0); out.writeUTF((String) value); }\n"
+                + "else if (value instanceof Integer) { out.writeByte(1); out.writeInt((Integer) value); }\n"
+                + "else if (value instanceof Long) { out.writeByte(2); out.writeLong((Long) value); }\n"
+                + "else if (value instanceof Double) { out.writeByte(3); out.writeDouble((Double) value); }\n"
+                + "else if (value instanceof Boolean) { out.writeByte(4); out.writeBoolean((Boolean) value); }\n"
+                + "else {\n"
+                + "ByteArrayOutputStream object = new ByteArrayOutputStream();\n"
+                + "ObjectOutputStream objectOut = new ObjectOutputStream(object);\n"
+                + "objectOut.writeObject(value); objectOut.close();\n"
+                + "out.writeByte(5); out.writeUTF(value.getClass().getName()); out.writeInt(object.size()); object.writeTo(out); }\n"
+                + "}\n"
+                + "DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));\n"
+                + "Intent copy = new Intent();\n"
+                + "for (int i = in.readInt(); i > 0; i--) {\n"
+                + "String key = in.readUTF();\n"
+                + "switch (in.readByte()) {\n"
+                + "case 0: copy.putExtra(key, in.readUTF()); break;\n"
+                + "case 1: copy.putExtra(key, in.readInt()); break;\n"
+                + "case 2: copy.putExtra(key, in.readLong()); break;\n"
+                + "case 3: copy.putExtra(key, in.readDouble()); break;\n"
+                + "case 4: copy.putExtra(key, in.readBoolean()); break;\n"
+                + "default:\n"
+                + "in.readUTF();\n"
+                + "byte[] object = new byte[in.readInt()]; in.readFully(object);\n"
+                + "copy.putExtra(key, (Serializable) new ObjectInputStream(new ByteArrayInputStream(object)).readObject()); }\n"
+                + "}\n"
+                + "return copy; }\n"
+                + "}"));
+        sources.add(SyntheticModule.source("com.example.app.SerializableNavigation", "package com.example.app;\n"
+                + "public class SerializableNavigation implements java.util.concurrent.Callable<Object> {\n"
+                + "private final Navigator navigator = new Navigator();\n"
+                + "private final OrderActivity target = new OrderActivity();\n"
+                + "private final Order order = new Order(42L, \"Espresso beans\", 3, 12.5, true);\n"
+                + "@Override public Object call() throws Exception {\n"
+                + "OrderActivityRouter.route( navigator, \"order\", order );\n"
+                + "target.setIntent( Parcels.parcel( navigator.started ) );\n"
+                + "return target.getIntent().getSerializableExtra( \"order\" ); }\n"
+                + "}"));
+        sources.add(SyntheticModule.source("com.example.app.TypedNavigation", "package com.example.app;\n"
+                + "public class TypedNavigation implements java.util.concurrent.Callable<Object> {\n"
+                + "private final Navigator navigator = new Navigator();\n"
+                + "private final OrderActivity target = new OrderActivity();\n"
+                + "private final Order order = new Order(42L, \"Espresso beans\", 3, 12.5, true);\n"
+                + "@Override public Object call() throws Exception {\n"
+                + "OrderActivityRouter.routeWithExtras( navigator, order.id, order.title, order.quantity, order.price, order.isGift );\n"
+                + "target.setIntent( Parcels.parcel( navigator.started ) );\n"
+                + "OrderActivityBinder.bind( target );\n"
+                + "return target; }\n"
+                + "}"));
+
+        List<String> options = Arrays.asList("-classpath", System.getProperty("java.class.path"));
+        JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, null, options, null, sources);
+        task.setProcessors(Collections.singletonList(new RouteProcessor()));
+        if (!task.call()) {
+            throw new IllegalStateException("compilation failed");
+        }
+        ClassLoader loader = new ClassLoader(ExtrasBenchmark.class.getClassLoader()) {
+            @Override
+            protected Class<?> findClass(String name) throws ClassNotFoundException {
+                byte[] bytes = fileManager.classBytes(name);
+                if (bytes == null) {
+                    throw new ClassNotFoundException(name);
+                }
+                return defineClass(name, bytes, 0, bytes.length);
+            }
+        };
+        serializable = (Callable<?>) loader.loadClass("com.example.app.SerializableNavigation").getConstructor().newInstance();
+        typed = (Callable<?>) loader.loadClass("com.example.app.TypedNavigation").getConstructor().newInstance();
+    }
+
+    @Benchmark
+    public Object serializableExtra() throws Exception {
+        return serializable.call();
+    }
+
+    @Benchmark
+    public Object typedExtras() throws Exception {
+        return typed.call();
+    }
+}
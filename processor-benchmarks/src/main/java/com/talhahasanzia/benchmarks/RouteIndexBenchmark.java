@@ -0,0 +1,149 @@
+package com.talhahasanzia.benchmarks;
+
+import com.talhahasanzia.runtime.RouteIndex;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.ToolProvider;
+
+// Startup cost of merging per-module route indexes against scanning classpath for routes, routes are spread over
+// 40 modules, both inputs are kept in memory. The jar holds compiled classes, each module has its activities,
+// annotated with a runtime retained @Route as scanning routers require, and one unrelated class per route. Scanning
+// loads every class of the jar into a fresh class loader and checks it for the annotation, as it would at startup.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RouteIndexBenchmark {
+
+    private static final int MODULES = 40;
+
+    @Param({"10000"})
+    public int routes;
+
+    // one index file per module
+    private byte[][] indexes;
+    // jar of the same routes as compiled classes
+    private byte[] jar;
+
+    @Setup
+    public void setUp() throws IOException {
+        indexes = new byte[MODULES][];
+        List<JavaFileObject> sources = new ArrayList<>(SyntheticModule.androidStubs());
+        sources.add(SyntheticModule.source("com.example.Route", "package com.example;\n"
+                + "@java.lang.annotation.Retention(java.lang.annotation.RetentionPolicy.RUNTIME)\n"
+                + "public @interface Route {}"));
+        for (int module = 0; module < MODULES; module++) {
+            List<String> names = new ArrayList<>();
+            List<String> classNames = new ArrayList<>();
+            String packageName = "com.example.m" + module;
+            for (int i = module; i < routes; i += MODULES) {
+                names.add("Screen" + i + "Activity");
+                classNames.add(packageName + ".Screen" + i + "Activity");
+                sources.add(SyntheticModule.source(packageName + ".Screen" + i + "Activity", "package " + packageName + ";\n"
+                        + "@com.example.Route public class Screen" + i + "Activity extends android.app.Activity {}"));
+                sources.add(SyntheticModule.source(packageName + ".Helper" + i, "package " + packageName + ";\n"
+                        + "class Helper" + i + " {}"));
+            }
+            ByteArrayOutputStream index = new ByteArrayOutputStream();
+            RouteIndex.write(index, names.toArray(new String[0]), classNames.toArray(new String[0]));
+            indexes[module] = index.toByteArray();
+        }
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        SyntheticModule.InMemoryFileManager fileManager =
+                new SyntheticModule.InMemoryFileManager(compiler.getStandardFileManager(null, null, null));
+        JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, null, Arrays.asList("-proc:none"), null, sources);
+        if (!task.call()) {
+            throw new IllegalStateException("compilation failed");
+        }
+        ByteArrayOutputStream jarBytes = new ByteArrayOutputStream();
+        try (ZipOutputStream jarOut = new ZipOutputStream(jarBytes)) {
+            for (JavaFileObject source : sources) {
+                String className = source.toUri().getPath().substring(1).replace(JavaFileObject.Kind.SOURCE.extension, "");
+                jarOut.putNextEntry(new ZipEntry(className + JavaFileObject.Kind.CLASS.extension));
+                jarOut.write(fileManager.classBytes(className.replace('/', '.')));
+            }
+        }
+        jar = jarBytes.toByteArray();
+    }
+
+    @Benchmark
+    public RouteIndex mergeIndexes() throws IOException {
+        List<InputStream> streams = new ArrayList<>(MODULES);
+        for (byte[] index : indexes) {
+            streams.add(new ByteArrayInputStream(index));
+        }
+        return RouteIndex.merge(streams);
+    }
+
+    // what a scanning loader does: walk every entry, load each class and keep the ones annotated as routes
+    @Benchmark
+    public List<String> scanClasspath() throws IOException, ClassNotFoundException {
+        List<String> candidates = new ArrayList<>();
+        final Map<String, byte[]> classes = new HashMap<>();
+        try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(jar))) {
+            ZipEntry entry;
+            byte[] buffer = new byte[8192];
+            while ((entry = in.getNextEntry()) != null) {
+                String name = entry.getName();
+                String className = name.substring(0, name.length() - JavaFileObject.Kind.CLASS.extension.length()).replace('/', '.');
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                for (int read; (read = in.read(buffer)) > 0; ) {
+                    bytes.write(buffer, 0, read);
+                }
+                classes.put(className, bytes.toByteArray());
+                candidates.add(className);
+            }
+        }
+        // app class loader at startup, nothing of the jar is loaded yet
+        ClassLoader loader = new ClassLoader(RouteIndexBenchmark.class.getClassLoader()) {
+            @Override
+            protected Class<?> findClass(String name) throws ClassNotFoundException {
+                byte[] bytes = classes.get(name);
+                if (bytes == null) {
+                    throw new ClassNotFoundException(name);
+                }
+                return defineClass(name, bytes, 0, bytes.length);
+            }
+        };
+        @SuppressWarnings("unchecked")
+        Class<? extends Annotation> route = (Class<? extends Annotation>) Class.forName("com.example.Route", false, loader);
+        List<String> routes = new ArrayList<>();
+        for (String className : candidates) {
+            if (Class.forName(className, false, loader).isAnnotationPresent(route)) {
+                routes.add(className);
+            }
+        }
+        return routes;
+    }
+}
@@ -0,0 +1,197 @@
+package com.talhahasanzia.benchmarks;
+
+import com.sun.management.ThreadMXBean;
+import com.talhahasanzia.processor.RouteProcessor;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.processing.Completion;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.Processor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+// Annotation processing throughput of RouteProcessor on synthetic modules, run with -prof gc for allocation rate.
+// Sources are only processed (-proc:only), so time is parsing + entering + RouteProcessor, and
+// processor time per round and generated bytes are reported as extra counters.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RouteProcessorBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    public int routes;
+
+    // depth of base activity chain shared by all activities of deepSources
+    private static final int HIERARCHY_DEPTH = 32;
+
+    private JavaCompiler compiler;
+    private StandardJavaFileManager standardFileManager;
+    private List<JavaFileObject> sources;
+    // same module where every activity routes to the next one
+    private List<JavaFileObject> navigatingSources;
+    // same module where every activity extends a deep chain of base activities
+    private List<JavaFileObject> deepSources;
+
+    @Setup
+    public void setUp() {
+        compiler = ToolProvider.getSystemJavaCompiler();
+        standardFileManager = compiler.getStandardFileManager(null, null, null);
+        sources = new ArrayList<>(SyntheticModule.androidStubs());
+        sources.addAll(SyntheticModule.activities(routes));
+        navigatingSources = new ArrayList<>(SyntheticModule.androidStubs());
+        navigatingSources.addAll(SyntheticModule.activities(routes, true));
+        deepSources = new ArrayList<>(SyntheticModule.androidStubs());
+        deepSources.addAll(SyntheticModule.deepActivities(routes, HIERARCHY_DEPTH));
+    }
+
+    @Benchmark
+    public boolean process(Counters counters) {
+        return compile(Collections.<String>emptyList(), counters);
+    }
+
+    // routers built on compiler thread only, baseline for parallel generation
+    @Benchmark
+    public boolean processSingleThreaded(Counters counters) {
+        return compile(Collections.singletonList("-Arouter.threads=1"), counters);
+    }
+
+    // same module with RouteRegistry and route index generation enabled
+    @Benchmark
+    public boolean processWithModuleOutputs(Counters counters) {
+        return compile(Collections.singletonList("-Arouter.module=com.example"), counters);
+    }
+
+    // module outputs plus route graph, baseline is processWithModuleOutputs
+    @Benchmark
+    public boolean processWithRouteGraph(Counters counters) {
+        return compile(Arrays.asList("-Arouter.module=com.example", "-Arouter.graph=true"), navigatingSources, counters);
+    }
+
+    // activity validation walks each superclass once per compilation, baseline is process
+    @Benchmark
+    public boolean processDeepHierarchy(Counters counters) {
+        return compile(Collections.<String>emptyList(), deepSources, counters);
+    }
+
+    private boolean compile(List<String> options, Counters counters) {
+        return compile(options, sources, counters);
+    }
+
+    private boolean compile(List<String> options, List<JavaFileObject> sources, Counters counters) {
+        SyntheticModule.InMemoryFileManager fileManager = new SyntheticModule.InMemoryFileManager(standardFileManager);
+        TimedProcessor processor = new TimedProcessor(new RouteProcessor());
+
+        List<String> allOptions = new ArrayList<>(Arrays.asList("-proc:only", "-nowarn"));
+        allOptions.addAll(options);
+        JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, null, allOptions, null, sources);
+        task.setProcessors(Collections.singletonList(processor));
+        boolean isSuccessful = task.call();
+
+        counters.processorNanosPerRound = processor.nanos / Math.max(1, processor.rounds);
+        counters.processorBytesPerRoute = processor.allocatedBytes / Math.max(1, routes);
+        counters.generatedBytes = fileManager.generatedBytes();
+        return isSuccessful;
+    }
+
+    // counters of last invocation of an iteration, reported next to benchmark score
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Counters {
+
+        public long processorNanosPerRound;
+        // allocated on compiler thread inside RouteProcessor, all of it with router.threads=1
+        public long processorBytesPerRoute;
+        public long generatedBytes;
+
+        // invocations take milliseconds, so per invocation setup does not skew the score
+        @Setup(Level.Invocation)
+        public void reset() {
+            processorNanosPerRound = 0;
+            generatedBytes = 0;
+        }
+    }
+
+    // measures time spent and bytes allocated in delegate's process calls
+    private static final class TimedProcessor implements Processor {
+
+        private static final ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        private final Processor delegate;
+        private long nanos;
+        private long allocatedBytes;
+        private int rounds;
+
+        TimedProcessor(Processor delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnvironment) {
+            long threadId = Thread.currentThread().getId();
+            long startBytes = threads.getThreadAllocatedBytes(threadId);
+            long start = System.nanoTime();
+            boolean isClaimed = delegate.process(annotations, roundEnvironment);
+            nanos += System.nanoTime() - start;
+            allocatedBytes += threads.getThreadAllocatedBytes(threadId) - startBytes;
+            rounds++;
+            return isClaimed;
+        }
+
+        @Override
+        public Set<String> getSupportedOptions() {
+            return delegate.getSupportedOptions();
+        }
+
+        @Override
+        public Set<String> getSupportedAnnotationTypes() {
+            return delegate.getSupportedAnnotationTypes();
+        }
+
+        @Override
+        public SourceVersion getSupportedSourceVersion() {
+            return delegate.getSupportedSourceVersion();
+        }
+
+        @Override
+        public void init(ProcessingEnvironment processingEnvironment) {
+            delegate.init(processingEnvironment);
+        }
+
+        @Override
+        public Iterable<? extends Completion> getCompletions(Element element, AnnotationMirror annotation, ExecutableElement member, String userText) {
+            return delegate.getCompletions(element, annotation, member, userText);
+        }
+    }
+}
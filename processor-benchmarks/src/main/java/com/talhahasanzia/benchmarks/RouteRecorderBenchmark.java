@@ -0,0 +1,49 @@
+package com.talhahasanzia.benchmarks;
+
+import com.talhahasanzia.runtime.RouteRecorder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Overhead RouteRecorder adds to a navigation, on one thread and on 4 threads sharing the buffer. System.nanoTime()
+// that RouteTracing.onRouteStart takes for an event is not part of it.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RouteRecorderBenchmark {
+
+    private static final int ROUTE_ID = "MainActivity".hashCode() & Integer.MAX_VALUE;
+
+    private RouteRecorder recorder;
+    private long nanoTime;
+
+    @Setup
+    public void setUp() {
+        recorder = new RouteRecorder(1024);
+    }
+
+    @Benchmark
+    public void record() {
+        recorder.record(ROUTE_ID, RouteRecorder.MODIFIER | RouteRecorder.FINISH, nanoTime);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void recordContended() {
+        recorder.record(ROUTE_ID, RouteRecorder.MODIFIER | RouteRecorder.FINISH, nanoTime);
+    }
+}
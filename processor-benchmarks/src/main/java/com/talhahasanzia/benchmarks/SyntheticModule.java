@@ -0,0 +1,233 @@
+package com.talhahasanzia.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+
+// Synthetic source tree of @Routeable activities, compiled in memory so benchmarks run on plain JVM without Android
+final class SyntheticModule {
+
+    // activities per package, keeps packages at realistic sizes
+    private static final int PACKAGE_SIZE = 100;
+
+    private SyntheticModule() {
+    }
+
+    // minimal android stubs that annotated sources compile against
+    static List<JavaFileObject> androidStubs() {
+        List<JavaFileObject> stubs = new ArrayList<>();
+        stubs.add(source("android.app.Activity", "package android.app; public class Activity extends android.content.Context {}"));
+        stubs.add(source("android.content.Context", "package android.content; public abstract class Context {}"));
+        return stubs;
+    }
+
+    // android stubs that generated routers and binders compile against and can run on, Context is an Activity stub.
+    // Intents and Bundles keep their extras, so that tests can read back what routers put
+    static List<JavaFileObject> androidRuntimeStubs() {
+        StringBuilder extras = new StringBuilder();
+        for (String type : new String[]{"boolean", "byte", "char", "short", "int", "long", "float", "double", "String",
+                "CharSequence", "android.os.Parcelable", "java.io.Serializable", "android.os.Bundle"}) {
+            extras.append("public Intent putExtra(String key, ").append(type).append(" value) { extras.put(key, value); return this; }\n");
+        }
+        String[][] primitives = {{"boolean", "Boolean"}, {"byte", "Byte"}, {"char", "Character"}, {"short", "Short"},
+                {"int", "Integer"}, {"long", "Long"}, {"float", "Float"}, {"double", "Double"}};
+        for (String[] primitive : primitives) {
+            extras.append("public ").append(primitive[0]).append(" get")
+                    .append(Character.toUpperCase(primitive[0].charAt(0))).append(primitive[0].substring(1))
+                    .append("Extra(String key, ").append(primitive[0]).append(" defaultValue) { Object value = extras.get(key); ")
+                    .append("return value == null ? defaultValue : (").append(primitive[1]).append(") value; }\n");
+        }
+        for (String[] object : new String[][]{{"String", "String"}, {"CharSequence", "CharSequence"},
+                {"android.os.Bundle", "Bundle"}, {"java.io.Serializable", "Serializable"}}) {
+            extras.append("public ").append(object[0]).append(" get").append(object[1])
+                    .append("Extra(String key) { return (").append(object[0]).append(") extras.get(key); }\n");
+        }
+        List<JavaFileObject> stubs = new ArrayList<>();
+        stubs.add(source("android.app.Activity", "package android.app; public class Activity extends android.content.Context {\n"
+                + "private android.content.Intent intent;\n"
+                + "public android.content.Intent getIntent() { return intent; }\n"
+                + "public void setIntent(android.content.Intent intent) { this.intent = intent; }\n"
+                + "public void startActivityForResult(android.content.Intent intent, int requestCode) {}\n"
+                + "public void finish() {} }"));
+        stubs.add(source("android.content.Context", "package android.content; public abstract class Context {\n"
+                + "public Context getApplicationContext() { return this; }\n"
+                + "public void startActivity(Intent intent) {}\n"
+                + "public ComponentName startService(Intent intent) { return null; }\n"
+                + "public boolean bindService(Intent intent, ServiceConnection connection, int flags) { return false; }\n"
+                + "public boolean stopService(Intent intent) { return false; }\n"
+                + "public void sendBroadcast(Intent intent) {} }"));
+        stubs.add(source("android.content.ServiceConnection", "package android.content; public interface ServiceConnection {}"));
+        stubs.add(source("android.content.BroadcastReceiver", "package android.content; public abstract class BroadcastReceiver {}"));
+        stubs.add(source("android.app.Service", "package android.app; public abstract class Service extends android.content.Context {}"));
+        stubs.add(source("android.app.Fragment", "package android.app; public class Fragment {\n"
+                + "public void setArguments(android.os.Bundle arguments) {} }"));
+        stubs.add(source("android.app.FragmentManager", "package android.app; public abstract class FragmentManager {\n"
+                + "public abstract FragmentTransaction beginTransaction(); }"));
+        stubs.add(source("android.app.FragmentTransaction", "package android.app; public abstract class FragmentTransaction {\n"
+                + "public abstract FragmentTransaction replace(int containerViewId, Fragment fragment, String tag);\n"
+                + "public abstract FragmentTransaction addToBackStack(String name);\n"
+                + "public abstract int commit(); }"));
+        stubs.add(source("android.content.ComponentName", "package android.content; public final class ComponentName {\n"
+                + "public ComponentName(Context context, Class<?> cls) {} }"));
+        stubs.add(source("android.content.Intent", "package android.content; import android.os.Bundle; import java.io.Serializable;\n"
+                + "public class Intent {\n"
+                + "public static final int FLAG_ACTIVITY_NEW_TASK = 0x10000000;\n"
+                + "private final java.util.Map<String, Object> extras = new java.util.HashMap<>();\n"
+                + "private int flags;\n"
+                + "public Intent() {}\n"
+                + "public Intent(Intent intent) { extras.putAll(intent.extras); flags = intent.flags; }\n"
+                + "public Intent(Context context, Class<?> cls) {}\n"
+                + "public Intent setComponent(ComponentName component) { return this; }\n"
+                + "public Intent setFlags(int flags) { this.flags = flags; return this; }\n"
+                + "public Intent addFlags(int flags) { this.flags |= flags; return this; }\n"
+                + "public int getFlags() { return flags; }\n"
+                + "public boolean hasExtra(String key) { return extras.containsKey(key); }\n"
+                + "public Bundle getExtras() { return extras.isEmpty() ? null : new Bundle(extras); }\n"
+                + "public Intent putExtras(Bundle bundle) { for (String key : bundle.keySet()) { extras.put(key, bundle.get(key)); } return this; }\n"
+                + "@SuppressWarnings(\"unchecked\") public <T extends android.os.Parcelable> T getParcelableExtra(String key) { return (T) extras.get(key); }\n"
+                + extras + "}"));
+        stubs.add(source("android.os.Bundle", "package android.os; public final class Bundle implements Parcelable {\n"
+                + "private final java.util.Map<String, Object> values = new java.util.HashMap<>();\n"
+                + "public Bundle() {}\n"
+                + "public Bundle(Bundle bundle) { values.putAll(bundle.values); }\n"
+                + "public Bundle(java.util.Map<String, Object> values) { this.values.putAll(values); }\n"
+                + "public java.util.Set<String> keySet() { return values.keySet(); }\n"
+                + "public Object get(String key) { return values.get(key); }\n"
+                + "public void putString(String key, String value) { values.put(key, value); }\n"
+                + "public void putParcelable(String key, Parcelable value) { values.put(key, value); }\n"
+                + "@SuppressWarnings(\"unchecked\") public <T extends Parcelable> T getParcelable(String key) { return (T) values.get(key); }\n"
+                + "public int size() { return values.size(); } }"));
+        stubs.add(source("android.os.Parcelable", "package android.os; public interface Parcelable {}"));
+        return stubs;
+    }
+
+    // given number of activities, each annotated with @Routeable, spread over packages of PACKAGE_SIZE
+    static List<JavaFileObject> activities(int count) {
+        return activities(count, false);
+    }
+
+    // same, if isNavigating each activity routes to the next one, for route graph
+    static List<JavaFileObject> activities(int count, boolean isNavigating) {
+        List<JavaFileObject> sources = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String packageName = "com.example.p" + (i / PACKAGE_SIZE);
+            String className = "Screen" + i + "Activity";
+            String next = "com.example.p" + ((i + 1) % count / PACKAGE_SIZE) + ".Screen" + ((i + 1) % count) + "ActivityRouter";
+            sources.add(source(packageName + "." + className, "package " + packageName + ";\n"
+                    + "import com.talhahasanzia.annotation.Routeable;\n"
+                    + (isNavigating ? "import " + next + ";\n" : "")
+                    + "@Routeable\n"
+                    + "public class " + className + " extends android.app.Activity {\n"
+                    + (isNavigating ? "void next() { " + next.substring(next.lastIndexOf('.') + 1) + ".route(this); }\n" : "")
+                    + "}\n"));
+        }
+        return sources;
+    }
+
+    // given number of activities that all extend the last of a chain of depth base activities
+    static List<JavaFileObject> deepActivities(int count, int depth) {
+        List<JavaFileObject> sources = new ArrayList<>(count + depth);
+        for (int i = 0; i < depth; i++) {
+            String superclass = i == 0 ? "android.app.Activity" : "com.example.base.Base" + (i - 1) + "Activity";
+            sources.add(source("com.example.base.Base" + i + "Activity", "package com.example.base;\n"
+                    + "public abstract class Base" + i + "Activity extends " + superclass + " {}\n"));
+        }
+        for (int i = 0; i < count; i++) {
+            String packageName = "com.example.p" + (i / PACKAGE_SIZE);
+            String className = "Screen" + i + "Activity";
+            sources.add(source(packageName + "." + className, "package " + packageName + ";\n"
+                    + "import com.talhahasanzia.annotation.Routeable;\n"
+                    + "@Routeable\n"
+                    + "public class " + className + " extends com.example.base.Base" + (depth - 1) + "Activity {}\n"));
+        }
+        return sources;
+    }
+
+    static JavaFileObject source(String className, final String content) {
+        URI uri = URI.create("string:///" + className.replace('.', '/') + JavaFileObject.Kind.SOURCE.extension);
+        return new SimpleJavaFileObject(uri, JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return content;
+            }
+        };
+    }
+
+    // keeps generated sources, resources and classes in memory and counts their bytes
+    static final class InMemoryFileManager extends ForwardingJavaFileManager<JavaFileManager> {
+
+        private final List<ByteArrayOutputStream> outputs = new ArrayList<>();
+        private final Map<String, ByteArrayOutputStream> classes = new HashMap<>();
+        private final Map<String, ByteArrayOutputStream> resources = new HashMap<>();
+
+        InMemoryFileManager(JavaFileManager fileManager) {
+            super(fileManager);
+        }
+
+        // number of bytes written by compiler and processors
+        int generatedBytes() {
+            int bytes = 0;
+            for (ByteArrayOutputStream output : outputs) {
+                bytes += output.size();
+            }
+            return bytes;
+        }
+
+        // compiled class of given binary name, null if compiler did not write it
+        byte[] classBytes(String className) {
+            ByteArrayOutputStream output = classes.get(className);
+            return output == null ? null : output.toByteArray();
+        }
+
+        // generated resource of given path, e.g. META-INF/routes/com.example.app.idx, null if it was not written
+        byte[] resourceBytes(String path) {
+            ByteArrayOutputStream output = resources.get(path);
+            return output == null ? null : output.toByteArray();
+        }
+
+        @Override
+        public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind, FileObject sibling) {
+            JavaFileObject output = output(URI.create("mem:///" + className.replace('.', '/') + kind.extension), kind);
+            if (kind == JavaFileObject.Kind.CLASS) {
+                classes.put(className, outputs.get(outputs.size() - 1));
+            }
+            return output;
+        }
+
+        @Override
+        public FileObject getFileForOutput(Location location, String packageName, String relativeName, FileObject sibling) {
+            String path = packageName.isEmpty() ? relativeName : packageName.replace('.', '/') + "/" + relativeName;
+            FileObject output = output(URI.create("mem:///" + path), JavaFileObject.Kind.OTHER);
+            resources.put(path, outputs.get(outputs.size() - 1));
+            return output;
+        }
+
+        // generated sources are read back by compiler in next round
+        private JavaFileObject output(URI uri, JavaFileObject.Kind kind) {
+            final ByteArrayOutputStream output = new ByteArrayOutputStream();
+            outputs.add(output);
+            return new SimpleJavaFileObject(uri, kind) {
+                @Override
+                public OutputStream openOutputStream() {
+                    return output;
+                }
+
+                @Override
+                public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                    return new String(output.toByteArray(), StandardCharsets.UTF_8);
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.talhahasanzia.benchmarks;
+
+import com.talhahasanzia.processor.RouteProcessor;
+
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.ToolProvider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+// Routers of @Routeable fragments, services and broadcast receivers only have methods of their target, decided from
+// superclasses at compile time, and they are not part of RouteRegistry.
+public class ComponentRouterTest {
+
+    @Test
+    public void routersHaveMethodsOfTheirTarget() throws Exception {
+        ClassLoader loader = compile(Collections.<String>emptyList(), components());
+
+        assertEquals(new TreeSet<>(Arrays.asList("newInstance", "route")), methods(loader, "com.example.c.HomeFragmentRouter"));
+        assertEquals(new TreeSet<>(Arrays.asList("bind", "intent", "route", "stop")), methods(loader, "com.example.c.SyncServiceRouter"));
+        assertEquals(new TreeSet<>(Arrays.asList("intent", "route")), methods(loader, "com.example.c.PingReceiverRouter"));
+        assertEquals("home", loader.loadClass("com.example.c.HomeFragmentRouter").getField("TAG").get(null));
+    }
+
+    @Test
+    public void routersRunWithoutActivityContext() throws Exception {
+        ClassLoader loader = compile(Collections.<String>emptyList(), components());
+        Class<?> context = loader.loadClass("android.content.Context");
+        Class<?> bundle = loader.loadClass("android.os.Bundle");
+        // any Context works, there is no cast
+        Object activity = loader.loadClass("android.app.Activity").getConstructor().newInstance();
+
+        loader.loadClass("com.example.c.SyncServiceRouter").getMethod("route", context).invoke(null, activity);
+        loader.loadClass("com.example.c.PingReceiverRouter").getMethod("route", context, bundle)
+                .invoke(null, activity, bundle.getConstructor().newInstance());
+        Object fragment = loader.loadClass("com.example.c.HomeFragmentRouter").getMethod("newInstance", bundle)
+                .invoke(null, bundle.getConstructor().newInstance());
+        assertEquals("com.example.c.HomeFragment", fragment.getClass().getName());
+    }
+
+    @Test
+    public void componentsStayOutOfRouteRegistry() throws Exception {
+        List<JavaFileObject> sources = components();
+        sources.add(SyntheticModule.source("com.example.c.MainActivity", "package com.example.c;\n"
+                + "@com.talhahasanzia.annotation.Routeable public class MainActivity extends android.app.Activity {}"));
+        ClassLoader loader = compile(Collections.singletonList("-Arouter.module=com.example.c"), sources);
+
+        Class<?> registry = loader.loadClass("com.example.c.RouteRegistry");
+        assertEquals(1, registry.getMethod("size").invoke(null));
+        assertNotNull(registry.getField("MAIN_ACTIVITY"));
+    }
+
+    @Test
+    public void activityOptionsAreReportedOnComponents() {
+        List<String> errors = errors(
+                component("PathFragment", "@Routeable(paths = \"app://path\")", "android.app.Fragment", ""),
+                component("FlightService", "@Routeable(singleFlight = true)", "android.app.Service", ""),
+                component("ExtraReceiver", "@Routeable", "android.content.BroadcastReceiver", "@com.talhahasanzia.annotation.Extra String id;"),
+                component("Plain", "@Routeable", "Object", ""));
+
+        assertEquals(Arrays.asList(
+                "com/example/c/PathFragment.java:3: @Routeable(paths) is only supported on activities.",
+                "com/example/c/FlightService.java:3: @Routeable(singleFlight) is only supported on activities.",
+                "com/example/c/ExtraReceiver.java:4: @Extra is only supported on activities.",
+                "com/example/c/Plain.java:3: @Routeable class has to extend an Activity, Fragment, Service or BroadcastReceiver."), errors);
+    }
+
+    private static List<JavaFileObject> components() {
+        return new ArrayList<>(Arrays.asList(
+                component("HomeFragment", "@Routeable(name = \"home\")", "android.app.Fragment", ""),
+                component("SyncService", "@Routeable", "android.app.Service", ""),
+                component("PingReceiver", "@Routeable", "android.content.BroadcastReceiver", "")));
+    }
+
+    private static JavaFileObject component(String simpleName, String annotation, String superclass, String body) {
+        return SyntheticModule.source("com.example.c." + simpleName, "package com.example.c;\n"
+                + "import com.talhahasanzia.annotation.Routeable;\n"
+                + annotation + " public class " + simpleName + " extends " + superclass + " {\n" + body + "}");
+    }
+
+    // names of public methods a class declares
+    private static Set<String> methods(ClassLoader loader, String className) throws ClassNotFoundException {
+        Set<String> names = new TreeSet<>();
+        for (Method method : loader.loadClass(className).getDeclaredMethods()) {
+            names.add(method.getName());
+        }
+        return names;
+    }
+
+    private static ClassLoader compile(List<String> options, List<JavaFileObject> sources) {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        final SyntheticModule.InMemoryFileManager fileManager =
+                new SyntheticModule.InMemoryFileManager(compiler.getStandardFileManager(null, null, null));
+        List<JavaFileObject> allSources = new ArrayList<>(SyntheticModule.androidRuntimeStubs());
+        allSources.addAll(sources);
+
+        List<String> compilerOptions = new ArrayList<>(options);
+        compilerOptions.addAll(Arrays.asList("-classpath", System.getProperty("java.class.path")));
+        JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, null, compilerOptions, null, allSources);
+        task.setProcessors(Collections.singletonList(new RouteProcessor()));
+        assertTrue("compilation failed", task.call());
+        return new ClassLoader(ComponentRouterTest.class.getClassLoader()) {
+            @Override
+            protected Class<?> findClass(String name) throws ClassNotFoundException {
+                byte[] bytes = fileManager.classBytes(name);
+                if (bytes == null) {
+                    throw new ClassNotFoundException(name);
+                }
+                return defineClass(name, bytes, 0, bytes.length);
+            }
+        };
+    }
+
+    // errors as "<path>:<line>: <message>", in reporting order
+    private static List<String> errors(JavaFileObject... sources) {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        SyntheticModule.InMemoryFileManager fileManager =
+                new SyntheticModule.InMemoryFileManager(compiler.getStandardFileManager(null, null, null));
+        List<JavaFileObject> allSources = new ArrayList<>(SyntheticModule.androidRuntimeStubs());
+        allSources.addAll(Arrays.asList(sources));
+
+        List<String> options = Arrays.asList("-proc:only", "-classpath", System.getProperty("java.class.path"));
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics, options, null, allSources);
+        task.setProcessors(Collections.singletonList(new RouteProcessor()));
+        task.call();
+
+        List<String> errors = new ArrayList<>();
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+                String path = diagnostic.getSource().toUri().getPath();
+                errors.add(path.substring(path.indexOf("com/")) + ":" + diagnostic.getLineNumber() + ": "
+                        + diagnostic.getMessage(Locale.ROOT));
+            }
+        }
+        return errors;
+    }
+}
@@ -0,0 +1,104 @@
+package com.talhahasanzia.benchmarks;
+
+import com.talhahasanzia.processor.RouteProcessor;
+import com.talhahasanzia.runtime.ExtrasStore;
+
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.ToolProvider;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+// Generated binders of @Extra(byReference = true) fields take values from ExtrasStore by the tokens of their intent,
+// and fall back to the parcel saved in instance state once the store is empty after process death.
+public class ExtrasBinderTest {
+
+    @Test
+    public void binderFallsBackToSavedInstanceState() throws Exception {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        final SyntheticModule.InMemoryFileManager fileManager =
+                new SyntheticModule.InMemoryFileManager(compiler.getStandardFileManager(null, null, null));
+        List<JavaFileObject> sources = new ArrayList<>(SyntheticModule.androidRuntimeStubs());
+        sources.add(SyntheticModule.source("com.example.app.ReportActivity", "package com.example.app;\n"
+                + "import com.talhahasanzia.annotation.Extra;\n"
+                + "import com.talhahasanzia.annotation.Routeable;\n"
+                + "@Routeable public class ReportActivity extends android.app.Activity {\n"
+                + "public static class Report implements android.os.Parcelable {}\n"
+                + "@Extra(byReference = true) Report report;\n"
+                + "@Extra(byReference = true) android.os.Bundle options;\n"
+                + "}"));
+        // keeps intents it starts
+        sources.add(SyntheticModule.source("com.example.app.Navigator", "package com.example.app;\n"
+                + "public class Navigator extends android.app.Activity {\n"
+                + "public android.content.Intent started;\n"
+                + "@Override public void startActivity(android.content.Intent intent) { started = intent; }\n"
+                + "}"));
+
+        List<String> options = Arrays.asList("-classpath", System.getProperty("java.class.path"));
+        JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, null, options, null, sources);
+        task.setProcessors(Collections.singletonList(new RouteProcessor()));
+        assertTrue("compilation failed", task.call());
+        ClassLoader loader = new ClassLoader(ExtrasBinderTest.class.getClassLoader()) {
+            @Override
+            protected Class<?> findClass(String name) throws ClassNotFoundException {
+                byte[] bytes = fileManager.classBytes(name);
+                if (bytes == null) {
+                    throw new ClassNotFoundException(name);
+                }
+                return defineClass(name, bytes, 0, bytes.length);
+            }
+        };
+        Class<?> context = loader.loadClass("android.content.Context");
+        Class<?> intentClass = loader.loadClass("android.content.Intent");
+        Class<?> bundleClass = loader.loadClass("android.os.Bundle");
+        Class<?> activityClass = loader.loadClass("com.example.app.ReportActivity");
+        Class<?> reportClass = loader.loadClass("com.example.app.ReportActivity$Report");
+        Class<?> binder = loader.loadClass("com.example.app.ReportActivityBinder");
+        Object navigator = loader.loadClass("com.example.app.Navigator").getConstructor().newInstance();
+
+        Object report = reportClass.getConstructor().newInstance();
+        Object bundle = bundleClass.getConstructor().newInstance();
+        loader.loadClass("com.example.app.ReportActivityRouter").getMethod("routeWithExtras", context, reportClass, bundleClass)
+                .invoke(null, navigator, report, bundle);
+        Object intent = navigator.getClass().getField("started").get(navigator);
+
+        // same instances, only tokens travel in intent
+        Object activity = activity(activityClass, intentClass, intent);
+        binder.getMethod("bind", activityClass).invoke(null, activity);
+        assertSame(report, field(activity, "report"));
+        assertSame(bundle, field(activity, "options"));
+        Object outState = bundleClass.getConstructor().newInstance();
+        binder.getMethod("save", activityClass, bundleClass).invoke(null, activity, outState);
+
+        // process death: store is empty, activity is recreated with same intent and saved state
+        ExtrasStore.getDefault().clear();
+        Object recreated = activity(activityClass, intentClass, intent);
+        binder.getMethod("bind", activityClass).invoke(null, recreated);
+        assertNull(field(recreated, "report"));
+        binder.getMethod("bind", activityClass, bundleClass).invoke(null, recreated, outState);
+        assertSame(report, field(recreated, "report"));
+        assertSame(bundle, field(recreated, "options"));
+    }
+
+    private static Object activity(Class<?> activityClass, Class<?> intentClass, Object intent) throws ReflectiveOperationException {
+        Object activity = activityClass.getConstructor().newInstance();
+        activityClass.getMethod("setIntent", intentClass).invoke(activity, intent);
+        return activity;
+    }
+
+    private static Object field(Object activity, String name) throws ReflectiveOperationException {
+        Field field = activity.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        return field.get(activity);
+    }
+}
@@ -0,0 +1,307 @@
+package com.talhahasanzia.benchmarks;
+
+import com.talhahasanzia.processor.RouteProcessor;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import javax.annotation.processing.Completion;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.Processor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.FileObject;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+// What gradle relies on for incremental builds: every router originates from its activity only, so a recompilation of
+// one activity regenerates its routers and nothing else. With router.module, RouteRegistry is regenerated as well,
+// from the changed activity and unchanged ones that gradle reprocesses from class files.
+public class IncrementalProcessingTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void generatedFilesOriginateFromTheirActivityOnly() throws IOException {
+        for (String option : Arrays.asList("-Arouter.lazy=false", "-Arouter.lazy=true")) {
+            OriginRecorder recorder = new OriginRecorder();
+            compile(folder.newFolder(), Collections.singletonList(option), activities(false), recorder);
+
+            Map<String, String> expected = new TreeMap<>();
+            for (String activity : Arrays.asList("HomeActivity", "ProfileActivity", "OrderActivity")) {
+                expected.put("com.example.app." + activity + "Router", "com.example.app." + activity);
+            }
+            expected.put("com.example.app.OrderActivityBinder", "com.example.app.OrderActivity");
+            if (option.endsWith("true")) {
+                for (String activity : Arrays.asList("HomeActivity", "ProfileActivity", "OrderActivity")) {
+                    expected.put("com.example.app." + activity + "RouterImpl", "com.example.app." + activity);
+                }
+            }
+            assertEquals(option, expected, recorder.origins);
+        }
+    }
+
+    @Test
+    public void recompilationRegeneratesRoutersOfChangedActivityOnly() throws IOException {
+        File first = folder.newFolder();
+        compile(first, Collections.<String>emptyList(), activities(false), null);
+
+        // gradle recompiles the changed source against outputs of previous build
+        File second = folder.newFolder();
+        compile(second, Collections.<String>emptyList(), Collections.singletonList(home(true)), null, first);
+
+        assertEquals(new TreeSet<>(Arrays.asList(
+                "com/example/app/HomeActivityBinder.java",
+                "com/example/app/HomeActivityRouter.java")), generatedSources(second));
+    }
+
+    @Test
+    public void aggregatingRecompilationRegeneratesRoutersOfChangedActivityOnly() throws Exception {
+        List<String> options = Collections.singletonList("-Arouter.module=com.example.app");
+        File first = folder.newFolder();
+        compile(first, options, activities(false), null);
+
+        // gradle reprocesses unchanged annotated classes of aggregating processors, annotations have to be in them
+        File second = folder.newFolder();
+        compile(second, options, Collections.singletonList(home(true)),
+                Arrays.asList("com.example.app.ProfileActivity", "com.example.app.OrderActivity"), null, first);
+
+        assertEquals(new TreeSet<>(Arrays.asList(
+                "com/example/app/HomeActivityBinder.java",
+                "com/example/app/HomeActivityRouter.java",
+                "com/example/app/RouteRegistry.java")), generatedSources(second));
+        URLClassLoader loader = new URLClassLoader(new URL[]{
+                new File(second, "classes").toURI().toURL(), new File(first, "classes").toURI().toURL()});
+        Class<?> registry = loader.loadClass("com.example.app.RouteRegistry");
+        assertEquals(3, registry.getMethod("size").invoke(null));
+        // ids are hashes of route names, the same whichever routes were recompiled
+        assertEquals("HomeActivity".hashCode() & Integer.MAX_VALUE, registry.getMethod("idOf", String.class).invoke(null, "HomeActivity"));
+        assertEquals("OrderActivity".hashCode() & Integer.MAX_VALUE, registry.getMethod("idOf", String.class).invoke(null, "OrderActivity"));
+        assertEquals("profile", registry.getMethod("nameOf", int.class).invoke(null, "profile".hashCode() & Integer.MAX_VALUE));
+    }
+
+    static List<JavaFileObject> activities(boolean isHomeChanged) {
+        List<JavaFileObject> sources = new ArrayList<>(SyntheticModule.androidRuntimeStubs());
+        sources.add(home(isHomeChanged));
+        sources.add(activity("ProfileActivity", "@Routeable(name = \"profile\")", ""));
+        sources.add(activity("OrderActivity", "@Routeable", "@Extra String id;"));
+        return sources;
+    }
+
+    // changed version of HomeActivity has an @Extra field
+    static JavaFileObject home(boolean isChanged) {
+        return activity("HomeActivity", "@Routeable", isChanged ? "@Extra int tab;" : "");
+    }
+
+    static JavaFileObject activity(String simpleName, String annotation, String body) {
+        return SyntheticModule.source("com.example.app." + simpleName, "package com.example.app;\n"
+                + "import com.talhahasanzia.annotation.Extra;\n"
+                + "import com.talhahasanzia.annotation.Routeable;\n"
+                + annotation + " public class " + simpleName + " extends android.app.Activity {\n" + body + "}");
+    }
+
+    // compiles sources into output/classes and output/sources, classpath directories are outputs of earlier builds.
+    // Processor is wrapped by recorder if it is not null
+    static void compile(File output, List<String> options, List<JavaFileObject> sources, OriginRecorder recorder,
+                        File... classpath) throws IOException {
+        compile(output, options, sources, Collections.<String>emptyList(), recorder, classpath);
+    }
+
+    // same, classes are binary names of classes on classpath that are processed again
+    static void compile(File output, List<String> options, List<JavaFileObject> sources, List<String> classes,
+                        OriginRecorder recorder, File... classpath) throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null);
+        File classOutput = new File(output, "classes");
+        File sourceOutput = new File(output, "sources");
+        assertTrue(classOutput.mkdirs() && sourceOutput.mkdirs());
+
+        StringBuilder path = new StringBuilder(System.getProperty("java.class.path"));
+        for (File directory : classpath) {
+            path.append(File.pathSeparator).append(new File(directory, "classes"));
+        }
+        List<String> compilerOptions = new ArrayList<>(options);
+        compilerOptions.addAll(Arrays.asList("-classpath", path.toString(),
+                "-d", classOutput.getPath(), "-s", sourceOutput.getPath()));
+
+        JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, null, compilerOptions,
+                classes.isEmpty() ? null : classes, sources);
+        Processor processor = new RouteProcessor();
+        task.setProcessors(Collections.singletonList(recorder == null ? processor : recorder.wrap(processor)));
+        try {
+            assertTrue("compilation failed", task.call());
+        } finally {
+            fileManager.close();
+        }
+    }
+
+    // paths of sources generated into output/sources
+    static Set<String> generatedSources(File output) {
+        Set<String> paths = new TreeSet<>();
+        collect(new File(output, "sources"), "", paths);
+        return paths;
+    }
+
+    private static void collect(File directory, String prefix, Set<String> paths) {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (file.isDirectory()) {
+                collect(file, prefix + file.getName() + "/", paths);
+            } else {
+                paths.add(prefix + file.getName());
+            }
+        }
+    }
+
+    // remembers originating elements of every source processor creates, the way gradle does for isolating processors
+    static final class OriginRecorder {
+
+        // generated type -> qualified names of its originating elements, comma separated
+        final Map<String, String> origins = new TreeMap<>();
+
+        Processor wrap(final Processor processor) {
+            return new Processor() {
+                @Override
+                public Set<String> getSupportedOptions() {
+                    return processor.getSupportedOptions();
+                }
+
+                @Override
+                public Set<String> getSupportedAnnotationTypes() {
+                    return processor.getSupportedAnnotationTypes();
+                }
+
+                @Override
+                public SourceVersion getSupportedSourceVersion() {
+                    return processor.getSupportedSourceVersion();
+                }
+
+                @Override
+                public void init(ProcessingEnvironment processingEnvironment) {
+                    processor.init(environment(processingEnvironment));
+                }
+
+                @Override
+                public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnvironment) {
+                    return processor.process(annotations, roundEnvironment);
+                }
+
+                @Override
+                public Iterable<? extends Completion> getCompletions(Element element, AnnotationMirror annotation,
+                                                                     ExecutableElement member, String userText) {
+                    return processor.getCompletions(element, annotation, member, userText);
+                }
+            };
+        }
+
+        private ProcessingEnvironment environment(final ProcessingEnvironment environment) {
+            final Filer filer = filer(environment.getFiler());
+            return new ProcessingEnvironment() {
+                @Override
+                public Map<String, String> getOptions() {
+                    return environment.getOptions();
+                }
+
+                @Override
+                public Messager getMessager() {
+                    return environment.getMessager();
+                }
+
+                @Override
+                public Filer getFiler() {
+                    return filer;
+                }
+
+                @Override
+                public Elements getElementUtils() {
+                    return environment.getElementUtils();
+                }
+
+                @Override
+                public Types getTypeUtils() {
+                    return environment.getTypeUtils();
+                }
+
+                @Override
+                public SourceVersion getSourceVersion() {
+                    return environment.getSourceVersion();
+                }
+
+                @Override
+                public Locale getLocale() {
+                    return environment.getLocale();
+                }
+            };
+        }
+
+        private Filer filer(final Filer filer) {
+            return new Filer() {
+                @Override
+                public JavaFileObject createSourceFile(CharSequence name, Element... originatingElements) throws IOException {
+                    record(name.toString(), originatingElements);
+                    return filer.createSourceFile(name, originatingElements);
+                }
+
+                @Override
+                public JavaFileObject createClassFile(CharSequence name, Element... originatingElements) throws IOException {
+                    record(name.toString(), originatingElements);
+                    return filer.createClassFile(name, originatingElements);
+                }
+
+                @Override
+                public FileObject createResource(JavaFileManager.Location location, CharSequence moduleAndPkg,
+                                                 CharSequence relativeName, Element... originatingElements) throws IOException {
+                    record(relativeName.toString(), originatingElements);
+                    return filer.createResource(location, moduleAndPkg, relativeName, originatingElements);
+                }
+
+                @Override
+                public FileObject getResource(JavaFileManager.Location location, CharSequence moduleAndPkg,
+                                              CharSequence relativeName) throws IOException {
+                    return filer.getResource(location, moduleAndPkg, relativeName);
+                }
+            };
+        }
+
+        private synchronized void record(String name, Element... originatingElements) {
+            List<String> names = new ArrayList<>();
+            for (Element element : originatingElements) {
+                names.add(((TypeElement) element).getQualifiedName().toString());
+            }
+            origins.put(name, String.join(",", names));
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.talhahasanzia.benchmarks;
+
+import com.talhahasanzia.processor.RouteProcessor;
+import com.talhahasanzia.runtime.IntentModifier;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.ToolProvider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+// Routers of @Routeable(prototype = true) copy one template Intent per navigation, what a navigation puts into
+// its copy never reaches the template or later navigations.
+public class IntentPrototypeTest {
+
+    private ClassLoader loader;
+    private Class<?> context;
+    private Class<?> router;
+    private Object navigator;
+
+    @Before
+    public void compile() throws Exception {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        final SyntheticModule.InMemoryFileManager fileManager =
+                new SyntheticModule.InMemoryFileManager(compiler.getStandardFileManager(null, null, null));
+        List<JavaFileObject> sources = new ArrayList<>(SyntheticModule.androidRuntimeStubs());
+        sources.add(SyntheticModule.source("com.example.app.CheckoutActivity", "package com.example.app;\n"
+                + "import com.talhahasanzia.annotation.Extra;\n"
+                + "import com.talhahasanzia.annotation.Routeable;\n"
+                + "@Routeable(prototype = true) public class CheckoutActivity extends android.app.Activity {\n"
+                + "@Extra String orderId;\n"
+                + "}"));
+        // keeps intents it starts
+        sources.add(SyntheticModule.source("com.example.app.Navigator", "package com.example.app;\n"
+                + "public class Navigator extends android.app.Activity {\n"
+                + "public final java.util.List<android.content.Intent> started = new java.util.ArrayList<>();\n"
+                + "@Override public void startActivity(android.content.Intent intent) { started.add(intent); }\n"
+                + "}"));
+
+        List<String> options = Arrays.asList("-classpath", System.getProperty("java.class.path"));
+        JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, null, options, null, sources);
+        task.setProcessors(Collections.singletonList(new RouteProcessor()));
+        assertTrue("compilation failed", task.call());
+        loader = new ClassLoader(IntentPrototypeTest.class.getClassLoader()) {
+            @Override
+            protected Class<?> findClass(String name) throws ClassNotFoundException {
+                byte[] bytes = fileManager.classBytes(name);
+                if (bytes == null) {
+                    throw new ClassNotFoundException(name);
+                }
+                return defineClass(name, bytes, 0, bytes.length);
+            }
+        };
+        context = loader.loadClass("android.content.Context");
+        router = loader.loadClass("com.example.app.CheckoutActivityRouter");
+        navigator = loader.loadClass("com.example.app.Navigator").getConstructor().newInstance();
+    }
+
+    @Test
+    public void templateIsBuiltOnceAndCopied() throws Exception {
+        assertNull(template());
+
+        router.getMethod("route", context).invoke(null, navigator);
+        Object template = template();
+        assertNotNull(template);
+        router.getMethod("route", context).invoke(null, navigator);
+
+        assertEquals(2, started().size());
+        assertNotSame(started().get(0), started().get(1));
+        assertNotSame(template, started().get(0));
+        assertNotSame(template, started().get(1));
+        // same template for every navigation
+        assertTrue(template == template());
+    }
+
+    @Test
+    public void navigationsDoNotLeakIntoTemplate() throws Exception {
+        IntentModifier<Object> modifier = new IntentModifier<Object>() {
+            @Override
+            public Object modifyIntent(Object intent) {
+                try {
+                    intent.getClass().getMethod("putExtra", String.class, String.class).invoke(intent, "modified", "yes");
+                    intent.getClass().getMethod("addFlags", int.class).invoke(intent, 0x10000000);
+                } catch (ReflectiveOperationException e) {
+                    throw new AssertionError(e);
+                }
+                return intent;
+            }
+        };
+        router.getMethod("route", context, IntentModifier.class).invoke(null, navigator, modifier);
+        router.getMethod("route", context, String.class, String.class).invoke(null, navigator, "key", "value");
+        router.getMethod("routeWithExtras", context, String.class).invoke(null, navigator, "42");
+        router.getMethod("route", context).invoke(null, navigator);
+
+        List<?> started = started();
+        assertTrue(hasExtra(started.get(0), "modified"));
+        assertEquals(0x10000000, flags(started.get(0)));
+        assertFalse(hasExtra(started.get(1), "modified"));
+        assertTrue(hasExtra(started.get(1), "key"));
+        assertFalse(hasExtra(started.get(2), "key"));
+        assertTrue(hasExtra(started.get(2), "orderId"));
+
+        Object last = started.get(3);
+        for (String key : Arrays.asList("modified", "key", "orderId")) {
+            assertFalse(key, hasExtra(last, key));
+            assertFalse(key, hasExtra(template(), key));
+        }
+        assertEquals(0, flags(last));
+        assertEquals(0, flags(template()));
+    }
+
+    private Object template() throws ReflectiveOperationException {
+        Field prototype = router.getDeclaredField("prototype");
+        prototype.setAccessible(true);
+        return prototype.get(null);
+    }
+
+    private List<?> started() throws ReflectiveOperationException {
+        return (List<?>) navigator.getClass().getField("started").get(navigator);
+    }
+
+    private static boolean hasExtra(Object intent, String key) throws ReflectiveOperationException {
+        return (Boolean) intent.getClass().getMethod("hasExtra", String.class).invoke(intent, key);
+    }
+
+    private static int flags(Object intent) throws ReflectiveOperationException {
+        return (Integer) intent.getClass().getMethod("getFlags").invoke(intent);
+    }
+}
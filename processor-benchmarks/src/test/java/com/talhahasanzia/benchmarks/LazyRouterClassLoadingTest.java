@@ -0,0 +1,130 @@
+package com.talhahasanzia.benchmarks;
+
+import com.talhahasanzia.processor.RouteProcessor;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.ToolProvider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+// Counts router classes loaded by startup code that references every router of a module and then navigates once.
+// In lazy mode only facades are loaded up front and a single impl once its route is taken.
+public class LazyRouterClassLoadingTest {
+
+    private static final int ROUTES = 50;
+
+    @Test
+    public void lazyRoutersLoadImplOfTakenRouteOnly() throws Exception {
+        CountingClassLoader loader = compile(Collections.singletonList("-Arouter.lazy=true"));
+
+        referenceAllRouters(loader);
+        assertEquals(ROUTES, loader.loaded("Router"));
+        assertEquals(0, loader.loaded("RouterImpl"));
+
+        route(loader, 7);
+        assertEquals(1, loader.loaded("RouterImpl"));
+        assertTrue(loader.isLoaded("com.example.p0.Screen7ActivityRouterImpl"));
+
+        // second navigation of same route loads nothing
+        int loaded = loader.loaded("");
+        route(loader, 7);
+        assertEquals(loaded, loader.loaded(""));
+    }
+
+    @Test
+    public void eagerRoutersHaveNoImpl() throws Exception {
+        CountingClassLoader loader = compile(Collections.<String>emptyList());
+
+        referenceAllRouters(loader);
+        route(loader, 7);
+        assertEquals(ROUTES, loader.loaded("Router"));
+        assertEquals(0, loader.loaded("RouterImpl"));
+    }
+
+    // what startup code does when it references routers, e.g. in static fields or switch tables
+    private static void referenceAllRouters(ClassLoader loader) throws ClassNotFoundException {
+        for (int i = 0; i < ROUTES; i++) {
+            Class.forName(routerName(i), true, loader);
+        }
+    }
+
+    private static void route(ClassLoader loader, int route) throws Exception {
+        Class<?> context = Class.forName("android.content.Context", true, loader);
+        Object activity = Class.forName("android.app.Activity", true, loader).getConstructor().newInstance();
+        Class.forName(routerName(route), true, loader).getMethod("route", context).invoke(null, activity);
+    }
+
+    private static String routerName(int route) {
+        return "com.example.p0.Screen" + route + "ActivityRouter";
+    }
+
+    private static CountingClassLoader compile(List<String> options) {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        SyntheticModule.InMemoryFileManager fileManager =
+                new SyntheticModule.InMemoryFileManager(compiler.getStandardFileManager(null, null, null));
+        List<JavaFileObject> sources = new ArrayList<>(SyntheticModule.androidRuntimeStubs());
+        sources.addAll(SyntheticModule.activities(ROUTES));
+
+        List<String> compilerOptions = new ArrayList<>(options);
+        compilerOptions.addAll(Arrays.asList("-classpath", System.getProperty("java.class.path")));
+        JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, null, compilerOptions, null, sources);
+        task.setProcessors(Collections.singletonList(new RouteProcessor()));
+        assertTrue("compilation failed", task.call());
+        return new CountingClassLoader(fileManager);
+    }
+
+    // defines compiled classes from memory and remembers which ones were loaded
+    private static final class CountingClassLoader extends ClassLoader {
+
+        private final SyntheticModule.InMemoryFileManager fileManager;
+        private final List<String> loaded = new ArrayList<>();
+
+        CountingClassLoader(SyntheticModule.InMemoryFileManager fileManager) {
+            super(LazyRouterClassLoadingTest.class.getClassLoader());
+            this.fileManager = fileManager;
+        }
+
+        // number of loaded classes with given suffix
+        int loaded(String suffix) {
+            int count = 0;
+            for (String name : loaded) {
+                if (name.endsWith(suffix)) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        boolean isLoaded(String name) {
+            return loaded.contains(name);
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> loadedClass = findLoadedClass(name);
+                if (loadedClass == null) {
+                    byte[] bytes = fileManager.classBytes(name);
+                    if (bytes == null) {
+                        return super.loadClass(name, resolve);
+                    }
+                    loadedClass = defineClass(name, bytes, 0, bytes.length);
+                    loaded.add(name);
+                }
+                if (resolve) {
+                    resolveClass(loadedClass);
+                }
+                return loadedClass;
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.talhahasanzia.benchmarks;
+
+import com.talhahasanzia.processor.RouteProcessor;
+import com.talhahasanzia.runtime.RoutePrewarmer;
+
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.ToolProvider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+// Generated RouteRegistry.prewarm queues up to 8 routes for RoutePrewarmer, which warms them on its own thread.
+public class RegistryPrewarmTest {
+
+    @Test
+    public void generatedRegistryQueuesEightRoutes() throws Exception {
+        Class<?> registry = registry(10);
+        Object context = registry.getClassLoader().loadClass("android.app.Activity").getConstructor().newInstance();
+        Class<?> contextClass = registry.getClassLoader().loadClass("android.content.Context");
+        Field field = registry.getClassLoader().loadClass(registry.getName() + "$Prewarm").getDeclaredField("PREWARMER");
+        field.setAccessible(true);
+        RoutePrewarmer prewarmer = (RoutePrewarmer) field.get(null);
+
+        int[] ids = new int[10];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = (Integer) registry.getMethod("idOf", String.class).invoke(null, "Screen" + i + "Activity");
+        }
+
+        // prewarmer thread waits for this monitor to take queued routes
+        synchronized (prewarmer) {
+            for (int i = 0; i < 8; i++) {
+                assertTrue(prewarm(registry, contextClass, ids[i], context));
+            }
+            assertFalse(prewarm(registry, contextClass, ids[8], context));
+            assertTrue((Boolean) registry.getMethod("cancelPrewarm", int.class).invoke(null, ids[7]));
+            assertTrue(prewarm(registry, contextClass, ids[8], context));
+            assertFalse(prewarm(registry, contextClass, ids[8], context));
+        }
+
+        long deadline = System.currentTimeMillis() + 10000;
+        while (prewarmer.queued() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        for (int i = 0; i < ids.length; i++) {
+            assertEquals(String.valueOf(i), i != 7 && i != 9, prewarmer.isWarmed(ids[i]));
+        }
+        assertFalse(prewarm(registry, contextClass, ids[0], context));
+    }
+
+    private static boolean prewarm(Class<?> registry, Class<?> contextClass, int routeId, Object context) throws ReflectiveOperationException {
+        return (Boolean) registry.getMethod("prewarm", int.class, contextClass).invoke(null, routeId, context);
+    }
+
+    // RouteRegistry of a module of given number of activities
+    private static Class<?> registry(int activities) throws ClassNotFoundException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        final SyntheticModule.InMemoryFileManager fileManager =
+                new SyntheticModule.InMemoryFileManager(compiler.getStandardFileManager(null, null, null));
+        List<JavaFileObject> sources = new ArrayList<>(SyntheticModule.androidRuntimeStubs());
+        sources.addAll(SyntheticModule.activities(activities));
+
+        List<String> options = Arrays.asList("-Arouter.module=com.example.p0", "-classpath", System.getProperty("java.class.path"));
+        JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, null, options, null, sources);
+        task.setProcessors(Collections.singletonList(new RouteProcessor()));
+        assertTrue("compilation failed", task.call());
+        ClassLoader loader = new ClassLoader(RegistryPrewarmTest.class.getClassLoader()) {
+            @Override
+            protected Class<?> findClass(String name) throws ClassNotFoundException {
+                byte[] bytes = fileManager.classBytes(name);
+                if (bytes == null) {
+                    throw new ClassNotFoundException(name);
+                }
+                return defineClass(name, bytes, 0, bytes.length);
+            }
+        };
+        return loader.loadClass("com.example.p0.RouteRegistry");
+    }
+}
@@ -0,0 +1,233 @@
+package com.talhahasanzia.benchmarks;
+
+import com.talhahasanzia.processor.RouteProcessor;
+import com.talhahasanzia.runtime.RouteResolution;
+import com.talhahasanzia.runtime.RouteResolver;
+import com.talhahasanzia.runtime.RouteTracer;
+import com.talhahasanzia.runtime.RouteTracing;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.ToolProvider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+// Options that act on the calling activity (finish, for result) take an Activity, in static overloads and in the fluent
+// builder of a router made from any Context, so context is never cast. Traced builders report extras of their intent.
+// Async routes of feature modules keep only application context and weak references to activities while loading.
+public class RouteBuilderTest {
+
+    private ClassLoader loader;
+    private Class<?> context;
+    private Class<?> activity;
+
+    @Before
+    public void compile() throws Exception {
+        compile("-classpath", System.getProperty("java.class.path"));
+    }
+
+    private void compile(String... options) throws Exception {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        final SyntheticModule.InMemoryFileManager fileManager =
+                new SyntheticModule.InMemoryFileManager(compiler.getStandardFileManager(null, null, null));
+        List<JavaFileObject> sources = new ArrayList<>(SyntheticModule.androidRuntimeStubs());
+        sources.add(SyntheticModule.source("com.example.app.OrderActivity", "package com.example.app;\n"
+                + "@com.talhahasanzia.annotation.Routeable public class OrderActivity extends android.app.Activity {}"));
+        sources.add(SyntheticModule.source("com.example.app.CartActivity", "package com.example.app;\n"
+                + "@com.talhahasanzia.annotation.Routeable(featureModule = \"cart\") public class CartActivity extends android.app.Activity {}"));
+        // context that is no activity, keeps intents it starts
+        sources.add(SyntheticModule.source("com.example.app.App", "package com.example.app;\n"
+                + "public class App extends android.content.Context {\n"
+                + "public int started;\n"
+                + "public int flags;\n"
+                + "@Override public void startActivity(android.content.Intent intent) { started++; flags = intent.getFlags(); }\n"
+                + "}"));
+        sources.add(SyntheticModule.source("com.example.app.Caller", "package com.example.app;\n"
+                + "public class Caller extends android.app.Activity {\n"
+                + "public int requestCode = -1;\n"
+                + "public boolean isFinished;\n"
+                + "public android.content.Context application = this;\n"
+                + "@Override public android.content.Context getApplicationContext() { return application; }\n"
+                + "@Override public void startActivityForResult(android.content.Intent intent, int requestCode) { this.requestCode = requestCode; }\n"
+                + "@Override public void finish() { isFinished = true; }\n"
+                + "}"));
+
+        JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, null, Arrays.asList(options), null, sources);
+        task.setProcessors(Collections.singletonList(new RouteProcessor()));
+        assertTrue("compilation failed", task.call());
+        loader = new ClassLoader(RouteBuilderTest.class.getClassLoader()) {
+            @Override
+            protected Class<?> findClass(String name) throws ClassNotFoundException {
+                byte[] bytes = fileManager.classBytes(name);
+                if (bytes == null) {
+                    throw new ClassNotFoundException(name);
+                }
+                return defineClass(name, bytes, 0, bytes.length);
+            }
+        };
+        context = loader.loadClass("android.content.Context");
+        activity = loader.loadClass("android.app.Activity");
+    }
+
+    @Test
+    public void applicationContextRoutesForResultOfActivity() throws Exception {
+        Object app = loader.loadClass("com.example.app.App").getConstructor().newInstance();
+        Object caller = loader.loadClass("com.example.app.Caller").getConstructor().newInstance();
+
+        Object builder = with(app);
+        builder.getClass().getMethod("forResult", activity, int.class).invoke(builder, caller, 7);
+        builder.getClass().getMethod("finishCurrent", activity).invoke(builder, caller);
+        builder.getClass().getMethod("go").invoke(builder);
+        assertEquals(0, field(app, "started"));
+        assertEquals(7, field(caller, "requestCode"));
+        assertEquals(true, field(caller, "isFinished"));
+
+        builder = with(app);
+        builder.getClass().getMethod("go").invoke(builder);
+        assertEquals(1, field(app, "started"));
+    }
+
+    @Test
+    public void activityOptionsNeedAnActivity() throws Exception {
+        Class<?> builder = loader.loadClass("com.example.app.OrderActivityRouter$Builder");
+        assertTrue(hasMethod(builder, "finishCurrent", activity));
+        assertTrue(hasMethod(builder, "forResult", activity, int.class));
+        assertFalse(hasMethod(builder, "finishCurrent"));
+        assertFalse(hasMethod(builder, "forResult", int.class));
+    }
+
+    @Test
+    public void staticActivityOverloadsNeedAnActivity() throws Exception {
+        Class<?> router = loader.loadClass("com.example.app.OrderActivityRouter");
+        assertTrue(hasMethod(router, "route", activity, boolean.class));
+        assertTrue(hasMethod(router, "routeForResult", activity, int.class));
+        assertFalse(hasMethod(router, "route", context, boolean.class));
+        assertFalse(hasMethod(router, "routeForResult", context, int.class));
+
+        Object caller = loader.loadClass("com.example.app.Caller").getConstructor().newInstance();
+        router.getMethod("routeForResult", activity, int.class).invoke(null, caller, 5);
+        assertEquals(5, field(caller, "requestCode"));
+        router.getMethod("route", activity, boolean.class).invoke(null, caller, true);
+        assertEquals(true, field(caller, "isFinished"));
+    }
+
+    @Test
+    public void tracedGoReportsExtrasOfIntent() throws Exception {
+        compile("-Arouter.trace=true", "-classpath", System.getProperty("java.class.path"));
+        final List<Integer> extras = new ArrayList<>();
+        RouteTracing.install(new RouteTracer() {
+            @Override
+            public void onRoute(String route, long buildNanos, long modifierNanos, long startNanos, int count) {
+                extras.add(count);
+            }
+        });
+        try {
+            Object app = loader.loadClass("com.example.app.App").getConstructor().newInstance();
+            Object builder = with(app);
+            builder.getClass().getMethod("go").invoke(builder);
+            builder = with(app);
+            builder.getClass().getMethod("extra", String.class, String.class).invoke(builder, "a", "x");
+            builder.getClass().getMethod("extra", String.class, int.class).invoke(builder, "b", 1);
+            builder.getClass().getMethod("go").invoke(builder);
+        } finally {
+            RouteTracing.install(null);
+        }
+        assertEquals(Arrays.asList(0, 2), extras);
+    }
+
+    @Test
+    public void asyncRoutesKeepApplicationContext() throws Exception {
+        final List<RouteResolver.Callback> loads = new ArrayList<>();
+        final List<String> results = new ArrayList<>();
+        RouteResolution.install(new RouteResolver() {
+            @Override
+            public void resolve(String module, Callback callback) {
+                loads.add(callback);
+            }
+        }, new Executor() {
+            @Override
+            public void execute(Runnable task) {
+                task.run();
+            }
+        });
+        RouteResolution.Listener listener = new RouteResolution.Listener() {
+            @Override
+            public void onRouted() {
+                results.add("routed");
+            }
+
+            @Override
+            public void onFailed(String module, Exception error) {
+                results.add(error.getClass().getSimpleName());
+            }
+        };
+        Class<?> router = loader.loadClass("com.example.app.CartActivityRouter");
+        Class<?> builderClass = loader.loadClass("com.example.app.CartActivityRouter$Builder");
+        Object app = loader.loadClass("com.example.app.App").getConstructor().newInstance();
+
+        // activity can be collected while module loads, route starts a new task from application context
+        Object caller = caller(app);
+        WeakReference<Object> collected = new WeakReference<>(caller);
+        router.getMethod("routeAsync", context, RouteResolution.Listener.class).invoke(null, caller, listener);
+        // builder that finishes an activity which is gone meanwhile
+        Object builder = builderClass.getMethod("finishCurrent", activity).invoke(router.getMethod("with", context).invoke(null, caller), caller);
+        builderClass.getMethod("goAsync", RouteResolution.Listener.class).invoke(builder, listener);
+        // for result of an activity that is gone meanwhile
+        builder = builderClass.getMethod("forResult", activity, int.class).invoke(router.getMethod("with", context).invoke(null, caller), caller, 3);
+        builderClass.getMethod("goAsync", RouteResolution.Listener.class).invoke(builder, listener);
+        caller = null;
+        for (int i = 0; i < 100 && collected.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull("activity is held while module loads", collected.get());
+
+        // for result of an activity that is still there, started from it
+        Object kept = caller(app);
+        builder = builderClass.getMethod("forResult", activity, int.class).invoke(router.getMethod("with", context).invoke(null, kept), kept, 5);
+        builderClass.getMethod("goAsync", RouteResolution.Listener.class).invoke(builder, listener);
+
+        loads.get(0).onResolved();
+        assertEquals(Arrays.asList("routed", "routed", "CallerGoneException", "routed"), results);
+        assertEquals(2, field(app, "started"));
+        assertEquals(0x10000000, field(app, "flags"));
+        assertEquals(5, field(kept, "requestCode"));
+    }
+
+    // activity of given application context
+    private Object caller(Object application) throws Exception {
+        Object caller = loader.loadClass("com.example.app.Caller").getConstructor().newInstance();
+        caller.getClass().getField("application").set(caller, application);
+        return caller;
+    }
+
+    private Object with(Object context) throws ReflectiveOperationException {
+        return loader.loadClass("com.example.app.OrderActivityRouter").getMethod("with", this.context).invoke(null, context);
+    }
+
+    private static boolean hasMethod(Class<?> type, String name, Class<?>... parameters) {
+        try {
+            type.getMethod(name, parameters);
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private static Object field(Object object, String name) throws ReflectiveOperationException {
+        return object.getClass().getField(name).get(object);
+    }
+}
@@ -0,0 +1,170 @@
+package com.talhahasanzia.benchmarks;
+
+import com.talhahasanzia.processor.RouteProcessor;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.ToolProvider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+// Route names, RouteRegistry constants and deep link patterns have to be unique in a module, conflicts are
+// reported on every element involved. Key constants of @Extra fields have to be unique in their router, and field names
+// must not clash with parameters of routeWithExtras. Deep link patterns must not need more than RouteTrie.MAX_STATES
+// trie states.
+public class RouteConflictTest {
+
+    @Test
+    public void sameSimpleNameInTwoPackages() {
+        List<String> errors = process(
+                activity("com.example.a", "ProfileActivity", "@Routeable"),
+                activity("com.example.b", "ProfileActivity", "@Routeable"));
+
+        assertEquals(Arrays.asList(
+                "com/example/b/ProfileActivity.java:3: Route name \"ProfileActivity\" conflicts with com.example.a.ProfileActivity.",
+                "com/example/a/ProfileActivity.java:3: Route name \"ProfileActivity\" conflicts with com.example.b.ProfileActivity."), errors);
+    }
+
+    @Test
+    public void namesOfSameConstant() {
+        List<String> errors = process(
+                activity("com.example.a", "FirstActivity", "@Routeable(name = \"FooBar\")"),
+                activity("com.example.a", "SecondActivity", "@Routeable(name = \"foo_bar\")"));
+
+        assertEquals(Arrays.asList(
+                "com/example/a/SecondActivity.java:3: Route constant FOO_BAR of \"foo_bar\" conflicts with com.example.a.FirstActivity.",
+                "com/example/a/FirstActivity.java:3: Route constant FOO_BAR of \"FooBar\" conflicts with com.example.a.SecondActivity."), errors);
+    }
+
+    @Test
+    public void namesOfSameId() {
+        // "Aa" and "BB" have the same String hash
+        List<String> errors = process(
+                activity("com.example.a", "FirstActivity", "@Routeable(name = \"Aa\")"),
+                activity("com.example.a", "SecondActivity", "@Routeable(name = \"BB\")"));
+
+        assertEquals(Arrays.asList(
+                "com/example/a/SecondActivity.java:3: Route id 2112 of \"BB\" (rename it with @Routeable(name)) conflicts with com.example.a.FirstActivity.",
+                "com/example/a/FirstActivity.java:3: Route id 2112 of \"Aa\" (rename it with @Routeable(name)) conflicts with com.example.a.SecondActivity."), errors);
+    }
+
+    @Test
+    public void equivalentDeepLinks() {
+        List<String> errors = process(
+                activity("com.example.a", "OrderActivity", "@Routeable(paths = \"app://orders/{id}\")"),
+                activity("com.example.a", "ReceiptActivity", "@Routeable(paths = {\"app://receipts\", \"app://orders/{order}?x=1\"})"));
+
+        assertEquals(Arrays.asList(
+                "com/example/a/ReceiptActivity.java:3: Deep link pattern app://orders/{order}?x=1 conflicts with com.example.a.OrderActivity.",
+                "com/example/a/OrderActivity.java:3: Deep link pattern app://orders/{id} conflicts with com.example.a.ReceiptActivity."), errors);
+    }
+
+    @Test
+    public void deepLinksOfTooManyStates() {
+        // pattern i has literal "a" at position i and params elsewhere, 2^16 trie states
+        StringBuilder paths = new StringBuilder();
+        for (int i = 0; i < 16; i++) {
+            paths.append(i == 0 ? "\"app:/" : ", \"app:/");
+            for (int j = 0; j < 16; j++) {
+                paths.append(j == i ? "/a" : "/{p" + j + "}");
+            }
+            paths.append('"');
+        }
+        List<String> errors = process(activity("com.example.a", "LinkActivity", "@Routeable(paths = {" + paths + "})"));
+
+        assertEquals(Collections.singletonList(
+                "Deep link patterns need more than 10000 trie states, use fewer {params} next to literals at the same positions."), errors);
+    }
+
+    @Test
+    public void thirdConflictIsReportedOnItsOwnElement() {
+        List<String> errors = process(
+                activity("com.example.a", "HomeActivity", "@Routeable"),
+                activity("com.example.b", "HomeActivity", "@Routeable"),
+                activity("com.example.c", "HomeActivity", "@Routeable"));
+
+        assertEquals(3, errors.size());
+        assertTrue(errors.get(2).startsWith("com/example/c/HomeActivity.java:3: "));
+    }
+
+    @Test
+    public void extrasOfSameKeyConstant() {
+        List<String> errors = process(SyntheticModule.source("com.example.a.DetailActivity", "package com.example.a;\n"
+                + "import com.talhahasanzia.annotation.Extra;\n"
+                + "import com.talhahasanzia.annotation.Routeable;\n"
+                + "@Routeable public class DetailActivity extends android.app.Activity {\n"
+                + "@Extra String itemId;\n"
+                + "@Extra(\"item\") String item_id;\n"
+                + "}"));
+
+        assertEquals(Collections.singletonList(
+                "com/example/a/DetailActivity.java:6: @Extra field has the same key constant as another field: EXTRA_ITEM_ID"), errors);
+    }
+
+    @Test
+    public void extrasNamedAfterRouteWithExtrasLocals() {
+        List<String> errors = process(SyntheticModule.source("com.example.a.DetailActivity", "package com.example.a;\n"
+                + "import com.talhahasanzia.annotation.Extra;\n"
+                + "import com.talhahasanzia.annotation.Routeable;\n"
+                + "@Routeable public class DetailActivity extends android.app.Activity {\n"
+                + "@Extra String context;\n"
+                + "@Extra long traceStart;\n"
+                + "@Extra String contextId;\n"
+                + "}"));
+
+        assertEquals(Arrays.asList(
+                "com/example/a/DetailActivity.java:5: @Extra field name is reserved by routeWithExtras: context",
+                "com/example/a/DetailActivity.java:6: @Extra field name is reserved by routeWithExtras: traceStart"), errors);
+    }
+
+    @Test
+    public void largeUniqueModule() {
+        List<JavaFileObject> sources = new ArrayList<>(SyntheticModule.activities(1000));
+        assertEquals(Collections.<String>emptyList(), process(sources.toArray(new JavaFileObject[0])));
+    }
+
+    private static JavaFileObject activity(String packageName, String simpleName, String annotation) {
+        return SyntheticModule.source(packageName + "." + simpleName, "package " + packageName + ";\n"
+                + "import com.talhahasanzia.annotation.Routeable;\n"
+                + annotation + " public class " + simpleName + " extends android.app.Activity {}");
+    }
+
+    // errors as "<path>:<line>: <message>", or message of errors without element, in reporting order
+    private static List<String> process(JavaFileObject... activities) {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        SyntheticModule.InMemoryFileManager fileManager =
+                new SyntheticModule.InMemoryFileManager(compiler.getStandardFileManager(null, null, null));
+        List<JavaFileObject> sources = new ArrayList<>(SyntheticModule.androidRuntimeStubs());
+        sources.addAll(Arrays.asList(activities));
+
+        List<String> options = Arrays.asList("-proc:only", "-Arouter.module=com.example",
+                "-classpath", System.getProperty("java.class.path"));
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics, options, null, sources);
+        task.setProcessors(Collections.singletonList(new RouteProcessor()));
+        task.call();
+
+        List<String> errors = new ArrayList<>();
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            if (diagnostic.getKind() == Diagnostic.Kind.ERROR && diagnostic.getSource() == null) {
+                errors.add(diagnostic.getMessage(Locale.ROOT));
+            } else if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+                String path = diagnostic.getSource().toUri().getPath();
+                errors.add(path.substring(path.indexOf("com/")) + ":" + diagnostic.getLineNumber() + ": "
+                        + diagnostic.getMessage(Locale.ROOT));
+            }
+        }
+        return errors;
+    }
+}
@@ -0,0 +1,65 @@
+package com.talhahasanzia.benchmarks;
+
+import com.talhahasanzia.processor.RouteProcessor;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.ToolProvider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+// route-graph.json of -Arouter.graph=true: a route that navigates to itself counts neither in its fan-in nor fan-out.
+public class RouteGraphTest {
+
+    @Test
+    public void selfCallsAreNotEdges() {
+        String json = graph(
+                activity("HomeActivity", "HomeActivityRouter.route(this); DetailActivityRouter.route(this);"),
+                activity("DetailActivity", "DetailActivityRouter.route(this);"),
+                activity("RefreshActivity", "RefreshActivityRouter.route(this);"));
+
+        // routes in order of their ids, hashes of route names
+        assertEquals("{\"routes\":["
+                + "{\"id\":843355882,\"name\":\"RefreshActivity\",\"class\":\"com.example.app.RefreshActivity\",\"fanIn\":0,\"fanOut\":0,\"reachable\":false,\"to\":[]},"
+                + "{\"id\":1552634158,\"name\":\"HomeActivity\",\"class\":\"com.example.app.HomeActivity\",\"fanIn\":0,\"fanOut\":1,\"reachable\":true,\"to\":[\"DetailActivity\"]},"
+                + "{\"id\":1608932000,\"name\":\"DetailActivity\",\"class\":\"com.example.app.DetailActivity\",\"fanIn\":1,\"fanOut\":0,\"reachable\":true,\"to\":[]}"
+                + "],\"entries\":[]}\n", json);
+    }
+
+    // HomeActivity is the launcher, entered from outside
+    private static JavaFileObject activity(String simpleName, String onCreate) {
+        return SyntheticModule.source("com.example.app." + simpleName, "package com.example.app;\n"
+                + "import com.talhahasanzia.annotation.Routeable;\n"
+                + (simpleName.equals("HomeActivity") ? "@SuppressWarnings(\"DeadRoute\") " : "")
+                + "@Routeable public class " + simpleName + " extends android.app.Activity {\n"
+                + "void onCreate() { " + onCreate + " }\n"
+                + "}");
+    }
+
+    private static String graph(JavaFileObject... activities) {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        SyntheticModule.InMemoryFileManager fileManager =
+                new SyntheticModule.InMemoryFileManager(compiler.getStandardFileManager(null, null, null));
+        List<JavaFileObject> sources = new ArrayList<>(SyntheticModule.androidRuntimeStubs());
+        sources.addAll(Arrays.asList(activities));
+
+        List<String> options = Arrays.asList("-Arouter.module=com.example.app", "-Arouter.graph=true",
+                "-classpath", System.getProperty("java.class.path"));
+        JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, null, options, null, sources);
+        task.setProcessors(Collections.singletonList(new RouteProcessor()));
+        assertTrue("compilation failed", task.call());
+        byte[] json = fileManager.resourceBytes("com/example/app/route-graph.json");
+        assertNotNull(json);
+        return new String(json, StandardCharsets.UTF_8);
+    }
+}
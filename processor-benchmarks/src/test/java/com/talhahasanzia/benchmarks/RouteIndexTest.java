@@ -0,0 +1,212 @@
+package com.talhahasanzia.benchmarks;
+
+import com.talhahasanzia.processor.RouteProcessor;
+import com.talhahasanzia.runtime.RouteIndex;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.ToolProvider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+// Binary route indexes the processor writes per module, loaded and merged by RouteIndex at runtime.
+public class RouteIndexTest {
+
+    @Test
+    public void generatedIndexRoundTrip() throws IOException {
+        ClassLoader loader = modules(compile("com.example.a",
+                activity("com.example.a", "ZetaActivity", "@Routeable"),
+                activity("com.example.a.detail", "DetailActivity", "@Routeable(name = \"alpha\")"),
+                activity("com.example.a", "MainActivity", "@Routeable")));
+
+        RouteIndex index = RouteIndex.load(loader, "com.example.a");
+        assertEquals(3, index.size());
+        assertEquals(Arrays.asList("MainActivity", "ZetaActivity", "alpha"), names(index));
+        assertEquals("com.example.a.detail.DetailActivity", index.className("alpha"));
+        assertEquals("com.example.a.ZetaActivity", index.className(1));
+        assertEquals(-1, index.indexOf("DetailActivity"));
+        assertNull(index.className("DetailActivity"));
+    }
+
+    @Test
+    public void failedIndexWriteFailsBuild() {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        JavaFileManager fileManager = new ForwardingJavaFileManager<JavaFileManager>(
+                new SyntheticModule.InMemoryFileManager(compiler.getStandardFileManager(null, null, null))) {
+            @Override
+            public FileObject getFileForOutput(Location location, String packageName, String relativeName, FileObject sibling)
+                    throws IOException {
+                if (relativeName.endsWith(RouteIndex.EXTENSION)) {
+                    throw new IOException("disk full");
+                }
+                return super.getFileForOutput(location, packageName, relativeName, sibling);
+            }
+        };
+        List<JavaFileObject> sources = new ArrayList<>(SyntheticModule.androidRuntimeStubs());
+        sources.add(activity("com.example.a", "MainActivity", "@Routeable"));
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        List<String> options = Arrays.asList("-Arouter.module=com.example.a", "-classpath", System.getProperty("java.class.path"));
+        JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics, options, null, sources);
+        task.setProcessors(Collections.singletonList(new RouteProcessor()));
+
+        assertFalse(task.call());
+        List<String> errors = new ArrayList<>();
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+                errors.add(diagnostic.getMessage(Locale.ROOT));
+            }
+        }
+        assertEquals(Collections.singletonList("Can not write route index META-INF/routes/com.example.a.idx: disk full"), errors);
+    }
+
+    @Test
+    public void modulesAreMergedInNameOrder() throws IOException {
+        ClassLoader loader = modules(
+                compile("com.example.a",
+                        activity("com.example.a", "CartActivity", "@Routeable"),
+                        activity("com.example.a", "MainActivity", "@Routeable")),
+                compile("com.example.b",
+                        activity("com.example.b", "AboutActivity", "@Routeable"),
+                        activity("com.example.b", "LoginActivity", "@Routeable"),
+                        activity("com.example.b", "SettingsActivity", "@Routeable")));
+
+        RouteIndex index = RouteIndex.load(loader, "com.example.a", "com.example.b");
+        assertEquals(Arrays.asList("AboutActivity", "CartActivity", "LoginActivity", "MainActivity", "SettingsActivity"), names(index));
+        assertEquals("com.example.a.CartActivity", index.className("CartActivity"));
+        assertEquals("com.example.b.LoginActivity", index.className("LoginActivity"));
+        // order of modules does not matter
+        assertEquals(names(index), names(RouteIndex.load(loader, "com.example.b", "com.example.a")));
+    }
+
+    @Test
+    public void duplicateRouteOfTwoModules() throws IOException {
+        List<InputStream> indexes = Arrays.asList(
+                index(new String[]{"Home", "Profile"}, new String[]{"a.Home", "a.Profile"}),
+                index(new String[]{"About", "Profile"}, new String[]{"b.About", "b.Profile"}));
+        try {
+            RouteIndex.merge(indexes);
+            fail();
+        } catch (IOException e) {
+            assertEquals("Duplicate route: Profile", e.getMessage());
+        }
+    }
+
+    @Test
+    public void emptyIndexes() throws IOException {
+        RouteIndex index = RouteIndex.merge(Arrays.asList(index(new String[0], new String[0]),
+                index(new String[]{"Home"}, new String[]{"a.Home"})));
+        assertEquals(1, index.size());
+        assertEquals(0, RouteIndex.merge(Collections.<InputStream>emptyList()).size());
+    }
+
+    @Test(expected = FileNotFoundException.class)
+    public void missingModule() throws IOException {
+        RouteIndex.load(modules(), "com.example.missing");
+    }
+
+    @Test
+    public void corruptIndexes() throws IOException {
+        assertRejected("Not a route index", header(0x12345678, 1, 0));
+        assertRejected("Unsupported route index version: 2", header(0x52494458, 2, 0));
+
+        ByteArrayOutputStream unsorted = header(0x52494458, 1, 2);
+        DataOutputStream data = new DataOutputStream(unsorted);
+        data.writeUTF("b");
+        data.writeUTF("x.B");
+        data.writeUTF("a");
+        data.writeUTF("x.A");
+        assertRejected("Route index is not sorted at: a", unsorted);
+    }
+
+    private static void assertRejected(String message, ByteArrayOutputStream index) {
+        try {
+            RouteIndex.merge(Collections.singletonList(new ByteArrayInputStream(index.toByteArray())));
+            fail(message);
+        } catch (IOException e) {
+            assertEquals(message, e.getMessage());
+        }
+    }
+
+    private static ByteArrayOutputStream header(int magic, int version, int count) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(magic);
+        data.writeInt(version);
+        data.writeInt(count);
+        return out;
+    }
+
+    private static InputStream index(String[] names, String[] classNames) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        RouteIndex.write(out, names, classNames);
+        return new ByteArrayInputStream(out.toByteArray());
+    }
+
+    private static List<String> names(RouteIndex index) {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < index.size(); i++) {
+            names.add(index.name(i));
+        }
+        return names;
+    }
+
+    private static JavaFileObject activity(String packageName, String simpleName, String annotation) {
+        return SyntheticModule.source(packageName + "." + simpleName, "package " + packageName + ";\n"
+                + "import com.talhahasanzia.annotation.Routeable;\n"
+                + annotation + " public class " + simpleName + " extends android.app.Activity {}");
+    }
+
+    // compiles activities of one module, returns its outputs
+    private static SyntheticModule.InMemoryFileManager compile(String module, JavaFileObject... activities) {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        SyntheticModule.InMemoryFileManager fileManager =
+                new SyntheticModule.InMemoryFileManager(compiler.getStandardFileManager(null, null, null));
+        List<JavaFileObject> sources = new ArrayList<>(SyntheticModule.androidRuntimeStubs());
+        sources.addAll(Arrays.asList(activities));
+
+        List<String> options = Arrays.asList("-Arouter.module=" + module, "-classpath", System.getProperty("java.class.path"));
+        JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, null, options, null, sources);
+        task.setProcessors(Collections.singletonList(new RouteProcessor()));
+        assertTrue("compilation failed", task.call());
+        return fileManager;
+    }
+
+    // class loader that finds generated resources of given modules, the way an app sees its merged resources
+    private static ClassLoader modules(final SyntheticModule.InMemoryFileManager... modules) {
+        return new ClassLoader(RouteIndexTest.class.getClassLoader()) {
+            @Override
+            public InputStream getResourceAsStream(String name) {
+                for (SyntheticModule.InMemoryFileManager module : modules) {
+                    byte[] bytes = module.resourceBytes(name);
+                    if (bytes != null) {
+                        return new ByteArrayInputStream(bytes);
+                    }
+                }
+                return super.getResourceAsStream(name);
+            }
+        };
+    }
+}
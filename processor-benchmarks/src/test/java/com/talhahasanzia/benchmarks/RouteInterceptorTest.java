@@ -0,0 +1,123 @@
+package com.talhahasanzia.benchmarks;
+
+import com.talhahasanzia.processor.RouteProcessor;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.ToolProvider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+// Every navigation of a module passes its @RouteInterceptor chain, routers as well as RouteRegistry by id, name and uri.
+public class RouteInterceptorTest {
+
+    private Class<?> context;
+    private Class<?> registry;
+    private Object navigator;
+
+    @Before
+    public void compile() throws Exception {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        final SyntheticModule.InMemoryFileManager fileManager =
+                new SyntheticModule.InMemoryFileManager(compiler.getStandardFileManager(null, null, null));
+        List<JavaFileObject> sources = new ArrayList<>(SyntheticModule.androidRuntimeStubs());
+        sources.add(activity("HomeActivity", "@Routeable(paths = \"app://home\")"));
+        sources.add(activity("OrderActivity", "@Routeable(paths = \"app://orders/{id}\")"));
+        // cancels navigation to orders, marks every other intent
+        sources.add(SyntheticModule.source("com.example.app.OrderVeto", "package com.example.app;\n"
+                + "import android.content.Context;\n"
+                + "import android.content.Intent;\n"
+                + "import com.talhahasanzia.annotation.RouteInterceptor;\n"
+                + "import com.talhahasanzia.runtime.Interceptor;\n"
+                + "@RouteInterceptor public class OrderVeto implements Interceptor<Context, Intent> {\n"
+                + "@Override public boolean intercept(Context context, String route, Intent intent) {\n"
+                + "intent.putExtra(\"intercepted\", route);\n"
+                + "return !\"OrderActivity\".equals(route);\n"
+                + "} }"));
+        // keeps intents it starts
+        sources.add(SyntheticModule.source("com.example.app.Navigator", "package com.example.app;\n"
+                + "public class Navigator extends android.app.Activity {\n"
+                + "public final java.util.List<android.content.Intent> started = new java.util.ArrayList<>();\n"
+                + "@Override public void startActivity(android.content.Intent intent) { started.add(intent); }\n"
+                + "}"));
+
+        List<String> options = Arrays.asList("-Arouter.module=com.example.app", "-classpath", System.getProperty("java.class.path"));
+        JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, null, options, null, sources);
+        task.setProcessors(Collections.singletonList(new RouteProcessor()));
+        assertTrue("compilation failed", task.call());
+        ClassLoader loader = new ClassLoader(RouteInterceptorTest.class.getClassLoader()) {
+            @Override
+            protected Class<?> findClass(String name) throws ClassNotFoundException {
+                byte[] bytes = fileManager.classBytes(name);
+                if (bytes == null) {
+                    throw new ClassNotFoundException(name);
+                }
+                return defineClass(name, bytes, 0, bytes.length);
+            }
+        };
+        context = loader.loadClass("android.content.Context");
+        registry = loader.loadClass("com.example.app.RouteRegistry");
+        navigator = loader.loadClass("com.example.app.Navigator").getConstructor().newInstance();
+    }
+
+    @Test
+    public void vetoedDeepLinkIsNotStarted() throws Exception {
+        assertFalse(routeUri("app://orders/42"));
+        assertTrue(started().isEmpty());
+
+        assertTrue(routeUri("app://home"));
+        assertEquals(1, started().size());
+        assertEquals("HomeActivity", extra(started().get(0), "intercepted"));
+        // no path matches, interceptors are not asked
+        assertFalse(routeUri("app://other"));
+        assertEquals(1, started().size());
+    }
+
+    @Test
+    public void vetoedRegistryRouteIsNotStarted() throws Exception {
+        int orders = (Integer) registry.getField("ORDER_ACTIVITY").get(null);
+        assertFalse((Boolean) registry.getMethod("route", int.class, context).invoke(null, orders, navigator));
+        assertFalse((Boolean) registry.getMethod("route", String.class, context).invoke(null, "OrderActivity", navigator));
+        assertTrue(started().isEmpty());
+
+        assertTrue((Boolean) registry.getMethod("route", String.class, context).invoke(null, "HomeActivity", navigator));
+        assertEquals("HomeActivity", extra(started().get(0), "intercepted"));
+    }
+
+    @Test
+    public void vetoedRouterIsNotStarted() throws Exception {
+        ClassLoader loader = registry.getClassLoader();
+        loader.loadClass("com.example.app.OrderActivityRouter").getMethod("route", context).invoke(null, navigator);
+        assertTrue(started().isEmpty());
+        loader.loadClass("com.example.app.HomeActivityRouter").getMethod("route", context).invoke(null, navigator);
+        assertEquals(1, started().size());
+    }
+
+    private boolean routeUri(String uri) throws ReflectiveOperationException {
+        return (Boolean) registry.getMethod("routeUri", String.class, context).invoke(null, uri, navigator);
+    }
+
+    private List<?> started() throws ReflectiveOperationException {
+        return (List<?>) navigator.getClass().getField("started").get(navigator);
+    }
+
+    private static Object extra(Object intent, String key) throws ReflectiveOperationException {
+        return intent.getClass().getMethod("getStringExtra", String.class).invoke(intent, key);
+    }
+
+    private static JavaFileObject activity(String simpleName, String annotation) {
+        return SyntheticModule.source("com.example.app." + simpleName, "package com.example.app;\n"
+                + "import com.talhahasanzia.annotation.Routeable;\n"
+                + annotation + " public class " + simpleName + " extends android.app.Activity {}");
+    }
+}
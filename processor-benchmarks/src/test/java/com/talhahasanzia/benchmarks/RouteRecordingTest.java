@@ -0,0 +1,95 @@
+package com.talhahasanzia.benchmarks;
+
+import com.talhahasanzia.processor.RouteProcessor;
+import com.talhahasanzia.runtime.RouteRecorder;
+import com.talhahasanzia.runtime.RouteTracing;
+
+import org.junit.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.ToolProvider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+// Generated routers and RouteRegistry record a navigation to RouteRecorder before starting it, so one that throws is
+// recorded too, with the overload family it came through.
+public class RouteRecordingTest {
+
+    @Test
+    public void navigationThatThrowsIsRecorded() throws Exception {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        final SyntheticModule.InMemoryFileManager fileManager =
+                new SyntheticModule.InMemoryFileManager(compiler.getStandardFileManager(null, null, null));
+        List<JavaFileObject> sources = new ArrayList<>(SyntheticModule.androidRuntimeStubs());
+        sources.add(SyntheticModule.source("com.example.app.OrderActivity", "package com.example.app;\n"
+                + "@com.talhahasanzia.annotation.Routeable public class OrderActivity extends android.app.Activity {}"));
+        // activity that is not declared in manifest, router is not traced
+        sources.add(SyntheticModule.source("com.example.app.Navigator", "package com.example.app;\n"
+                + "public class Navigator extends android.app.Activity {\n"
+                + "@Override public void startActivity(android.content.Intent intent) { throw new IllegalStateException(); }\n"
+                + "}"));
+        List<String> options = Arrays.asList("-Arouter.module=com.example.app", "-classpath", System.getProperty("java.class.path"));
+        JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, null, options, null, sources);
+        task.setProcessors(Collections.singletonList(new RouteProcessor()));
+        assertTrue("compilation failed", task.call());
+        ClassLoader loader = new ClassLoader(RouteRecordingTest.class.getClassLoader()) {
+            @Override
+            protected Class<?> findClass(String name) throws ClassNotFoundException {
+                byte[] bytes = fileManager.classBytes(name);
+                if (bytes == null) {
+                    throw new ClassNotFoundException(name);
+                }
+                return defineClass(name, bytes, 0, bytes.length);
+            }
+        };
+
+        RouteRecorder recorder = new RouteRecorder(8);
+        RouteTracing.installRecorder(recorder);
+        try {
+            Class<?> context = loader.loadClass("android.content.Context");
+            Object navigator = loader.loadClass("com.example.app.Navigator").getConstructor().newInstance();
+            Class<?> router = loader.loadClass("com.example.app.OrderActivityRouter");
+            try {
+                router.getMethod("route", loader.loadClass("android.app.Activity"), boolean.class).invoke(null, navigator, true);
+                fail();
+            } catch (InvocationTargetException expected) {
+                assertTrue(expected.getCause() instanceof IllegalStateException);
+            }
+            Object builder = router.getMethod("with", context).invoke(null, navigator);
+            try {
+                builder.getClass().getMethod("go").invoke(builder);
+                fail();
+            } catch (InvocationTargetException expected) {
+                assertTrue(expected.getCause() instanceof IllegalStateException);
+            }
+            Class<?> registry = loader.loadClass("com.example.app.RouteRegistry");
+            try {
+                registry.getMethod("route", String.class, context).invoke(null, "OrderActivity", navigator);
+                fail();
+            } catch (InvocationTargetException expected) {
+                assertTrue(expected.getCause() instanceof IllegalStateException);
+            }
+        } finally {
+            RouteTracing.installRecorder(null);
+        }
+
+        int routeId = "OrderActivity".hashCode() & Integer.MAX_VALUE;
+        List<RouteRecorder.Event> events = recorder.snapshot();
+        assertEquals(3, events.size());
+        assertEquals(routeId, events.get(0).routeId);
+        assertEquals(RouteRecorder.FINISH, events.get(0).overloads);
+        assertEquals(routeId, events.get(1).routeId);
+        assertEquals(RouteRecorder.BUILDER, events.get(1).overloads);
+        assertEquals(routeId, events.get(2).routeId);
+        assertEquals(0, events.get(2).overloads);
+    }
+}
@@ -0,0 +1,213 @@
+package com.talhahasanzia.benchmarks;
+
+import com.talhahasanzia.processor.RouteProcessor;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.ToolProvider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+// Size report of -Arouter.report: methods counted from generated sources against what javac emits for them, eager,
+// lazy and traced routers.
+public class RouteReportTest {
+
+    private static final Pattern ROUTE = Pattern.compile("\\{\"name\":\"([^\"]+)\",\"class\":\"[^\"]+\",\"methods\":(\\d+)");
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void methodCountsMatchCompiledCode() throws IOException {
+        for (String mode : Arrays.asList("-Arouter.lazy=false", "-Arouter.lazy=true", "-Arouter.trace=true")) {
+            File report = new File(folder.newFolder(), "routers.json");
+            SyntheticModule.InMemoryFileManager fileManager = compile(Arrays.asList(mode, "-Arouter.report=" + report), activities());
+
+            Matcher routes = ROUTE.matcher(new String(Files.readAllBytes(report.toPath()), StandardCharsets.UTF_8));
+            int count = 0;
+            while (routes.find()) {
+                Set<String> methods = methods(fileManager, routes.group(1));
+                assertEquals(mode + " " + routes.group(1) + ": " + methods, methods.size(), Integer.parseInt(routes.group(2)));
+                count++;
+            }
+            assertEquals(5, count);
+        }
+    }
+
+    @Test
+    public void reportNeedsAbsolutePathAndAggregates() throws IOException {
+        RouteProcessor processor = new RouteProcessor();
+        File report = new File(folder.newFolder(), "routers.json");
+        compile(processor, Collections.singletonList("-Arouter.report=" + report), activities());
+        assertTrue(report.isFile());
+        // report covers routes of every annotated class, not only of those gradle recompiles
+        assertTrue(processor.getSupportedOptions().contains("org.gradle.annotation.processing.aggregating"));
+
+        processor = new RouteProcessor();
+        String relative = "build/" + folder.getRoot().getName() + "/routers.json";
+        DiagnosticCollector<JavaFileObject> diagnostics = compile(processor, Collections.singletonList("-Arouter.report=" + relative), activities());
+        assertFalse(new File(relative).exists());
+        assertTrue(diagnostics.getDiagnostics().toString(), diagnostics.getDiagnostics().size() == 1
+                && diagnostics.getDiagnostics().get(0).getMessage(null).contains("needs an absolute path"));
+        assertTrue(processor.getSupportedOptions().contains("org.gradle.annotation.processing.isolating"));
+    }
+
+    @Test
+    public void unwritableReportFailsBuild() throws IOException {
+        // report path is a directory
+        File report = folder.newFolder();
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        SyntheticModule.InMemoryFileManager fileManager =
+                new SyntheticModule.InMemoryFileManager(compiler.getStandardFileManager(null, null, null));
+        assertFalse(compile(compiler, fileManager, new RouteProcessor(),
+                Collections.singletonList("-Arouter.report=" + report), activities(), diagnostics));
+        List<Diagnostic<? extends JavaFileObject>> errors = diagnostics.getDiagnostics();
+        assertTrue(errors.toString(), errors.size() == 1 && errors.get(0).getKind() == Diagnostic.Kind.ERROR
+                && errors.get(0).getMessage(null).startsWith("Can not write -Arouter.report to " + report));
+    }
+
+    // activities of every kind of generated code: overloads, builder, binder, prototype template
+    private static List<JavaFileObject> activities() {
+        List<JavaFileObject> sources = new ArrayList<>(SyntheticModule.androidRuntimeStubs());
+        sources.add(activity("HomeActivity", "@Routeable", ""));
+        sources.add(activity("OrderActivity", "@Routeable", "@Extra String orderId;\n@Extra int count;\n@Extra boolean isGift;\n"));
+        sources.add(activity("CartActivity", "@Routeable(overloads = {Routeable.Overload.FINISH, Routeable.Overload.FOR_RESULT})", ""));
+        sources.add(activity("CheckoutActivity", "@Routeable(prototype = true)", "@Extra String cartId;\n"));
+        sources.add(activity("ReportActivity", "@Routeable(overloads = {})", "@Extra(byReference = true) android.os.Bundle data;\n"));
+        return sources;
+    }
+
+    private static JavaFileObject activity(String simpleName, String annotation, String body) {
+        return SyntheticModule.source("com.example.app." + simpleName, "package com.example.app;\n"
+                + "import com.talhahasanzia.annotation.Extra;\n"
+                + "import com.talhahasanzia.annotation.Routeable;\n"
+                + annotation + " public class " + simpleName + " extends android.app.Activity {\n" + body + "}");
+    }
+
+    private static SyntheticModule.InMemoryFileManager compile(List<String> processorOptions, List<JavaFileObject> sources) {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        SyntheticModule.InMemoryFileManager fileManager =
+                new SyntheticModule.InMemoryFileManager(compiler.getStandardFileManager(null, null, null));
+        assertTrue("compilation failed", compile(compiler, fileManager, new RouteProcessor(), processorOptions, sources, null));
+        return fileManager;
+    }
+
+    private static DiagnosticCollector<JavaFileObject> compile(RouteProcessor processor, List<String> processorOptions,
+                                                               List<JavaFileObject> sources) {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        SyntheticModule.InMemoryFileManager fileManager =
+                new SyntheticModule.InMemoryFileManager(compiler.getStandardFileManager(null, null, null));
+        assertTrue("compilation failed", compile(compiler, fileManager, processor, processorOptions, sources, diagnostics));
+        return diagnostics;
+    }
+
+    // true if compilation succeeded
+    private static boolean compile(JavaCompiler compiler, SyntheticModule.InMemoryFileManager fileManager, RouteProcessor processor,
+                                   List<String> processorOptions, List<JavaFileObject> sources,
+                                   DiagnosticCollector<JavaFileObject> diagnostics) {
+        List<String> options = new ArrayList<>(processorOptions);
+        options.addAll(Arrays.asList("-classpath", System.getProperty("java.class.path")));
+        JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics, options, null, sources);
+        task.setProcessors(Collections.singletonList(processor));
+        return task.call();
+    }
+
+    // methods of classes generated for a route, by class and method name
+    private static Set<String> methods(SyntheticModule.InMemoryFileManager fileManager, String route) throws IOException {
+        Set<String> methods = new TreeSet<>();
+        for (String suffix : Arrays.asList("Router", "Router$Builder", "RouterImpl", "Binder")) {
+            String className = "com.example.app." + route + suffix;
+            byte[] bytes = fileManager.classBytes(className);
+            if (bytes != null) {
+                for (String method : methodNames(bytes)) {
+                    methods.add(className + "." + method);
+                }
+            }
+        }
+        return methods;
+    }
+
+    // name and descriptor of every method of a class file
+    private static Set<String> methodNames(byte[] classFile) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(classFile));
+        in.readInt();
+        in.readUnsignedShort();
+        in.readUnsignedShort();
+        int constants = in.readUnsignedShort();
+        String[] utf8 = new String[constants];
+        for (int i = 1; i < constants; i++) {
+            int tag = in.readUnsignedByte();
+            switch (tag) {
+                case 1:
+                    utf8[i] = in.readUTF();
+                    break;
+                case 5:
+                case 6:
+                    in.skipBytes(8);
+                    i++;
+                    break;
+                case 7:
+                case 8:
+                case 16:
+                case 19:
+                case 20:
+                    in.skipBytes(2);
+                    break;
+                case 15:
+                    in.skipBytes(3);
+                    break;
+                default:
+                    in.skipBytes(4);
+                    break;
+            }
+        }
+        in.skipBytes(6);
+        in.skipBytes(2 * in.readUnsignedShort());
+        int fields = in.readUnsignedShort();
+        for (int i = 0; i < fields; i++) {
+            in.skipBytes(6);
+            skipAttributes(in);
+        }
+        Set<String> names = new TreeSet<>();
+        int methods = in.readUnsignedShort();
+        for (int i = 0; i < methods; i++) {
+            in.skipBytes(2);
+            names.add(utf8[in.readUnsignedShort()] + utf8[in.readUnsignedShort()]);
+            skipAttributes(in);
+        }
+        return names;
+    }
+
+    private static void skipAttributes(DataInputStream in) throws IOException {
+        int attributes = in.readUnsignedShort();
+        for (int i = 0; i < attributes; i++) {
+            in.skipBytes(2);
+            in.skipBytes(in.readInt());
+        }
+    }
+}
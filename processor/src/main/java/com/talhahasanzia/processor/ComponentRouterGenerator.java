@@ -0,0 +1,187 @@
+package com.talhahasanzia.processor;
+
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+
+import javax.annotation.Nonnull;
+import javax.lang.model.element.Modifier;
+
+// Generates routers of @Routeable fragments, services and broadcast receivers. Kind of a class is decided once by
+// processor from its superclasses (see Route.Target), so each router only has methods that are valid for its target,
+// e.g. no Activity casts and no startActivity, and nothing is checked with instanceof at runtime.
+final class ComponentRouterGenerator {
+
+    // route name of a fragment router, tag of its transactions and back stack entries
+    static final String TAG_FIELD = "TAG";
+
+    private static final ClassName classIntent = ClassName.get("android.content", "Intent");
+    private static final ClassName classContext = ClassName.get("android.content", "Context");
+    private static final ClassName classComponentName = ClassName.get("android.content", "ComponentName");
+    private static final ClassName classServiceConnection = ClassName.get("android.content", "ServiceConnection");
+    private static final ClassName classBundle = ClassName.get("android.os", "Bundle");
+
+    private ComponentRouterGenerator() {
+    }
+
+    // router of a route that is not an activity
+    @Nonnull
+    static TypeSpec.Builder generate(Route route, ClassName routerClass) {
+        TypeSpec.Builder generatedClass = TypeSpec
+                .classBuilder(routerClass)
+                .addModifiers(Modifier.PUBLIC, Modifier.FINAL);
+        switch (route.target) {
+            case FRAGMENT:
+                addFragmentMethods(generatedClass, route);
+                break;
+            case SERVICE:
+                addIntentMethod(generatedClass, route);
+                addServiceMethods(generatedClass);
+                break;
+            case RECEIVER:
+                addIntentMethod(generatedClass, route);
+                addReceiverMethods(generatedClass);
+                break;
+            default:
+                throw new IllegalArgumentException("Not a component route: " + route.target);
+        }
+        return generatedClass;
+    }
+
+    // newInstance and route methods that replace fragment in a container through FragmentManager of the
+    // fragment flavor class extends (platform, support library or AndroidX)
+    private static void addFragmentMethods(TypeSpec.Builder generatedClass, Route route) {
+        ClassName fragmentManager = route.baseClass.peerClass("FragmentManager");
+        ClassName fragmentTransaction = route.baseClass.peerClass("FragmentTransaction");
+
+        generatedClass.addField(FieldSpec
+                .builder(String.class, TAG_FIELD, Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL)
+                .initializer("$S", route.name)
+                .build());
+
+        generatedClass.addMethod(MethodSpec
+                .methodBuilder("newInstance")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .returns(route.activityClass)
+                .addStatement("return new $T()", route.activityClass)
+                .build());
+
+        // arguments are copied, so that callers can fill one Bundle and reuse it for every instance
+        generatedClass.addMethod(MethodSpec
+                .methodBuilder("newInstance")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameter(classBundle, "arguments")
+                .returns(route.activityClass)
+                .addStatement("$T fragment = new $T()", route.activityClass, route.activityClass)
+                .addStatement("fragment.setArguments( new $T( arguments ) )", classBundle)
+                .addStatement("return fragment")
+                .build());
+
+        generatedClass.addMethod(MethodSpec
+                .methodBuilder("route")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameter(fragmentManager, "fragmentManager")
+                .addParameter(int.class, "containerViewId")
+                .returns(route.activityClass)
+                .addStatement("return route( fragmentManager, containerViewId, newInstance(), false )")
+                .build());
+
+        generatedClass.addMethod(MethodSpec
+                .methodBuilder("route")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameter(fragmentManager, "fragmentManager")
+                .addParameter(int.class, "containerViewId")
+                .addParameter(classBundle, "arguments")
+                .addParameter(boolean.class, "addToBackStack")
+                .returns(route.activityClass)
+                .addStatement("return route( fragmentManager, containerViewId, newInstance( arguments ), addToBackStack )")
+                .build());
+
+        // replaces content of container with fragment, tagged with route name
+        generatedClass.addMethod(MethodSpec
+                .methodBuilder("route")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameter(fragmentManager, "fragmentManager")
+                .addParameter(int.class, "containerViewId")
+                .addParameter(route.activityClass, "fragment")
+                .addParameter(boolean.class, "addToBackStack")
+                .returns(route.activityClass)
+                .addStatement("$T transaction = fragmentManager.beginTransaction().replace( containerViewId, fragment, $L )",
+                        fragmentTransaction, TAG_FIELD)
+                .beginControlFlow("if (addToBackStack)")
+                .addStatement("transaction.addToBackStack( $L )", TAG_FIELD)
+                .endControlFlow()
+                .addStatement("transaction.commit()")
+                .addStatement("return fragment")
+                .build());
+    }
+
+    // explicit Intent of service or receiver, for callers that need to customize it
+    private static void addIntentMethod(TypeSpec.Builder generatedClass, Route route) {
+        generatedClass.addMethod(MethodSpec
+                .methodBuilder("intent")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameter(classContext, "context")
+                .returns(classIntent)
+                .addStatement("return new $T( context, $T.class )", classIntent, route.activityClass)
+                .build());
+    }
+
+    // startService, bindService and stopService with explicit Intent
+    private static void addServiceMethods(TypeSpec.Builder generatedClass) {
+        generatedClass.addMethod(MethodSpec
+                .methodBuilder("route")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameter(classContext, "context")
+                .returns(classComponentName)
+                .addStatement("return context.startService( intent( context ) )")
+                .build());
+
+        generatedClass.addMethod(MethodSpec
+                .methodBuilder("route")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameter(classContext, "context")
+                .addParameter(classBundle, "extras")
+                .returns(classComponentName)
+                .addStatement("return context.startService( intent( context ).putExtras( extras ) )")
+                .build());
+
+        generatedClass.addMethod(MethodSpec
+                .methodBuilder("bind")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameter(classContext, "context")
+                .addParameter(classServiceConnection, "connection")
+                .addParameter(int.class, "flags")
+                .returns(TypeName.BOOLEAN)
+                .addStatement("return context.bindService( intent( context ), connection, flags )")
+                .build());
+
+        generatedClass.addMethod(MethodSpec
+                .methodBuilder("stop")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameter(classContext, "context")
+                .returns(TypeName.BOOLEAN)
+                .addStatement("return context.stopService( intent( context ) )")
+                .build());
+    }
+
+    // sendBroadcast with explicit Intent, only this receiver gets it
+    private static void addReceiverMethods(TypeSpec.Builder generatedClass) {
+        generatedClass.addMethod(MethodSpec
+                .methodBuilder("route")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameter(classContext, "context")
+                .addStatement("context.sendBroadcast( intent( context ) )")
+                .build());
+
+        generatedClass.addMethod(MethodSpec
+                .methodBuilder("route")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameter(classContext, "context")
+                .addParameter(classBundle, "extras")
+                .addStatement("context.sendBroadcast( intent( context ).putExtras( extras ) )")
+                .build());
+    }
+}
@@ -0,0 +1,185 @@
+package com.talhahasanzia.processor;
+
+import com.google.common.collect.ImmutableSet;
+import com.squareup.javapoet.AnnotationSpec;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeSpec;
+import com.talhahasanzia.runtime.ExtrasStore;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.Nonnull;
+import javax.lang.model.element.Modifier;
+
+// Generates code for @Extra fields: typed route method in router and <Activity>Binder that reads extras back.
+// Every extra goes through its typed putExtra / get<Type>Extra overload, no reflection, no boxing and
+// no Bundle.keySet() iteration. Keys are public constants of router, callers of generic extra(key, value) use
+// them too, and router and binder pass the same interned String, so Bundle lookups compare keys by identity.
+final class ExtraBinderGenerator {
+
+    static final String BINDER_SUFFIX = "Binder";
+    // parameters and locals of routeWithExtras, @Extra fields become parameters of same name
+    static final Set<String> RESERVED_NAMES = ImmutableSet.of("context", "intent", "traceStart", "traceBuilt", "traceModified");
+
+    private static final ClassName classIntent = ClassName.get("android.content", "Intent");
+    private static final ClassName classContext = ClassName.get("android.content", "Context");
+    private static final ClassName classBundle = ClassName.get("android.os", "Bundle");
+    private static final ClassName classExtrasStore = ClassName.get(ExtrasStore.class);
+
+    private ExtraBinderGenerator() {
+    }
+
+    // public static final key constant of every @Extra field, declared by router
+    @Nonnull
+    static List<FieldSpec> getKeyFields(Route route) {
+        List<FieldSpec> fields = new ArrayList<>(route.extras.size());
+        for (ExtraField extra : route.extras) {
+            fields.add(FieldSpec
+                    .builder(String.class, extra.keyConstant, Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL)
+                    .initializer("$S", extra.key)
+                    .build());
+        }
+        return fields;
+    }
+
+    // route method with context and one typed parameter per @Extra field, with recorder call and tracing calls if isTraced
+    // and intercept statement (see RouteInterceptorGenerator) unless it is null.
+    // keyOwner is the router when method is generated outside of it (impl of a lazy router), null inside
+    @Nonnull
+    static MethodSpec getRouteWithExtrasMethod(Route route, ClassName keyOwner, CodeBlock intercept, boolean isTraced) {
+        MethodSpec.Builder method = MethodSpec
+                .methodBuilder("routeWithExtras")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameter(classContext, "context");
+        for (ExtraField extra : route.extras) {
+            method.addParameter(extra.type, extra.fieldName);
+        }
+        method.addCode(RouteTracingGenerator.record(route, RouteTracingGenerator.overloads("EXTRAS"), null));
+        if (isTraced) {
+            method.addCode(RouteTracingGenerator.traceStart);
+        }
+        method.addStatement("$T intent = $L", classIntent, IntentPrototypeGenerator.newIntent(route));
+        for (ExtraField extra : route.extras) {
+            method.addCode(putExtra(extra, keyOwner));
+        }
+        if (isTraced) {
+            method.addCode(RouteTracingGenerator.traceBuilt);
+        }
+        if (intercept != null) {
+            method.addCode(intercept);
+        }
+        if (isTraced) {
+            method.addCode(RouteTracingGenerator.traceModified);
+        }
+        method.addStatement("context.startActivity( intent )");
+        if (isTraced) {
+            method.addCode(RouteTracingGenerator.report(CodeBlock.of("$L", route.extras.size())));
+        }
+        return method.build();
+    }
+
+    // puts field value of same name into intent, a token of ExtrasStore instead of the value if it is by reference
+    @Nonnull
+    static CodeBlock putExtra(ExtraField extra, ClassName keyOwner) {
+        if (extra.isByReference) {
+            return CodeBlock.builder()
+                    .addStatement("intent.putExtra( $L, $T.getDefault().put( $L ) )", tokenKey(extra, keyOwner), classExtrasStore, extra.fieldName)
+                    .build();
+        }
+        return CodeBlock.builder().addStatement("intent.putExtra( $L, $L )", key(extra, keyOwner), extra.fieldName).build();
+    }
+
+    // key constant of extra, owner is null inside router
+    @Nonnull
+    private static CodeBlock key(ExtraField extra, ClassName owner) {
+        return RouteTracingGenerator.field(extra.keyConstant, owner);
+    }
+
+    // key of ExtrasStore token, a compile-time constant as well
+    @Nonnull
+    private static CodeBlock tokenKey(ExtraField extra, ClassName owner) {
+        return CodeBlock.of("$L + $T.TOKEN_SUFFIX", key(extra, owner), classExtrasStore);
+    }
+
+    // <Activity>Binder with a static bind(activity) that assigns every @Extra field from activity intent
+    @Nonnull
+    static TypeSpec.Builder generateBinder(Route route, ClassName routerClass) {
+        MethodSpec.Builder bind = MethodSpec
+                .methodBuilder("bind")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameter(route.activityClass, "activity")
+                .addStatement("$T intent = activity.getIntent()", classIntent)
+                .beginControlFlow("if (intent == null)")
+                .addStatement("return")
+                .endControlFlow();
+        boolean isUncheckedCast = false;
+        for (ExtraField extra : route.extras) {
+            if (extra.isByReference) {
+                // same instance router put, store only holds it weakly from now on, the field keeps its value if store does
+                // not know the token
+                bind.addStatement("activity.$L = $T.getDefault().take( intent.getLongExtra( $L, $T.NO_TOKEN ), activity.$L )",
+                        extra.fieldName, classExtrasStore, tokenKey(extra, routerClass), classExtrasStore, extra.fieldName);
+            } else if (extra.kind.hasDefault) {
+                bind.addStatement("activity.$L = intent.$L( $L, activity.$L )", extra.fieldName, extra.kind.getter, key(extra, routerClass), extra.fieldName);
+            } else if (extra.kind == ExtraField.Kind.SERIALIZABLE) {
+                // e.g. ArrayList<String>, cast can not be checked
+                isUncheckedCast |= extra.type instanceof ParameterizedTypeName;
+                bind.addStatement("activity.$L = ($T) intent.$L( $L )", extra.fieldName, extra.type, extra.kind.getter, key(extra, routerClass));
+            } else {
+                bind.addStatement("activity.$L = intent.$L( $L )", extra.fieldName, extra.kind.getter, key(extra, routerClass));
+            }
+        }
+        if (isUncheckedCast) {
+            bind.addAnnotation(AnnotationSpec.builder(SuppressWarnings.class).addMember("value", "$S", "unchecked").build());
+        }
+
+        TypeSpec.Builder binder = TypeSpec
+                .classBuilder(route.activityClass.simpleName() + BINDER_SUFFIX)
+                .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+                .addOriginatingElement(route.element)
+                .addMethod(MethodSpec.constructorBuilder().addModifiers(Modifier.PRIVATE).build())
+                .addMethod(bind.build());
+        addSavedState(binder, route, routerClass);
+        return binder;
+    }
+
+    // by reference values do not survive process death, save parcels them into instance state and
+    // bind(activity, savedInstanceState) takes them from there when activity is recreated
+    private static void addSavedState(TypeSpec.Builder binder, Route route, ClassName routerClass) {
+        MethodSpec.Builder save = MethodSpec
+                .methodBuilder("save")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameter(route.activityClass, "activity")
+                .addParameter(classBundle, "outState");
+        MethodSpec.Builder restore = MethodSpec
+                .methodBuilder("bind")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameter(route.activityClass, "activity")
+                .addParameter(classBundle, "savedInstanceState")
+                .addStatement("bind( activity )")
+                .beginControlFlow("if (savedInstanceState == null)")
+                .addStatement("return")
+                .endControlFlow();
+        boolean hasReferences = false;
+        for (ExtraField extra : route.extras) {
+            if (!extra.isByReference) {
+                continue;
+            }
+            hasReferences = true;
+            save.addStatement("outState.putParcelable( $L, activity.$L )", key(extra, routerClass), extra.fieldName);
+            restore.beginControlFlow("if (activity.$L == null)", extra.fieldName)
+                    .addStatement("activity.$L = savedInstanceState.getParcelable( $L )", extra.fieldName, key(extra, routerClass))
+                    .endControlFlow();
+        }
+        if (hasReferences) {
+            binder.addMethod(restore.build());
+            binder.addMethod(save.build());
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.talhahasanzia.processor;
+
+import com.squareup.javapoet.TypeName;
+
+import javax.lang.model.element.VariableElement;
+
+// A field annotated with @Extra, and how it is put into / read from intent
+final class ExtraField {
+
+    // how a field type maps to typed Intent methods, so that no value is boxed or serialized unless it has to be
+    enum Kind {
+        BOOLEAN("getBooleanExtra", true),
+        BYTE("getByteExtra", true),
+        CHAR("getCharExtra", true),
+        SHORT("getShortExtra", true),
+        INT("getIntExtra", true),
+        LONG("getLongExtra", true),
+        FLOAT("getFloatExtra", true),
+        DOUBLE("getDoubleExtra", true),
+        STRING("getStringExtra", false),
+        CHAR_SEQUENCE("getCharSequenceExtra", false),
+        BUNDLE("getBundleExtra", false),
+        PARCELABLE("getParcelableExtra", false),
+        SERIALIZABLE("getSerializableExtra", false);
+
+        // Intent getter for this kind
+        final String getter;
+        // primitive getters take a default value, current field value is used as default
+        final boolean hasDefault;
+
+        Kind(String getter, boolean hasDefault) {
+            this.getter = getter;
+            this.hasDefault = hasDefault;
+        }
+    }
+
+    final VariableElement element;
+    final String fieldName;
+    // intent extra key
+    final String key;
+    // public key constant of router, e.g. EXTRA_MY_DATA for field myData
+    final String keyConstant;
+    final TypeName type;
+    final Kind kind;
+    // @Extra(byReference = true), intent carries a token of ExtrasStore under key + ExtrasStore.TOKEN_SUFFIX
+    final boolean isByReference;
+
+    ExtraField(VariableElement element, String key, TypeName type, Kind kind, boolean isByReference) {
+        this.element = element;
+        this.fieldName = element.getSimpleName().toString();
+        this.key = key;
+        this.keyConstant = keyConstant(fieldName);
+        this.type = type;
+        this.kind = kind;
+        this.isByReference = isByReference;
+    }
+
+    static String keyConstant(String fieldName) {
+        return "EXTRA_" + RouteRegistryGenerator.constantName(fieldName);
+    }
+}
@@ -0,0 +1,81 @@
+package com.talhahasanzia.processor;
+
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.MethodSpec;
+
+import javax.annotation.Nonnull;
+import javax.lang.model.element.Modifier;
+
+// Generates prototype mode of @Routeable(prototype = true): router builds a template Intent with resolved
+// ComponentName once and every navigation copies it, instead of resolving ComponentName with each new Intent.
+// Template is published through a volatile field without locking, racing threads may both build one, which is
+// harmless since they are equal and each copy is independent.
+final class IntentPrototypeGenerator {
+
+    private static final String FIELD_NAME = "prototype";
+    private static final String METHOD_NAME = "newIntent";
+    static final String PREWARM_METHOD_NAME = "prewarm";
+
+    private static final ClassName classIntent = ClassName.get("android.content", "Intent");
+    private static final ClassName classContext = ClassName.get("android.content", "Context");
+    private static final ClassName classComponentName = ClassName.get("android.content", "ComponentName");
+
+    private IntentPrototypeGenerator() {
+    }
+
+    // expression that creates a new Intent for route inside its router, "context" has to be in scope
+    @Nonnull
+    static CodeBlock newIntent(Route route) {
+        return newIntent(route, null);
+    }
+
+    // same, from outside the class that declares newIntent (builder of a lazy router), owner is that class
+    @Nonnull
+    static CodeBlock newIntent(Route route, ClassName owner) {
+        if (route.isPrototype) {
+            return owner == null ? CodeBlock.of("$L( context )", METHOD_NAME) : CodeBlock.of("$T.$L( context )", owner, METHOD_NAME);
+        }
+        return CodeBlock.of("new $T( context, $T.class )", classIntent, route.activityClass);
+    }
+
+    // template Intent, null until first navigation
+    @Nonnull
+    static FieldSpec getPrototypeField() {
+        return FieldSpec
+                .builder(classIntent, FIELD_NAME, Modifier.PRIVATE, Modifier.STATIC, Modifier.VOLATILE)
+                .build();
+    }
+
+    // builds template ahead of first navigation, called by RouteRegistry.prewarm
+    @Nonnull
+    static MethodSpec getPrewarmMethod() {
+        return MethodSpec
+                .methodBuilder(PREWARM_METHOD_NAME)
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameter(classContext, "context")
+                .addStatement("$L( context )", METHOD_NAME)
+                .build();
+    }
+
+    // copy of template Intent, builds template on first call, package private if isShared
+    @Nonnull
+    static MethodSpec getNewIntentMethod(Route route, boolean isShared) {
+        MethodSpec.Builder method = MethodSpec.methodBuilder(METHOD_NAME);
+        if (!isShared) {
+            method.addModifiers(Modifier.PRIVATE);
+        }
+        return method
+                .addModifiers(Modifier.STATIC)
+                .addParameter(classContext, "context")
+                .returns(classIntent)
+                .addStatement("$T template = $L", classIntent, FIELD_NAME)
+                .beginControlFlow("if (template == null)")
+                .addStatement("template = new $T().setComponent( new $T( context, $T.class ) )", classIntent, classComponentName, route.activityClass)
+                .addStatement("$L = template", FIELD_NAME)
+                .endControlFlow()
+                .addStatement("return new $T( template )", classIntent)
+                .build();
+    }
+}
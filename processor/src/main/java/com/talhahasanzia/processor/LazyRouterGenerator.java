@@ -0,0 +1,67 @@
+package com.talhahasanzia.processor;
+
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterSpec;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+
+import javax.annotation.Nonnull;
+import javax.lang.model.element.Modifier;
+
+// Generates lazy mode of -Arouter.lazy=true: public router is a facade of one line static methods plus fluent builder,
+// route method bodies, prototype and trace state live in package private <Activity>RouterImpl. Referencing a router
+// (or loading it on startup) then costs a small class, the impl is only loaded once one of its routes is taken.
+final class LazyRouterGenerator {
+
+    static final String IMPL_SUFFIX = "Impl";
+
+    private LazyRouterGenerator() {
+    }
+
+    // public facade of given impl, same static API as an eager router
+    @Nonnull
+    static TypeSpec.Builder generateFacade(Route route, ClassName routerClass, ClassName implClass, TypeSpec impl,
+                                           CodeBlock intercept, boolean isTraced) {
+        TypeSpec.Builder facade = TypeSpec
+                .classBuilder(routerClass)
+                .addModifiers(Modifier.PUBLIC, Modifier.FINAL);
+
+        // key constants are part of public API, javac inlines them so impl is not loaded for them
+        facade.addFields(ExtraBinderGenerator.getKeyFields(route));
+
+        // builder stays in facade so that its type is public, it uses state of impl
+        facade.addMethod(RouteBuilderGenerator.getWithMethod(routerClass));
+        facade.addType(RouteBuilderGenerator.generateBuilder(route, routerClass, implClass, intercept, isTraced));
+        if (route.featureModule != null) {
+            facade.addMethod(RouteAsyncGenerator.getRouteAsyncMethod(route));
+        }
+
+        for (MethodSpec method : impl.methodSpecs) {
+            if (method.modifiers.contains(Modifier.PUBLIC)) {
+                facade.addMethod(forward(method, implClass));
+            }
+        }
+        return facade;
+    }
+
+    // same signature as method, body calls it on impl
+    @Nonnull
+    private static MethodSpec forward(MethodSpec method, ClassName implClass) {
+        CodeBlock.Builder arguments = CodeBlock.builder();
+        for (ParameterSpec parameter : method.parameters) {
+            arguments.add(arguments.isEmpty() ? "$N" : ", $N", parameter);
+        }
+        return MethodSpec
+                .methodBuilder(method.name)
+                .addModifiers(method.modifiers)
+                .addAnnotations(method.annotations)
+                .addParameters(method.parameters)
+                .varargs(method.varargs)
+                .returns(method.returnType)
+                .addStatement(method.returnType.equals(TypeName.VOID) ? "$T.$L( $L )" : "return $T.$L( $L )",
+                        implClass, method.name, arguments.build())
+                .build();
+    }
+}
@@ -0,0 +1,92 @@
+package com.talhahasanzia.processor;
+
+import com.squareup.javapoet.ClassName;
+import com.talhahasanzia.annotation.Routeable;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import javax.lang.model.element.TypeElement;
+
+// Everything processor knows about a single @Routeable type
+final class Route {
+
+    // annotated type, also the originating element of everything generated for it
+    final TypeElement element;
+    // annotated class, an Activity unless target says otherwise
+    final ClassName activityClass;
+    // kind of component annotated class is, decides which router is generated
+    final Target target;
+    // framework class annotated class extends, e.g. android.support.v4.app.Fragment
+    final ClassName baseClass;
+    // stable route name, from @Routeable(name) or simple name of annotated class
+    final String name;
+    // stable route id, non negative String hash of name, so it only changes when route is renamed.
+    // RouteKeyIndex reports routes of a module whose names hash to the same id
+    final int id;
+    // binary name of annotated class, what Class.forName or Intent.setClassName expects
+    final String binaryName;
+    // fields annotated with @Extra, in declaration order
+    final List<ExtraField> extras;
+    // @Routeable(prototype = true), router copies a template Intent per navigation
+    final boolean isPrototype;
+    // @Routeable(paths), deep link URI patterns
+    final List<String> paths;
+    // @Routeable(overloads), families of static route overloads to generate
+    final Set<Routeable.Overload> overloads;
+    // @Routeable(featureModule), null if activity is not in a feature module
+    final String featureModule;
+    // @Routeable(singleFlight), duplicate navigations within singleFlightMillis are dropped
+    final boolean isSingleFlight;
+    final long singleFlightMillis;
+
+    Route(TypeElement element, ClassName activityClass, Target target, ClassName baseClass, String name,
+          String binaryName, List<ExtraField> extras, boolean isPrototype, List<String> paths,
+          Set<Routeable.Overload> overloads, String featureModule, boolean isSingleFlight, long singleFlightMillis) {
+        this.element = element;
+        this.activityClass = activityClass;
+        this.target = target;
+        this.baseClass = baseClass;
+        this.name = name;
+        this.id = id(name);
+        this.binaryName = binaryName;
+        this.extras = extras;
+        this.isPrototype = isPrototype;
+        this.paths = paths;
+        this.overloads = overloads;
+        this.featureModule = featureModule;
+        this.isSingleFlight = isSingleFlight;
+        this.singleFlightMillis = singleFlightMillis;
+    }
+
+    // same hash as generated RouteRegistry.idOf computes at runtime
+    static int id(String name) {
+        return name.hashCode() & Integer.MAX_VALUE;
+    }
+
+    // kinds of @Routeable classes, by the framework classes they extend
+    enum Target {
+        ACTIVITY("android.app.Activity"),
+        // platform, support library and AndroidX fragments, their FragmentManager is in the same package
+        FRAGMENT("android.app.Fragment", "android.support.v4.app.Fragment", "androidx.fragment.app.Fragment"),
+        SERVICE("android.app.Service"),
+        RECEIVER("android.content.BroadcastReceiver");
+
+        final List<String> baseClasses;
+
+        Target(String... baseClasses) {
+            this.baseClasses = Arrays.asList(baseClasses);
+        }
+
+        // target of a base class, null if it is not one of them
+        static Target of(String baseClass) {
+            for (Target target : values()) {
+                if (target.baseClasses.contains(baseClass)) {
+                    return target;
+                }
+            }
+            return null;
+        }
+    }
+}
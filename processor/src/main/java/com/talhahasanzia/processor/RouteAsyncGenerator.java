@@ -0,0 +1,92 @@
+package com.talhahasanzia.processor;
+
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+
+import java.lang.ref.WeakReference;
+
+import javax.annotation.Nonnull;
+import javax.lang.model.element.Modifier;
+
+// Generates async routes of @Routeable(featureModule) activities: route is wrapped in a Runnable that RouteResolution
+// runs on main executor once RouteResolver has loaded the feature module. Both go through fluent builder, so they
+// navigate exactly like go() does, with interceptors, tracing and prototype Intent. Loading a module can take long, so
+// meanwhile routes only keep application context and start a new task from it, activities of builder options are held
+// weakly: one to finish that is gone is skipped, one that routes for result fails the route (CallerGoneException).
+final class RouteAsyncGenerator {
+
+    private static final ClassName classContext = ClassName.get("android.content", "Context");
+    private static final ClassName classIntent = ClassName.get("android.content", "Intent");
+    private static final ClassName classActivity = ClassName.get("android.app", "Activity");
+    private static final TypeName classActivityReference = ParameterizedTypeName.get(ClassName.get(WeakReference.class), classActivity);
+    private static final ClassName classResolution = ClassName.get("com.talhahasanzia.runtime", "RouteResolution");
+    private static final ClassName classListener = classResolution.nestedClass("Listener");
+
+    private RouteAsyncGenerator() {
+    }
+
+    // static routeAsync(context, listener) of router, listener can be null
+    @Nonnull
+    static MethodSpec getRouteAsyncMethod(Route route) {
+        return MethodSpec
+                .methodBuilder("routeAsync")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameter(classContext, "context")
+                .addParameter(classListener, "listener")
+                .addStatement("final $T application = context.getApplicationContext()", classContext)
+                .addStatement("$T.get().route( $S, $L, listener )", classResolution, route.featureModule,
+                        runnable(CodeBlock.builder()
+                                .addStatement("with( application ).flags( $T.FLAG_ACTIVITY_NEW_TASK ).go()", classIntent)
+                                .build()))
+                .build();
+    }
+
+    // goAsync(listener) of builder, routes with everything set on builder so far. Builder swaps its context for
+    // application context and its activities for weak references until module is loaded
+    @Nonnull
+    static MethodSpec getGoAsyncMethod(Route route) {
+        CodeBlock run = CodeBlock.builder()
+                .beginControlFlow("if (isForResult)")
+                .addStatement("caller = callerReference.get()")
+                .beginControlFlow("if (caller == null)")
+                .addStatement("throw new $T( $S )", classResolution.nestedClass("CallerGoneException"),
+                        "Activity that routes for result is gone")
+                .endControlFlow()
+                .nextControlFlow("else")
+                .addStatement("intent.addFlags( $T.FLAG_ACTIVITY_NEW_TASK )", classIntent)
+                .endControlFlow()
+                .addStatement("current = currentReference.get()")
+                .addStatement("go()")
+                .build();
+        return MethodSpec
+                .methodBuilder("goAsync")
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(classListener, "listener")
+                .addStatement("final boolean isForResult = caller != null")
+                .addStatement("final $T callerReference = new $T( caller )", classActivityReference, classActivityReference)
+                .addStatement("final $T currentReference = new $T( current )", classActivityReference, classActivityReference)
+                .addStatement("context = context.getApplicationContext()")
+                .addStatement("caller = null")
+                .addStatement("current = null")
+                .addStatement("$T.get().route( $S, $L, listener )", classResolution, route.featureModule, runnable(run))
+                .build();
+    }
+
+    @Nonnull
+    private static TypeSpec runnable(CodeBlock code) {
+        return TypeSpec
+                .anonymousClassBuilder("")
+                .addSuperinterface(Runnable.class)
+                .addMethod(MethodSpec
+                        .methodBuilder("run")
+                        .addAnnotation(Override.class)
+                        .addModifiers(Modifier.PUBLIC)
+                        .addCode(code)
+                        .build())
+                .build();
+    }
+}
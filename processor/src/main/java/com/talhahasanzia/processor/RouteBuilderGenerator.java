@@ -0,0 +1,200 @@
+package com.talhahasanzia.processor;
+
+import com.google.common.collect.ImmutableSet;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+
+import java.util.Set;
+
+import javax.annotation.Nonnull;
+import javax.lang.model.element.Modifier;
+
+// Generates fluent builder of a router, e.g. SecondActivityRouter.with(this).extra(key, value).finishCurrent(this).go()
+// One builder covers what the static route overloads do in combination, it allocates a single Intent and
+// callers customize intent through intent() instead of an IntentModifier lambda. Options that need an Activity take
+// it as their parameter, so builder of a plain Context can not fail on them at runtime.
+final class RouteBuilderGenerator {
+
+    static final String BUILDER_NAME = "Builder";
+
+    // builder methods, @Extra fields get setters named after them so these names are not available for fields
+    static final Set<String> RESERVED_NAMES = ImmutableSet.of("extra", "extras", "flags", "finishCurrent", "forResult", "intent", "go", "goAsync");
+
+    private static final ClassName classIntent = ClassName.get("android.content", "Intent");
+    private static final ClassName classContext = ClassName.get("android.content", "Context");
+    private static final ClassName classActivity = ClassName.get("android.app", "Activity");
+    private static final ClassName classBundle = ClassName.get("android.os", "Bundle");
+    private static final ClassName classParcelable = ClassName.get("android.os", "Parcelable");
+    private static final ClassName classSerializable = ClassName.get("java.io", "Serializable");
+
+    // value types of generic extra(key, value) setters, each maps to a typed putExtra overload
+    private static final TypeName[] EXTRA_TYPES = {
+            TypeName.BOOLEAN, TypeName.INT, TypeName.LONG, TypeName.FLOAT, TypeName.DOUBLE,
+            ClassName.get(String.class), ClassName.get(CharSequence.class), classBundle, classParcelable, classSerializable
+    };
+
+    private RouteBuilderGenerator() {
+    }
+
+    // static entry point of builder
+    @Nonnull
+    static MethodSpec getWithMethod(ClassName routerClass) {
+        ClassName builderClass = routerClass.nestedClass(BUILDER_NAME);
+        return MethodSpec
+                .methodBuilder("with")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameter(classContext, "context")
+                .returns(builderClass)
+                .addStatement("return new $T( context )", builderClass)
+                .build();
+    }
+
+    // fluent builder of route, with tracing calls if isTraced: build time is measured from with(context) to go().
+    // implClass declares prototype and trace state of a lazy router, null if routerClass does.
+    // intercept runs in go() before activity is started, null without @RouteInterceptor
+    @Nonnull
+    static TypeSpec generateBuilder(Route route, ClassName routerClass, ClassName implClass, CodeBlock intercept,
+                                    boolean isTraced) {
+        ClassName builderClass = routerClass.nestedClass(BUILDER_NAME);
+
+        TypeSpec.Builder builder = TypeSpec
+                .classBuilder(BUILDER_NAME)
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL)
+                // application context once goAsync of a feature module route was called
+                .addField(classContext, "context", route.featureModule == null
+                        ? new Modifier[]{Modifier.PRIVATE, Modifier.FINAL}
+                        : new Modifier[]{Modifier.PRIVATE})
+                .addField(classIntent, "intent", Modifier.PRIVATE, Modifier.FINAL)
+                // activity finished after routing, null keeps it
+                .addField(classActivity, "current", Modifier.PRIVATE)
+                // activity that gets the result, null routes with startActivity
+                .addField(classActivity, "caller", Modifier.PRIVATE)
+                .addField(int.class, "requestCode", Modifier.PRIVATE)
+                .addMethod(MethodSpec
+                        .constructorBuilder()
+                        .addModifiers(Modifier.PRIVATE)
+                        .addParameter(classContext, "context")
+                        .addStatement("this.context = context")
+                        .addStatement("this.intent = $L", IntentPrototypeGenerator.newIntent(route, implClass))
+                        .build());
+
+        if (isTraced) {
+            builder.addField(FieldSpec
+                    .builder(long.class, "traceStart", Modifier.PRIVATE, Modifier.FINAL)
+                    .initializer("$L ? System.nanoTime() : 0L", RouteTracingGenerator.field(RouteTracingGenerator.TRACE_FIELD, implClass))
+                    .build());
+        }
+
+        // extra(key, value) for every typed putExtra overload
+        for (TypeName type : EXTRA_TYPES) {
+            builder.addMethod(MethodSpec
+                    .methodBuilder("extra")
+                    .addModifiers(Modifier.PUBLIC)
+                    .addParameter(String.class, "key")
+                    .addParameter(type, "value")
+                    .returns(builderClass)
+                    .addStatement("intent.putExtra( key, value )")
+                    .addStatement("return this")
+                    .build());
+        }
+
+        // typed setter for every @Extra field, key is known at compile time
+        for (ExtraField extra : route.extras) {
+            builder.addMethod(MethodSpec
+                    .methodBuilder(extra.fieldName)
+                    .addModifiers(Modifier.PUBLIC)
+                    .addParameter(extra.type, extra.fieldName)
+                    .returns(builderClass)
+                    .addCode(ExtraBinderGenerator.putExtra(extra, null))
+                    .addStatement("return this")
+                    .build());
+        }
+
+        builder.addMethod(MethodSpec
+                .methodBuilder("extras")
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(classBundle, "bundle")
+                .returns(builderClass)
+                .addStatement("intent.putExtras( bundle )")
+                .addStatement("return this")
+                .build());
+
+        builder.addMethod(MethodSpec
+                .methodBuilder("flags")
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(int.class, "flags")
+                .returns(builderClass)
+                .addStatement("intent.addFlags( flags )")
+                .addStatement("return this")
+                .build());
+
+        // finish current activity after routing
+        builder.addMethod(MethodSpec
+                .methodBuilder("finishCurrent")
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(classActivity, "current")
+                .returns(builderClass)
+                .addStatement("this.current = current")
+                .addStatement("return this")
+                .build());
+
+        // route with startActivityForResult of caller
+        builder.addMethod(MethodSpec
+                .methodBuilder("forResult")
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(classActivity, "caller")
+                .addParameter(int.class, "requestCode")
+                .returns(builderClass)
+                .addStatement("this.caller = caller")
+                .addStatement("this.requestCode = requestCode")
+                .addStatement("return this")
+                .build());
+
+        // intent that will be used, callers can customize it directly
+        builder.addMethod(MethodSpec
+                .methodBuilder("intent")
+                .addModifiers(Modifier.PUBLIC)
+                .returns(classIntent)
+                .addStatement("return intent")
+                .build());
+
+        // feature module is loaded first, see RouteAsyncGenerator
+        if (route.featureModule != null) {
+            builder.addMethod(RouteAsyncGenerator.getGoAsyncMethod(route));
+        }
+
+        MethodSpec.Builder go = MethodSpec
+                .methodBuilder("go")
+                .addModifiers(Modifier.PUBLIC);
+        go.addCode(RouteTracingGenerator.record(route, RouteTracingGenerator.overloads("BUILDER"), implClass));
+        if (isTraced) {
+            go.addCode(RouteTracingGenerator.mark("traceBuilt", implClass));
+        }
+        if (intercept != null) {
+            go.addCode(intercept);
+        }
+        if (isTraced) {
+            go.addCode(RouteTracingGenerator.mark("traceModified", implClass));
+        }
+        go.beginControlFlow("if (caller != null)")
+                .addStatement("caller.startActivityForResult( intent, requestCode )")
+                .nextControlFlow("else")
+                .addStatement("context.startActivity( intent )")
+                .endControlFlow();
+        if (isTraced) {
+            // extras of every builder method and of intent() customizations
+            go.addCode(RouteTracingGenerator.report(
+                    CodeBlock.of("intent.getExtras() == null ? 0 : intent.getExtras().size()"), implClass));
+        }
+        go.beginControlFlow("if (current != null)")
+                .addStatement("current.finish()")
+                .endControlFlow();
+        builder.addMethod(route.isSingleFlight ? SingleFlightGenerator.gate(go.build(), implClass) : go.build());
+
+        return builder.build();
+    }
+}
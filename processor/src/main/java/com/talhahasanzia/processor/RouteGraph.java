@@ -0,0 +1,313 @@
+package com.talhahasanzia.processor;
+
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.ExpressionTree;
+import com.sun.source.tree.IdentifierTree;
+import com.sun.source.tree.ImportTree;
+import com.sun.source.tree.LiteralTree;
+import com.sun.source.tree.MemberSelectTree;
+import com.sun.source.tree.MethodInvocationTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.util.TreeScanner;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import javax.annotation.Nonnull;
+
+// Navigation graph of a module for -Arouter.graph=true. Nodes are routes, edges are router calls found in source:
+// XRouter.route*(...) / XRouter.with(...) and RouteRegistry.route / intent with a constant or name literal.
+// Callers are resolved by name against imports and package of their compilation unit, bodies are not attributed
+// during processing and routers do not exist yet, so this is one linear pass over each tree plus hash lookups.
+// Calls from classes that are not routes (Application, fragments, helpers) are entries into the graph.
+final class RouteGraph {
+
+    private final List<Route> routes;
+    private final String registryClass;
+    // qualified names of routers and activities, route names and registry constants -> route id
+    private final Map<String, Integer> routers = new HashMap<>();
+    private final Map<String, Integer> activities = new HashMap<>();
+    private final Map<String, Integer> names = new HashMap<>();
+    private final Map<String, Integer> constants = new HashMap<>();
+
+    // targets of each route and of each entry class, sorted for stable output
+    private final List<TreeSet<Integer>> targets = new ArrayList<>();
+    private final Map<String, TreeSet<Integer>> entries = new TreeMap<>();
+
+    // routes sorted by id, same order as tables of RouteRegistry. Ids of this class are indexes into that order
+    RouteGraph(List<Route> routes, String modulePackage) {
+        this.routes = RouteRegistryGenerator.sortById(routes);
+        this.registryClass = modulePackage + "." + RouteRegistryGenerator.CLASS_NAME;
+        for (int id = 0; id < this.routes.size(); id++) {
+            Route route = this.routes.get(id);
+            routers.put(route.activityClass.peerClass(route.activityClass.simpleName() + "Router").toString(), id);
+            activities.put(route.activityClass.toString(), id);
+            names.put(route.name, id);
+            constants.put(RouteRegistryGenerator.constantName(route.name), id);
+            targets.add(new TreeSet<Integer>());
+        }
+    }
+
+    // adds edges of every router call in given compilation unit
+    void scan(CompilationUnitTree unit) {
+        new CallScanner(unit).scan(unit, null);
+    }
+
+    @Nonnull
+    List<Route> getRoutes() {
+        return routes;
+    }
+
+    // number of distinct routes and entry classes that navigate to each route
+    @Nonnull
+    int[] getFanIn() {
+        int[] fanIn = new int[routes.size()];
+        for (int id = 0; id < routes.size(); id++) {
+            for (int target : targets.get(id)) {
+                fanIn[target]++;
+            }
+        }
+        for (TreeSet<Integer> entryTargets : entries.values()) {
+            for (int target : entryTargets) {
+                fanIn[target]++;
+            }
+        }
+        return fanIn;
+    }
+
+    // route ids of targets of each route, by index of route
+    @Nonnull
+    int[][] getTargetIds() {
+        int[][] result = new int[routes.size()][];
+        for (int id = 0; id < routes.size(); id++) {
+            TreeSet<Integer> routeTargets = targets.get(id);
+            result[id] = new int[routeTargets.size()];
+            int i = 0;
+            for (int target : routeTargets) {
+                result[id][i++] = routes.get(target).id;
+            }
+        }
+        return result;
+    }
+
+    // routes reachable from given roots and from entry classes
+    @Nonnull
+    BitSet getReachable(BitSet roots) {
+        BitSet reachable = new BitSet(routes.size());
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int id = roots.nextSetBit(0); id >= 0; id = roots.nextSetBit(id + 1)) {
+            queue.add(id);
+        }
+        for (TreeSet<Integer> entryTargets : entries.values()) {
+            queue.addAll(entryTargets);
+        }
+        while (!queue.isEmpty()) {
+            int id = queue.poll();
+            if (!reachable.get(id)) {
+                reachable.set(id);
+                queue.addAll(targets.get(id));
+            }
+        }
+        return reachable;
+    }
+
+    boolean hasEntries() {
+        return !entries.isEmpty();
+    }
+
+    // compact JSON: routes in id order with fan-in, fan-out and target route names, then entry classes
+    void writeJson(Appendable out, BitSet reachable) throws IOException {
+        int[] fanIn = getFanIn();
+        out.append("{\"routes\":[");
+        for (int id = 0; id < routes.size(); id++) {
+            Route route = routes.get(id);
+            out.append(id == 0 ? "{" : ",{");
+            out.append("\"id\":").append(String.valueOf(route.id));
+            out.append(",\"name\":");
+            appendString(out, route.name);
+            out.append(",\"class\":");
+            appendString(out, route.binaryName);
+            out.append(",\"fanIn\":").append(String.valueOf(fanIn[id]));
+            out.append(",\"fanOut\":").append(String.valueOf(targets.get(id).size()));
+            out.append(",\"reachable\":").append(String.valueOf(reachable.get(id)));
+            out.append(",\"to\":");
+            appendTargets(out, targets.get(id));
+            out.append("}");
+        }
+        out.append("],\"entries\":[");
+        boolean isFirst = true;
+        for (Map.Entry<String, TreeSet<Integer>> entry : entries.entrySet()) {
+            out.append(isFirst ? "{" : ",{");
+            out.append("\"class\":");
+            appendString(out, entry.getKey());
+            out.append(",\"to\":");
+            appendTargets(out, entry.getValue());
+            out.append("}");
+            isFirst = false;
+        }
+        out.append("]}\n");
+    }
+
+    private void appendTargets(Appendable out, TreeSet<Integer> ids) throws IOException {
+        out.append("[");
+        boolean isFirst = true;
+        for (int id : ids) {
+            if (!isFirst) {
+                out.append(",");
+            }
+            appendString(out, routes.get(id).name);
+            isFirst = false;
+        }
+        out.append("]");
+    }
+
+    private static void appendString(Appendable out, String value) throws IOException {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.append('\\').append(c);
+            } else if (c < 0x20) {
+                out.append(String.format("\\u%04x", (int) c));
+            } else {
+                out.append(c);
+            }
+        }
+        out.append('"');
+    }
+
+    // source -> target edge, source is qualified name of top level class of the call. A route that navigates to
+    // itself (e.g. to refresh) has no edge, so fan-in, fan-out and targets all leave such calls out
+    private void addEdge(String source, int target) {
+        Integer sourceId = activities.get(source);
+        if (sourceId != null) {
+            if (sourceId != target) {
+                targets.get(sourceId).add(target);
+            }
+            return;
+        }
+        TreeSet<Integer> entryTargets = entries.get(source);
+        if (entryTargets == null) {
+            entryTargets = new TreeSet<>();
+            entries.put(source, entryTargets);
+        }
+        entryTargets.add(target);
+    }
+
+    // finds router calls of a compilation unit, resolving simple names the way the compiler would for top level types
+    private final class CallScanner extends TreeScanner<Void, Void> {
+
+        private final String packagePrefix;
+        // simple name -> qualified name of single type imports
+        private final Map<String, String> imports = new HashMap<>();
+        // "com.example." for every "import com.example.*;"
+        private final List<String> onDemandImports = new ArrayList<>();
+        // qualified name of top level class being scanned
+        private String source;
+
+        CallScanner(CompilationUnitTree unit) {
+            packagePrefix = unit.getPackageName() == null ? "" : unit.getPackageName().toString() + ".";
+            for (ImportTree importTree : unit.getImports()) {
+                if (importTree.isStatic()) {
+                    continue;
+                }
+                String name = importTree.getQualifiedIdentifier().toString();
+                if (name.endsWith(".*")) {
+                    onDemandImports.add(name.substring(0, name.length() - 1));
+                } else {
+                    imports.put(name.substring(name.lastIndexOf('.') + 1), name);
+                }
+            }
+        }
+
+        @Override
+        public Void visitClass(ClassTree classTree, Void unused) {
+            if (source != null) {
+                return super.visitClass(classTree, unused);
+            }
+            source = packagePrefix + classTree.getSimpleName();
+            try {
+                return super.visitClass(classTree, unused);
+            } finally {
+                source = null;
+            }
+        }
+
+        @Override
+        public Void visitMethodInvocation(MethodInvocationTree invocation, Void unused) {
+            if (source != null && invocation.getMethodSelect().getKind() == Tree.Kind.MEMBER_SELECT) {
+                MemberSelectTree select = (MemberSelectTree) invocation.getMethodSelect();
+                String method = select.getIdentifier().toString();
+                String type = resolve(select.getExpression());
+                if (type != null) {
+                    Integer target = routers.get(type);
+                    if (target != null && (method.startsWith("route") || method.equals("with"))) {
+                        addEdge(source, target);
+                    } else if (type.equals(registryClass) && (method.equals("route") || method.equals("intent"))
+                            && !invocation.getArguments().isEmpty()) {
+                        Integer registryTarget = resolveRegistryArgument(invocation.getArguments().get(0));
+                        if (registryTarget != null) {
+                            addEdge(source, registryTarget);
+                        }
+                    }
+                }
+            }
+            return super.visitMethodInvocation(invocation, unused);
+        }
+
+        // route of RouteRegistry.X_ACTIVITY, X_ACTIVITY or "routeName", null for anything computed at runtime
+        private Integer resolveRegistryArgument(ExpressionTree argument) {
+            switch (argument.getKind()) {
+                case MEMBER_SELECT:
+                    MemberSelectTree select = (MemberSelectTree) argument;
+                    return registryClass.equals(resolve(select.getExpression()))
+                            ? constants.get(select.getIdentifier().toString())
+                            : null;
+                case IDENTIFIER:
+                    return constants.get(((IdentifierTree) argument).getName().toString());
+                case STRING_LITERAL:
+                    return names.get((String) ((LiteralTree) argument).getValue());
+                default:
+                    return null;
+            }
+        }
+
+        // qualified name of a known router or registry that expression names, null otherwise
+        private String resolve(ExpressionTree expression) {
+            if (expression.getKind() == Tree.Kind.MEMBER_SELECT) {
+                String name = expression.toString();
+                return routers.containsKey(name) || name.equals(registryClass) ? name : null;
+            }
+            if (expression.getKind() != Tree.Kind.IDENTIFIER) {
+                return null;
+            }
+            String simpleName = ((IdentifierTree) expression).getName().toString();
+            String imported = imports.get(simpleName);
+            if (imported != null) {
+                return isKnown(imported) ? imported : null;
+            }
+            if (isKnown(packagePrefix + simpleName)) {
+                return packagePrefix + simpleName;
+            }
+            for (String prefix : onDemandImports) {
+                if (isKnown(prefix + simpleName)) {
+                    return prefix + simpleName;
+                }
+            }
+            return null;
+        }
+
+        private boolean isKnown(String qualifiedName) {
+            return routers.containsKey(qualifiedName) || qualifiedName.equals(registryClass);
+        }
+    }
+}
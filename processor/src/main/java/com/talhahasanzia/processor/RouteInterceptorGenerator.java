@@ -0,0 +1,86 @@
+package com.talhahasanzia.processor;
+
+import com.squareup.javapoet.AnnotationSpec;
+import com.squareup.javapoet.ArrayTypeName;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+
+import java.util.List;
+
+import javax.annotation.Nonnull;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+
+// Generates RouteInterceptors of a module: one instance of every @RouteInterceptor in a static array, sorted by
+// priority at compile time. Routers call proceed right before starting an activity, which walks the array with
+// an indexed loop, so interception costs no allocation, no reflection and no lookup per navigation.
+final class RouteInterceptorGenerator {
+
+    static final String CLASS_NAME = "RouteInterceptors";
+
+    private static final ClassName classIntent = ClassName.get("android.content", "Intent");
+    private static final ClassName classContext = ClassName.get("android.content", "Context");
+    private static final ClassName classInterceptor = ClassName.get("com.talhahasanzia.runtime", "Interceptor");
+
+    private RouteInterceptorGenerator() {
+    }
+
+    // interceptors are already sorted by priority
+    @Nonnull
+    static TypeSpec.Builder generateChain(List<TypeElement> interceptors) {
+        TypeSpec.Builder generatedClass = TypeSpec
+                .classBuilder(CLASS_NAME)
+                .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+                .addMethod(MethodSpec.constructorBuilder().addModifiers(Modifier.PRIVATE).build());
+
+        CodeBlock.Builder chain = CodeBlock.builder().add("new $T[] {\n$>", classInterceptor);
+        for (int i = 0; i < interceptors.size(); i++) {
+            TypeElement interceptor = interceptors.get(i);
+            generatedClass.addOriginatingElement(interceptor);
+            chain.add(i == 0 ? "new $T()" : ",\nnew $T()", ClassName.get(interceptor));
+        }
+        chain.add("\n$<}");
+
+        // generic array can not be created, so CHAIN is a raw array assigned to a parameterized one. Processor checked
+        // that every element is an Interceptor<Context, Intent>
+        TypeName chainType = ArrayTypeName.of(ParameterizedTypeName.get(classInterceptor, classContext, classIntent));
+        generatedClass.addField(FieldSpec
+                .builder(chainType, "CHAIN", Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                .addAnnotation(AnnotationSpec.builder(SuppressWarnings.class).addMember("value", "{$S, $S}", "unchecked", "rawtypes").build())
+                .initializer(chain.build())
+                .build());
+
+        // false if an interceptor cancelled navigation
+        generatedClass.addMethod(MethodSpec
+                .methodBuilder("proceed")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameter(classContext, "context")
+                .addParameter(String.class, "route")
+                .addParameter(classIntent, "intent")
+                .returns(boolean.class)
+                .beginControlFlow("for (int i = 0; i < CHAIN.length; i++)")
+                .beginControlFlow("if (!CHAIN[i].intercept( context, route, intent ))")
+                .addStatement("return false")
+                .endControlFlow()
+                .endControlFlow()
+                .addStatement("return true")
+                .build());
+
+        return generatedClass;
+    }
+
+    // statement of a router that returns when chain cancels navigation, context and intent are locals of caller
+    @Nonnull
+    static CodeBlock intercept(ClassName chainClass, Route route) {
+        return CodeBlock.builder()
+                .beginControlFlow("if (!$T.proceed( context, $S, intent ))", chainClass, route.name)
+                .addStatement("return")
+                .endControlFlow()
+                .build();
+    }
+}
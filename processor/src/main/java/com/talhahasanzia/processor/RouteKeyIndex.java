@@ -0,0 +1,81 @@
+package com.talhahasanzia.processor;
+
+import com.talhahasanzia.runtime.RouteTrie;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.Messager;
+import javax.tools.Diagnostic;
+
+// Hashed index of keys that have to be unique in a module: route names, RouteRegistry constants and route ids derived
+// from them and deep link patterns. Each key is one hash lookup, so a module is checked in O(routes + paths) instead of comparing
+// routes pairwise. A conflict is reported on both elements, so that either of them can be fixed. Kept for all rounds.
+final class RouteKeyIndex {
+
+    private final Messager messager;
+    // key -> first route that has it
+    private final Map<String, Route> names = new HashMap<>();
+    private final Map<String, Route> constants = new HashMap<>();
+    private final Map<Integer, Route> ids = new HashMap<>();
+    // RouteTrie key -> first route and its pattern
+    private final Map<String, Route> paths = new HashMap<>();
+    private final Map<String, String> patterns = new HashMap<>();
+    // keys whose first route was reported already, every further conflict is reported on its own element only
+    private final Set<String> reported = new HashSet<>();
+
+    RouteKeyIndex(Messager messager) {
+        this.messager = messager;
+    }
+
+    // adds keys of route, false if one of them is taken by a route added before
+    boolean add(Route route) {
+        boolean isUnique = true;
+        Route first = names.putIfAbsent(route.name, route);
+        if (first != null) {
+            String what = "Route name \"" + route.name + "\"";
+            report("name:" + route.name, first, route, what, what);
+            isUnique = false;
+        } else {
+            // different names can still map to the same RouteRegistry constant, e.g. "FooBar" and "foo_bar"
+            String constant = RouteRegistryGenerator.constantName(route.name);
+            first = constants.putIfAbsent(constant, route);
+            if (first != null) {
+                report("constant:" + constant, first, route, "Route constant " + constant + " of \"" + route.name + "\"",
+                        "Route constant " + constant + " of \"" + first.name + "\"");
+                isUnique = false;
+            }
+            // ids are hashes of names, a route name of a colliding hash has to change
+            first = ids.putIfAbsent(route.id, route);
+            if (first != null) {
+                report("id:" + route.id, first, route,
+                        "Route id " + route.id + " of \"" + route.name + "\" (rename it with @Routeable(name))",
+                        "Route id " + route.id + " of \"" + first.name + "\" (rename it with @Routeable(name))");
+                isUnique = false;
+            }
+        }
+
+        for (String pattern : route.paths) {
+            String key = RouteTrie.Builder.key(pattern);
+            first = paths.putIfAbsent(key, route);
+            if (first == null) {
+                patterns.put(key, pattern);
+            } else {
+                report("path:" + key, first, route, "Deep link pattern " + pattern,
+                        "Deep link pattern " + patterns.get(key));
+                isUnique = false;
+            }
+        }
+        return isUnique;
+    }
+
+    // what describes the key as route and first route declare it, patterns differ in param names
+    private void report(String key, Route first, Route route, String what, String firstWhat) {
+        messager.printMessage(Diagnostic.Kind.ERROR, what + " conflicts with " + first.binaryName + ".", route.element);
+        if (reported.add(key) && first != route) {
+            messager.printMessage(Diagnostic.Kind.ERROR, firstWhat + " conflicts with " + route.binaryName + ".", first.element);
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.talhahasanzia.processor;
+
+import com.google.common.collect.ImmutableList;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterSpec;
+import com.squareup.javapoet.TypeName;
+import com.talhahasanzia.annotation.Routeable;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.Nonnull;
+import javax.lang.model.element.Modifier;
+
+// Precompiled static route overloads of a router. Parameters, statements and types of every overload are the same
+// for all routers, so they are built once per processor, and only the Intent creation for target class is built
+// per router and shared by all of its overloads.
+final class RouteMethodTemplates {
+
+    // method name that will be generated
+    private static final String METHOD_PREFIX = "route";
+
+    private static final ClassName classIntent = ClassName.get("android.content", "Intent");
+    private static final ClassName classContext = ClassName.get("android.content", "Context");
+    private static final ClassName classActivity = ClassName.get("android.app", "Activity");
+    private static final ClassName classBundle = ClassName.get("android.os", "Bundle");
+    private static final ClassName classParcelable = ClassName.get("android.os", "Parcelable");
+    private static final ClassName classSerializable = ClassName.get("java.io", "Serializable");
+
+    private final ParameterSpec context = ParameterSpec.builder(classContext, "context").build();
+    // finish and for result families act on the calling activity, so it is checked at compile time instead of cast
+    private final ParameterSpec activity = ParameterSpec.builder(classActivity, "context").build();
+    private final ParameterSpec finishCurrent = ParameterSpec.builder(boolean.class, "finishCurrent").build();
+    private final ParameterSpec intentModifier;
+    private final ParameterSpec bundle = ParameterSpec.builder(classBundle, "bundle").build();
+    private final ParameterSpec key = ParameterSpec.builder(String.class, "key").build();
+    private final ParameterSpec stringExtra = ParameterSpec.builder(String.class, "stringExtraData").build();
+    private final ParameterSpec serializableExtra = ParameterSpec.builder(classSerializable, "serializableExtra").build();
+    private final ParameterSpec parcelableExtra = ParameterSpec.builder(classParcelable, "parcelableExtra").build();
+    private final ParameterSpec requestCode = ParameterSpec.builder(int.class, "requestCode").build();
+    // overload family each parameter belongs to, context and key belong to none
+    private final Map<ParameterSpec, Routeable.Overload> families = new IdentityHashMap<>();
+
+    private final CodeBlock modifyIntent = CodeBlock.builder().addStatement("intent = intentModifier.modifyIntent( intent )").build();
+    private final CodeBlock startActivity = CodeBlock.builder().addStatement("context.startActivity( intent )").build();
+    private final CodeBlock startFromApplication = CodeBlock.builder().addStatement("context.getApplicationContext().startActivity( intent )").build();
+    private final CodeBlock startForResult = CodeBlock.builder().addStatement("context.startActivityForResult( intent, requestCode )").build();
+    private final CodeBlock finish = CodeBlock.builder()
+            .beginControlFlow("if (finishCurrent)")
+            .addStatement("context.finish()")
+            .endControlFlow()
+            .build();
+    private final CodeBlock putBundle = CodeBlock.builder().addStatement("intent.putExtras( bundle )").build();
+    private final CodeBlock putString = CodeBlock.builder().addStatement("intent.putExtra( key, stringExtraData )").build();
+    private final CodeBlock putSerializable = CodeBlock.builder().addStatement("intent.putExtra( key, serializableExtra )").build();
+    private final CodeBlock putParcelable = CodeBlock.builder().addStatement("intent.putExtra( key, parcelableExtra )").build();
+
+    // in the order methods are added to router
+    private final List<Template> templates;
+
+    RouteMethodTemplates(TypeName classModifyIntent) {
+        intentModifier = ParameterSpec.builder(classModifyIntent, "intentModifier").build();
+        families.put(intentModifier, Routeable.Overload.MODIFIER);
+        families.put(finishCurrent, Routeable.Overload.FINISH);
+        families.put(bundle, Routeable.Overload.BUNDLE);
+        families.put(stringExtra, Routeable.Overload.STRING);
+        families.put(serializableExtra, Routeable.Overload.SERIALIZABLE);
+        families.put(parcelableExtra, Routeable.Overload.PARCELABLE);
+        families.put(requestCode, Routeable.Overload.FOR_RESULT);
+
+        templates = ImmutableList.of(
+                // simple route method that gets context and route to activity that annotation was used
+                template(METHOD_PREFIX, params(context), startFromApplication),
+                // this also accepts an Intent modifier which gives caller a way of customizing intent
+                template(METHOD_PREFIX, params(context, intentModifier), modifyIntent, startFromApplication),
+                // also provides "finishCurrent" flag if true will finish current (caller) activity, taken as context
+                template(METHOD_PREFIX, params(activity, finishCurrent), startActivity, finish),
+                template(METHOD_PREFIX, params(activity, finishCurrent, intentModifier), modifyIntent, startFromApplication, finish),
+
+                // route method with context and also a bundle that will be passed in the intent
+                template(METHOD_PREFIX, params(context, bundle), putBundle, startFromApplication),
+                template(METHOD_PREFIX, params(context, bundle, intentModifier), putBundle, modifyIntent, startFromApplication),
+                template(METHOD_PREFIX, params(activity, bundle, finishCurrent), putBundle, startFromApplication, finish),
+                template(METHOD_PREFIX, params(activity, bundle, finishCurrent, intentModifier), putBundle, modifyIntent, startFromApplication, finish),
+
+                // route method with context and also a String extra that will be passed in the intent
+                template(METHOD_PREFIX, params(context, key, stringExtra), putString, startFromApplication),
+                template(METHOD_PREFIX, params(context, key, stringExtra, intentModifier), putString, modifyIntent, startFromApplication),
+                template(METHOD_PREFIX, params(activity, key, stringExtra, finishCurrent), putString, startFromApplication, finish),
+                template(METHOD_PREFIX, params(activity, key, stringExtra, finishCurrent, intentModifier), putString, modifyIntent, startFromApplication, finish),
+
+                // route method with context and also a Serializable extra that will be passed in the intent
+                template(METHOD_PREFIX, params(context, key, serializableExtra), putSerializable, startFromApplication),
+                template(METHOD_PREFIX, params(context, key, serializableExtra, intentModifier), putSerializable, modifyIntent, startFromApplication),
+                template(METHOD_PREFIX, params(activity, key, serializableExtra, finishCurrent), putSerializable, startFromApplication, finish),
+                template(METHOD_PREFIX, params(activity, key, serializableExtra, finishCurrent, intentModifier), putSerializable, modifyIntent, startFromApplication, finish),
+
+                // route method with context and also a Parcelable extra that will be passed in the intent
+                template(METHOD_PREFIX, params(context, key, parcelableExtra), putParcelable, startFromApplication),
+                template(METHOD_PREFIX, params(context, key, parcelableExtra, intentModifier), putParcelable, modifyIntent, startFromApplication),
+                template(METHOD_PREFIX, params(activity, key, parcelableExtra, finishCurrent), putParcelable, startFromApplication, finish),
+                template(METHOD_PREFIX, params(activity, key, parcelableExtra, finishCurrent, intentModifier), putParcelable, modifyIntent, startFromApplication, finish),
+
+                // route for result method that gets calling activity and route to activity using startActivityForResult
+                template(METHOD_PREFIX + "ForResult", params(activity, requestCode), startForResult),
+                template(METHOD_PREFIX + "ForResult", params(activity, requestCode, intentModifier), modifyIntent, startForResult));
+    }
+
+    // route overloads of families enabled for given route, with recorder call and tracing calls if isTraced.
+    // intercept runs right before activity is started, null without @RouteInterceptor
+    @Nonnull
+    List<MethodSpec> build(Route route, CodeBlock intercept, boolean isTraced) {
+        // the only part that depends on target class, shared by every overload of this router
+        CodeBlock newIntent = CodeBlock.builder()
+                .addStatement("$T intent = $L", classIntent, IntentPrototypeGenerator.newIntent(route))
+                .build();
+
+        List<MethodSpec> methods = new ArrayList<>(templates.size());
+        for (Template template : templates) {
+            if (route.overloads.containsAll(template.families)) {
+                methods.add(template.build(newIntent, RouteTracingGenerator.record(route,
+                        RouteTracingGenerator.overloads(template.families), null), intercept, isTraced));
+            }
+        }
+        return methods;
+    }
+
+    @Nonnull
+    private static List<ParameterSpec> params(ParameterSpec... parameters) {
+        return ImmutableList.copyOf(parameters);
+    }
+
+    // statements are in execution order: optional put extra, optional modify, start, optional finish
+    @Nonnull
+    private Template template(String name, List<ParameterSpec> parameters, CodeBlock... statements) {
+        Set<Routeable.Overload> templateFamilies = EnumSet.noneOf(Routeable.Overload.class);
+        for (ParameterSpec parameter : parameters) {
+            if (families.containsKey(parameter)) {
+                templateFamilies.add(families.get(parameter));
+            }
+        }
+        CodeBlock.Builder head = CodeBlock.builder();
+        CodeBlock.Builder tracedHead = CodeBlock.builder();
+        CodeBlock.Builder tail = CodeBlock.builder();
+        CodeBlock.Builder tracedTail = CodeBlock.builder();
+        CodeBlock.Builder body = head;
+        CodeBlock.Builder tracedBody = tracedHead;
+        CodeBlock extras = CodeBlock.of("0");
+        boolean isBuiltMarked = false;
+        for (CodeBlock statement : statements) {
+            if (statement == putBundle) {
+                extras = CodeBlock.of("bundle.size()");
+            } else if (statement == putString || statement == putSerializable || statement == putParcelable) {
+                extras = CodeBlock.of("1");
+            }
+
+            // see RouteTracingGenerator for marks, intent is built once modifier or start is reached
+            boolean isStart = statement == startActivity || statement == startFromApplication || statement == startForResult;
+            if (!isBuiltMarked && (statement == modifyIntent || isStart)) {
+                tracedBody.add(RouteTracingGenerator.traceBuilt);
+                isBuiltMarked = true;
+            }
+            // interceptors go between head and tail, their time is counted as modifier time
+            if (isStart) {
+                body = tail;
+                tracedBody = tracedTail;
+                tracedBody.add(RouteTracingGenerator.traceModified);
+            }
+
+            body.add(statement);
+            tracedBody.add(statement);
+
+            if (isStart) {
+                tracedBody.add(RouteTracingGenerator.report(extras));
+            }
+        }
+        return new Template(name, parameters, templateFamilies, head.build(), tail.build(), tracedHead.build(), tracedTail.build());
+    }
+
+    // one static route overload: everything except Intent creation and interception
+    private static final class Template {
+
+        private final String name;
+        private final List<ParameterSpec> parameters;
+        // overload families of parameters, all of them have to be enabled
+        private final Set<Routeable.Overload> families;
+        // statements that follow Intent creation, up to start of activity
+        private final CodeBlock head;
+        // start of activity and statements after it
+        private final CodeBlock tail;
+        // same statements with tracing marks and report
+        private final CodeBlock tracedHead;
+        private final CodeBlock tracedTail;
+
+        Template(String name, List<ParameterSpec> parameters, Set<Routeable.Overload> families, CodeBlock head,
+                 CodeBlock tail, CodeBlock tracedHead, CodeBlock tracedTail) {
+            this.name = name;
+            this.parameters = parameters;
+            this.families = families;
+            this.head = head;
+            this.tail = tail;
+            this.tracedHead = tracedHead;
+            this.tracedTail = tracedTail;
+        }
+
+        MethodSpec build(CodeBlock newIntent, CodeBlock record, CodeBlock intercept, boolean isTraced) {
+            MethodSpec.Builder method = MethodSpec
+                    .methodBuilder(name)
+                    .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                    .addParameters(parameters)
+                    .addCode(record);
+            if (isTraced) {
+                method.addCode(RouteTracingGenerator.traceStart);
+            }
+            method.addCode(newIntent).addCode(isTraced ? tracedHead : head);
+            if (intercept != null) {
+                method.addCode(intercept);
+            }
+            return method
+                    .addCode(isTraced ? tracedTail : tail)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.talhahasanzia.processor;
+
+import com.squareup.javapoet.ArrayTypeName;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import com.squareup.javapoet.WildcardTypeName;
+
+import java.util.List;
+
+import javax.annotation.Nonnull;
+import javax.lang.model.element.Modifier;
+
+// Generates RouteRegistry.prewarm: loads and initializes router, binder and, for prototype routes, the intent
+// template of a route on a background thread, so that first navigation to it does not pay for class loading.
+// Queue, executor and cancellation live in RoutePrewarmer, generated code only knows what to warm per route id.
+final class RoutePrewarmGenerator {
+
+    // routes waiting to be warmed, prewarm requests over this are dropped
+    static final int CAPACITY = 8;
+
+    private static final ClassName classContext = ClassName.get("android.content", "Context");
+    private static final ClassName classRoutePrewarmer = ClassName.get("com.talhahasanzia.runtime", "RoutePrewarmer");
+    private static final ClassName classWarmer = classRoutePrewarmer.nestedClass("Warmer");
+    private static final TypeName classAnyClass = ParameterizedTypeName.get(ClassName.get(Class.class), WildcardTypeName.subtypeOf(Object.class));
+
+    private RoutePrewarmGenerator() {
+    }
+
+    // routes sorted by id, targets is encoded route graph of -Arouter.graph or null (route ids of targets by index of
+    // route in sorted), isLazy for -Arouter.lazy routers
+    static void addPrewarm(TypeSpec.Builder registry, List<Route> sorted, String[] targets, boolean isLazy) {
+        registry.addType(getPrewarmHolder(sorted.size(), targets));
+
+        // queue route for warming, false if it is already warmed or queued or the queue is full
+        registry.addMethod(MethodSpec
+                .methodBuilder("prewarm")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameter(int.class, "routeId")
+                .addParameter(classContext, "context")
+                .returns(boolean.class)
+                .addStatement("Prewarm.context = context.getApplicationContext()")
+                .addStatement("return Prewarm.PREWARMER.prewarm(routeId)")
+                .build());
+
+        registry.addMethod(MethodSpec
+                .methodBuilder("cancelPrewarm")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameter(int.class, "routeId")
+                .returns(boolean.class)
+                .addStatement("return Prewarm.PREWARMER.cancel(routeId)")
+                .build());
+
+        registry.addMethod(MethodSpec
+                .methodBuilder("cancelAllPrewarms")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addStatement("Prewarm.PREWARMER.cancelAll()")
+                .build());
+
+        // every route that given route navigates to, e.g. from its onCreate once first frame is drawn
+        if (targets != null) {
+            registry.addMethod(MethodSpec
+                    .methodBuilder("prewarmTargets")
+                    .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                    .addParameter(int.class, "routeId")
+                    .addParameter(classContext, "context")
+                    .beginControlFlow("for (int target : Prewarm.TARGETS[indexOf(routeId)])")
+                    .addStatement("prewarm(target, context)")
+                    .endControlFlow()
+                    .build());
+        }
+
+        // synchronous warm-up of a route on calling thread, what the prewarmer runs in background
+        MethodSpec.Builder warmMethod = MethodSpec
+                .methodBuilder("warm")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameter(int.class, "routeId")
+                .addParameter(classContext, "context")
+                .addException(ClassNotFoundException.class)
+                .beginControlFlow("switch (routeId)");
+        for (Route route : sorted) {
+            ClassName routerClass = route.activityClass.peerClass(route.activityClass.simpleName() + "Router");
+            CodeBlock.Builder classes = CodeBlock.builder().add("$T.class", routerClass);
+            if (!route.extras.isEmpty()) {
+                classes.add(", $T.class", route.activityClass.peerClass(route.activityClass.simpleName() + ExtraBinderGenerator.BINDER_SUFFIX));
+            }
+            warmMethod.addCode("case $L:\n", route.id).addCode("$>");
+            warmMethod.addStatement("warmClasses($L)", classes.build());
+            if (isLazy) {
+                warmMethod.addStatement("warmImpl($T.class)", routerClass);
+            }
+            if (route.isPrototype) {
+                warmMethod.addStatement("$T.$L(context)", routerClass, IntentPrototypeGenerator.PREWARM_METHOD_NAME);
+            }
+            warmMethod.addStatement("break").addCode("$<");
+        }
+        warmMethod.addStatement("default: throw new $T($S + routeId)", IllegalArgumentException.class, "Unknown route id: ")
+                .endControlFlow();
+        registry.addMethod(warmMethod.build());
+
+        // class literals only load classes, static initializers run on first use unless forced here
+        registry.addMethod(MethodSpec
+                .methodBuilder("warmClasses")
+                .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+                .addParameter(ArrayTypeName.of(classAnyClass), "classes")
+                .varargs()
+                .addException(ClassNotFoundException.class)
+                .beginControlFlow("for (Class<?> warmed : classes)")
+                .addStatement("Class.forName(warmed.getName(), true, warmed.getClassLoader())")
+                .endControlFlow()
+                .build());
+
+        // impl of a lazy router is package private, and not generated for routers without static route methods
+        if (isLazy) {
+            registry.addMethod(MethodSpec
+                    .methodBuilder("warmImpl")
+                    .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+                    .addParameter(classAnyClass, "routerClass")
+                    .beginControlFlow("try")
+                    .addStatement("Class.forName(routerClass.getName() + $S, true, routerClass.getClassLoader())", LazyRouterGenerator.IMPL_SUFFIX)
+                    .nextControlFlow("catch ($T e)", ClassNotFoundException.class)
+                    .addComment("router has no impl")
+                    .endControlFlow()
+                    .build());
+        }
+    }
+
+    // prewarmer and its thread are created on first prewarm call by holder class
+    @Nonnull
+    private static TypeSpec getPrewarmHolder(int routes, String[] targets) {
+        TypeSpec.Builder holder = TypeSpec
+                .classBuilder("Prewarm")
+                .addModifiers(Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                .addSuperinterface(classWarmer)
+                .addField(FieldSpec
+                        .builder(classRoutePrewarmer, "PREWARMER", Modifier.STATIC, Modifier.FINAL)
+                        .initializer("new $T($T.newDefaultExecutor(), $L, new Prewarm())", classRoutePrewarmer, classRoutePrewarmer, CAPACITY)
+                        .build())
+                // application context of last prewarm call, warm-up never holds on to an activity
+                .addField(FieldSpec
+                        .builder(classContext, "context", Modifier.STATIC, Modifier.VOLATILE)
+                        .build())
+                .addMethod(MethodSpec
+                        .methodBuilder("warm")
+                        .addAnnotation(Override.class)
+                        .addModifiers(Modifier.PUBLIC)
+                        .addParameter(int.class, "routeId")
+                        .addException(Exception.class)
+                        .addStatement("$L.warm(routeId, context)", RouteRegistryGenerator.CLASS_NAME)
+                        .build());
+        if (targets != null) {
+            CodeBlock.Builder chunks = CodeBlock.builder();
+            for (int i = 0; i < targets.length; i++) {
+                chunks.add(", ").add(i == 0 ? "$S" : "\n$S", targets[i]);
+            }
+            holder.addField(FieldSpec
+                    .builder(ArrayTypeName.of(ArrayTypeName.of(int.class)), "TARGETS", Modifier.STATIC, Modifier.FINAL)
+                    .initializer("$T.decodeTargets($L$L)", classRoutePrewarmer, routes, chunks.build())
+                    .build());
+        }
+        return holder.build();
+    }
+}
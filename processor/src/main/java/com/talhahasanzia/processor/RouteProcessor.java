@@ -1,14 +1,46 @@
 package com.talhahasanzia.processor;
 
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableSet;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.util.TreePath;
+import com.sun.source.util.Trees;
 import com.squareup.javapoet.ClassName;
-import com.squareup.javapoet.JavaFile;
+import com.squareup.javapoet.CodeBlock;
 import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
 import com.squareup.javapoet.TypeSpec;
+import com.talhahasanzia.annotation.Extra;
+import com.talhahasanzia.annotation.RouteInterceptor;
 import com.talhahasanzia.annotation.Routeable;
+import com.talhahasanzia.runtime.Interceptor;
+import com.talhahasanzia.runtime.RouteIndex;
+import com.talhahasanzia.runtime.RoutePrewarmer;
+import com.talhahasanzia.runtime.RouteTrie;
 
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 import javax.annotation.Nonnull;
 import javax.annotation.processing.AbstractProcessor;
@@ -16,42 +48,107 @@ import javax.annotation.processing.Filer;
 import javax.annotation.processing.Messager;
 import javax.annotation.processing.ProcessingEnvironment;
 import javax.annotation.processing.RoundEnvironment;
-import javax.annotation.processing.SupportedAnnotationTypes;
 import javax.lang.model.SourceVersion;
 import javax.lang.model.element.Element;
 import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.Modifier;
 import javax.lang.model.element.PackageElement;
 import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
 import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
 import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
 
 
-@SupportedAnnotationTypes("com.talhahasanzia.annotation.Routeable")
 public class RouteProcessor extends AbstractProcessor {
 
-    // method name that will be generated
-    private static final String METHOD_PREFIX = "route";
     // Intent class specification
     private static final ClassName classIntent = ClassName.get("android.content", "Intent");
-    // Context class specification
-    private static final ClassName classContext = ClassName.get("android.content", "Context");
-    // Activity class specification
-    private static final ClassName classActivity = ClassName.get("android.app", "Activity");
     // Bundle class specification
     private static final ClassName classBundle = ClassName.get("android.os", "Bundle");
     // Parcelable class specification
     private static final ClassName classParcelable = ClassName.get("android.os", "Parcelable");
     // Serializable class specification
     private static final ClassName classSerializable = ClassName.get("java.io", "Serializable");
+    // IntentModifier<Intent> specification, IntentModifier comes from runtime artifact
+    private static final TypeName classModifyIntent = ParameterizedTypeName.get(
+            ClassName.get("com.talhahasanzia.runtime", "IntentModifier"), classIntent);
+
+
+    // processor option, package of module level generated code (RouteRegistry), e.g. -Arouter.module=com.example.app
+    static final String OPTION_MODULE = "router.module";
+    // processor option, "false" drops static route overloads from routers, leaving fluent builder only
+    static final String OPTION_LEGACY_OVERLOADS = "router.legacyOverloads";
+    // processor option, "true" makes routers report navigation timings to RouteTracer installed in RouteTracing
+    static final String OPTION_TRACE = "router.trace";
+    // processor option, "true" generates routers as small facades over lazily loaded <Activity>RouterImpl classes
+    static final String OPTION_LAZY = "router.lazy";
+    // processor option, "true" writes navigation graph of module and warns about routes that are never navigated to
+    static final String OPTION_GRAPH = "router.graph";
+    // processor option, number of threads used to build routers, defaults to number of processors
+    static final String OPTION_THREADS = "router.threads";
+    // processor option, path of a JSON file with method count and estimated bytecode size of every router
+    static final String OPTION_REPORT = "router.report";
+    // modules smaller than this are generated on compiler thread, pool overhead is not worth it
+    private static final int PARALLEL_THRESHOLD = 64;
+    // gradle incremental processing options, see META-INF/gradle/incremental.annotation.processors
+    private static final String GRADLE_ISOLATING = "org.gradle.annotation.processing.isolating";
+    private static final String GRADLE_AGGREGATING = "org.gradle.annotation.processing.aggregating";
+    // @SuppressWarnings value of routes that are entered from outside of module sources, e.g. launcher activity
+    private static final String SUPPRESS_DEAD_ROUTE = "DeadRoute";
 
 
     // some objects that we get in "init" method, we use some and leave others for later implementations
 
     private Messager messager;
     private Elements elementUtils;
+    private Types typeUtils;
     private Filer filer;
-    private ClassName classModifyIntent;
+    // package of module level generated code, null if not requested
+    private String modulePackage;
+    private boolean isLegacyOverloadsEnabled;
+    private boolean isTraced;
+    private boolean isLazy;
+    private boolean isGraphEnabled;
+    // compiler trees, null if compiler does not support them (not javac)
+    private Trees trees;
+    private int threads;
+    // path of router size report, null if not requested
+    private String reportPath;
+    // created on first large round, workers are daemon threads
+    private ForkJoinPool pool;
+    // invariant parts of static route overloads, built once
+    private RouteMethodTemplates methodTemplates;
+    // which classes extend Activity, a Fragment, Service or BroadcastReceiver, shared by all rounds
+    private SubtypeCache targetTypes;
+
+    // state kept across rounds. Routers are written in the round their activity is complete, module level outputs
+    // (RouteRegistry, route index, route graph) once, in the first round that has no deferred activities
+
+    // routes of all rounds, for module level outputs
+    private final List<Route> moduleRoutes = new ArrayList<>();
+    // keys of moduleRoutes that have to be unique
+    private RouteKeyIndex routeKeys;
+    // qualified names of @Routeable classes that reference types which do not exist yet (e.g. generated by another
+    // processor), retried in next round. Names, not elements: javac 8 creates new elements every round
+    private final Set<String> deferred = new LinkedHashSet<>();
+    // compilation units of module sources, for route graph
+    private final Set<CompilationUnitTree> graphUnits = Collections.newSetFromMap(new IdentityHashMap<CompilationUnitTree, Boolean>());
+    // qualified names of written sources, so that nothing is written twice
+    private final Set<String> writtenTypes = new HashSet<>();
+    private boolean isRegistryGenerated;
+    // RouteInterceptors of module, null if module has no @RouteInterceptor
+    private ClassName interceptorChain;
+    private boolean isRouterGenerated;
+    // stats of routers of all rounds, null without report option
+    private RouteReport report;
 
 
     // init implementation, runs 1st time the processor starts
@@ -60,7 +157,34 @@ public class RouteProcessor extends AbstractProcessor {
 
         messager = processingEnvironment.getMessager();
         elementUtils = processingEnvironment.getElementUtils();
+        typeUtils = processingEnvironment.getTypeUtils();
         filer = processingEnvironment.getFiler();
+        modulePackage = processingEnvironment.getOptions().get(OPTION_MODULE);
+        isLegacyOverloadsEnabled = !"false".equals(processingEnvironment.getOptions().get(OPTION_LEGACY_OVERLOADS));
+        isTraced = "true".equals(processingEnvironment.getOptions().get(OPTION_TRACE));
+        isLazy = "true".equals(processingEnvironment.getOptions().get(OPTION_LAZY));
+        isGraphEnabled = "true".equals(processingEnvironment.getOptions().get(OPTION_GRAPH));
+        try {
+            trees = Trees.instance(processingEnvironment);
+        } catch (IllegalArgumentException e) {
+            trees = null;
+        }
+        reportPath = processingEnvironment.getOptions().get(OPTION_REPORT);
+        // relative path would resolve against working directory of compiler, a gradle daemon's one is anywhere
+        if (reportPath != null && !new File(reportPath).isAbsolute()) {
+            messager.printMessage(Diagnostic.Kind.WARNING, "-A" + OPTION_REPORT + " needs an absolute path, report is not written: " + reportPath);
+            reportPath = null;
+        }
+        report = reportPath == null ? null : new RouteReport(isLegacyOverloadsEnabled);
+        String threadsOption = processingEnvironment.getOptions().get(OPTION_THREADS);
+        methodTemplates = new RouteMethodTemplates(classModifyIntent);
+        List<String> baseClasses = new ArrayList<>();
+        for (Route.Target target : Route.Target.values()) {
+            baseClasses.addAll(target.baseClasses);
+        }
+        targetTypes = new SubtypeCache(elementUtils, baseClasses.toArray(new String[0]));
+        routeKeys = new RouteKeyIndex(messager);
+        threads = threadsOption == null ? Runtime.getRuntime().availableProcessors() : Integer.parseInt(threadsOption);
 
 
     }
@@ -68,508 +192,737 @@ public class RouteProcessor extends AbstractProcessor {
     // runs when processor is called by compiler
     @Override
     public boolean process(Set<? extends TypeElement> set, RoundEnvironment roundEnvironment) {
-        boolean isIntentModifierGenerated = false;
+        // activities deferred by earlier rounds, looked up again in this round
+        List<TypeElement> typeElements = new ArrayList<>();
+        for (String name : deferred) {
+            TypeElement typeElement = elementUtils.getTypeElement(name);
+            if (typeElement != null) {
+                typeElements.add(typeElement);
+            }
+        }
+        deferred.clear();
+
         // get each element that was annotated with "Routeable class, and do the following
         for (Element element : roundEnvironment.getElementsAnnotatedWith(Routeable.class)) {
 
             // only support annotation on class types
             if (element.getKind() != ElementKind.CLASS) {
-                messager.printMessage(Diagnostic.Kind.ERROR, "Can be only applied to class.");
+                messager.printMessage(Diagnostic.Kind.ERROR, "Can be only applied to class.", element);
+                continue;
             }
 
 
             // get element type
-            TypeElement typeElement = (TypeElement) element;
+            typeElements.add((TypeElement) element);
+        }
+
+        List<Route> routes = new ArrayList<>();
+        for (TypeElement typeElement : typeElements) {
+
+            // wait for missing types while there are rounds left, last round reports them
+            if (!roundEnvironment.processingOver() && !isComplete(typeElement)) {
+                deferred.add(typeElement.getQualifiedName().toString());
+                continue;
+            }
+
+            String baseClass = getValidBaseClass(typeElement);
+            if (baseClass == null) {
+                continue;
+            }
+            Route.Target target = Route.Target.of(baseClass);
+
+            Routeable routeable = typeElement.getAnnotation(Routeable.class);
+            if (routeable.singleFlightMillis() < 0) {
+                messager.printMessage(Diagnostic.Kind.ERROR, "@Routeable(singleFlightMillis) can not be negative.", typeElement);
+                continue;
+            }
+            if (target != Route.Target.ACTIVITY && !isValidComponent(typeElement, routeable)) {
+                continue;
+            }
 
             // get package
-            PackageElement pkg = elementUtils.getPackageOf(element);
+            PackageElement pkg = elementUtils.getPackageOf(typeElement);
+
+            String activityName = typeElement.getSimpleName().toString();
+            Route route = new Route(typeElement,
+                    ClassName.get(pkg.getQualifiedName().toString(), activityName),
+                    target,
+                    ClassName.bestGuess(baseClass),
+                    routeable.name().isEmpty() ? activityName : routeable.name(),
+                    elementUtils.getBinaryName(typeElement).toString(),
+                    getExtras(typeElement),
+                    routeable.prototype(),
+                    Arrays.asList(routeable.paths()),
+                    getOverloads(routeable),
+                    routeable.featureModule().isEmpty() ? null : routeable.featureModule(),
+                    routeable.singleFlight(),
+                    routeable.singleFlightMillis());
+            routes.add(route);
 
-            TypeSpec.Builder generatedClass;
 
-            // if IntentModifier is generated proceed to generate router
-            // this is important since generated router class HAS to use IntentModifier and if not present will result in error
-            if (isIntentModifierGenerated) {
-                // generate a class
-                generatedClass = generateClass(typeElement.getSimpleName().toString(),
-                        pkg.getQualifiedName().toString());
-            } else {
-                // get current package of the caller
-                classModifyIntent = ClassName.get(pkg.getQualifiedName().toString(), "IntentModifier");
-                // generate interface in that package (in build directory)
-                generatedClass = generateInterface();
-                // mark as generated
-                isIntentModifierGenerated = true;
+        }
+        // names and deep links have to be unique in a module, conflicting routes get routers but stay out of RouteRegistry.
+        // Module level outputs start activities, routers of other targets are not part of them
+        for (Route route : routes) {
+            if (route.target == Route.Target.ACTIVITY && (modulePackage == null || routeKeys.add(route))) {
+                moduleRoutes.add(route);
             }
-            // write a .java class using filer
-            try {
-                JavaFile.builder(pkg.getQualifiedName().toString(), generatedClass.build()).build().writeTo(filer);
-            } catch (IOException e) {
-                e.printStackTrace();
+        }
+
+        // module sources are scanned in the round they appear, generated routers are not module sources
+        if (isGraphEnabled && trees != null && !isRegistryGenerated) {
+            for (Element element : roundEnvironment.getRootElements()) {
+                TreePath path = trees.getPath(element);
+                if (path != null && !(element instanceof TypeElement && writtenTypes.contains(((TypeElement) element).getQualifiedName().toString()))) {
+                    graphUnits.add(path.getCompilationUnit());
+                }
             }
+        }
 
+        // interceptor chain has to be known before routers are built, they call it
+        writeInterceptorChain(roundEnvironment);
 
+        // aggregating builds reprocess unchanged @Routeable classes from their class files for module level outputs,
+        // their routers were compiled with them, so only routers of changed activities are written again
+        Set<Element> compiledRoutes = new HashSet<>();
+        for (Route route : routes) {
+            if (isCompiled(route)) {
+                compiledRoutes.add(route.element);
+            }
         }
 
+        // build and render all routers off compiler thread, then write them in element order
+        for (SourceFile sourceFile : generateFiles(routes)) {
+            Element[] originatingElements = sourceFile.getOriginatingElements();
+            if (originatingElements.length != 1 || !compiledRoutes.contains(originatingElements[0])) {
+                writeFile(sourceFile);
+            }
+        }
+        isRouterGenerated |= !routes.isEmpty();
 
-        return true;
-    }
+        // @Extra is only meaningful inside a @Routeable class
+        for (Element element : roundEnvironment.getElementsAnnotatedWith(Extra.class)) {
+            if (element.getEnclosingElement().getAnnotation(Routeable.class) == null) {
+                messager.printMessage(Diagnostic.Kind.ERROR, "@Extra can be only applied to fields of a @Routeable class.", element);
+            }
+        }
 
+        // deep links are matched by RouteRegistry, which only exists with module option
+        if (modulePackage == null) {
+            if (isGraphEnabled && !routes.isEmpty()) {
+                messager.printMessage(Diagnostic.Kind.ERROR, "-A" + OPTION_GRAPH + " needs -A" + OPTION_MODULE + " processor option.");
+            }
+            for (Route route : routes) {
+                if (!route.paths.isEmpty()) {
+                    messager.printMessage(Diagnostic.Kind.ERROR, "@Routeable(paths) needs -A" + OPTION_MODULE + " processor option.", route.element);
+                }
+            }
+        }
 
-    // Generates Router classes for annotated types, using JavaPoet
-    @Nonnull
-    private TypeSpec.Builder generateClass(String activityName, String packageName) {
+        // routes of a round after module outputs, e.g. activities generated from RouteRegistry, can not be added
+        if (isRegistryGenerated) {
+            for (Route route : routes) {
+                messager.printMessage(Diagnostic.Kind.ERROR, "@Routeable class of a later processing round is not in " + RouteRegistryGenerator.CLASS_NAME + ".", route.element);
+            }
+        }
 
-        // Class specification
-        TypeSpec.Builder generatedClass = TypeSpec
-                .classBuilder(activityName + "Router")
-                .addModifiers(Modifier.PUBLIC, Modifier.FINAL);
-
-        // The class on which the annotation was used, here we expect it to be "Activity" class
-        ClassName activityClass = ClassName.get(packageName, activityName);
-
-        // add following method definitions to generated class
-        generatedClass.addMethod(getContextMethod(activityClass));
-        generatedClass.addMethod(getContextIntentModifierMethod(activityClass));
-        generatedClass.addMethod(getContextFinishMethod(activityClass));
-        generatedClass.addMethod(getContextFinishIntentModifierMethod(activityClass));
-        generatedClass.addMethod(getContextBundleMethod(activityClass));
-        generatedClass.addMethod(getContextBundleIntentModifierMethod(activityClass));
-        generatedClass.addMethod(getContextBundleFinishMethod(activityClass));
-        generatedClass.addMethod(getContextBundleFinishIntentModifierMethod(activityClass));
-        generatedClass.addMethod(getContextStringExtraMethod(activityClass));
-        generatedClass.addMethod(getContextStringExtraIntentModifierMethod(activityClass));
-        generatedClass.addMethod(getContextStringExtraFinishMethod(activityClass));
-        generatedClass.addMethod(getContextStringExtraFinishIntentModifierMethod(activityClass));
-        generatedClass.addMethod(getContextSerializableExtraMethod(activityClass));
-        generatedClass.addMethod(getContextSerializableExtraIntentModifierMethod(activityClass));
-        generatedClass.addMethod(getContextSerializableExtraFinishMethod(activityClass));
-        generatedClass.addMethod(getContextSerializableExtraFinishIntentModifierMethod(activityClass));
-        generatedClass.addMethod(getContextParcelableExtraMethod(activityClass));
-        generatedClass.addMethod(getContextParcelableExtraIntentModifierMethod(activityClass));
-        generatedClass.addMethod(getContextParcelableExtraFinishMethod(activityClass));
-        generatedClass.addMethod(getContextParcelableExtraFinishIntentModifierMethod(activityClass));
-        generatedClass.addMethod(getActivityForResultMethod(activityClass));
-        generatedClass.addMethod(getActivityForResultIntentModifierMethod(activityClass));
+        // one registry and one route index per module, built from all routes of this module,
+        // usually in first round, so that no extra round is needed for them
+        if (modulePackage != null && !isRegistryGenerated && !moduleRoutes.isEmpty() && deferred.isEmpty()) {
+            RouteGraph graph = isGraphEnabled ? getRouteGraph(moduleRoutes) : null;
+            String[] targets = graph == null ? null : RoutePrewarmer.encodeTargets(graph.getTargetIds(), RouteRegistryGenerator.CHUNK_SIZE);
+            writeFile(new SourceFile(modulePackage, RouteRegistryGenerator.generate(moduleRoutes, getDeepLinks(moduleRoutes), targets, isLazy, interceptorChain)));
+            writeRouteIndex(moduleRoutes);
+            if (graph != null) {
+                writeRouteGraph(graph);
+            }
+            isRegistryGenerated = true;
+        }
 
-        // return generated class
-        return generatedClass;
-    }
+        if (report != null && roundEnvironment.processingOver() && !report.isEmpty()) {
+            writeReport();
+        }
 
-    // simple route method that gets context and route to activity that annotation was used
-    @Nonnull
-    private MethodSpec getContextMethod(ClassName activityClass) {
-        return MethodSpec
-                .methodBuilder(METHOD_PREFIX)
-                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
-                .addParameter(classContext, "context")
-                .addStatement("context.getApplicationContext().startActivity( new $T($L, $L))", classIntent, "context", activityClass + ".class")
-                .build();
+        return true;
     }
 
-    // simple route method that gets context and route to activity that annotation was used.
-    // also provides "finishCurrent" flag if true will finish current (caller) activity
-    // this also accepts an Intent modifier which gives caller a way of customizing intent
+    // builds and renders files of every route, on a bounded fork-join pool for large modules.
+    // Generation only reads Route models and JavaPoet specs, so output does not depend on scheduling
+    // and files are returned in route order.
     @Nonnull
-    private MethodSpec getContextFinishIntentModifierMethod(ClassName activityClass) {
-        return MethodSpec
-                .methodBuilder(METHOD_PREFIX)
-                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
-                .addParameter(classContext, "context")
-                .addParameter(boolean.class, "finishCurrent")
-                .addParameter(classModifyIntent, "intentModifier")
-                .addStatement("$T intent = new $T($L, $L)", classIntent, classIntent, "context", activityClass + ".class")
-                .addStatement("intent = intentModifier.modifyIntent( intent )")
-                .addStatement("context.getApplicationContext().startActivity( intent )")
-                .beginControlFlow("if(finishCurrent)")
-                .addStatement("(($T)$L).finish()", classActivity, "context")
-                .endControlFlow()
-                .build();
+    private List<SourceFile> generateFiles(List<Route> routes) {
+        List<Callable<List<SourceFile>>> tasks = new ArrayList<>(routes.size());
+        for (final Route route : routes) {
+            tasks.add(new Callable<List<SourceFile>>() {
+                @Override
+                public List<SourceFile> call() {
+                    return generateFiles(route);
+                }
+            });
+        }
+
+        List<SourceFile> files = new ArrayList<>(routes.size());
+        try {
+            if (threads <= 1 || routes.size() < PARALLEL_THRESHOLD) {
+                for (Callable<List<SourceFile>> task : tasks) {
+                    files.addAll(task.call());
+                }
+            } else {
+                for (Future<List<SourceFile>> result : getPool().invokeAll(tasks)) {
+                    files.addAll(result.get());
+                }
+            }
+        } catch (ExecutionException e) {
+            Throwables.throwIfUnchecked(e.getCause());
+            throw new RuntimeException(e.getCause());
+        } catch (Exception e) {
+            Throwables.throwIfUnchecked(e);
+            throw new RuntimeException(e);
+        }
+        return files;
     }
 
-    // simple route method that gets context and route to activity that annotation was used.
-    // also provides "finishCurrent" flag if true will finish current (caller) activity
+    // router (facade and impl in lazy mode) and, for @Extra fields, binder of a route
     @Nonnull
-    private MethodSpec getContextFinishMethod(ClassName activityClass) {
-        return MethodSpec
-                .methodBuilder(METHOD_PREFIX)
-                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
-                .addParameter(classContext, "context")
-                .addParameter(boolean.class, "finishCurrent")
-                .addStatement("$L.startActivity( new $T($L, $L))", "context", classIntent, "context", activityClass + ".class")
-                .beginControlFlow("if(finishCurrent)")
-                .addStatement("(($T)$L).finish()", classActivity, "context")
-                .endControlFlow()
-                .build();
+    private List<SourceFile> generateFiles(Route route) {
+        String packageName = route.activityClass.packageName();
+        List<SourceFile> files = new ArrayList<>(3);
+
+        ClassName routerClass = getRouterClass(route);
+
+        // generate a class
+        TypeSpec.Builder generatedClass;
+        if (route.target != Route.Target.ACTIVITY) {
+            // few small methods, nothing to load lazily
+            generatedClass = ComponentRouterGenerator.generate(route, routerClass);
+        } else if (isLazy) {
+            ClassName implClass = routerClass.peerClass(routerClass.simpleName() + LazyRouterGenerator.IMPL_SUFFIX);
+            TypeSpec impl = generateClass(route, routerClass, implClass).build();
+            generatedClass = LazyRouterGenerator.generateFacade(route, routerClass, implClass, impl, getIntercept(route), isTraced);
+            // nothing to load lazily without overloads, prototype or tracing
+            if (!impl.methodSpecs.isEmpty() || !impl.fieldSpecs.isEmpty()) {
+                files.add(new SourceFile(packageName, impl.toBuilder().addOriginatingElement(route.element)));
+            }
+        } else {
+            generatedClass = generateClass(route, routerClass, null);
+        }
+
+        // each router originates from exactly one annotated type, this is what makes the processor
+        // "isolating" for gradle: only routers of changed activities are regenerated on incremental builds
+        generatedClass.addOriginatingElement(route.element);
+        files.add(0, new SourceFile(packageName, generatedClass));
+
+        // binder for @Extra fields
+        if (!route.extras.isEmpty()) {
+            files.add(new SourceFile(packageName, ExtraBinderGenerator.generateBinder(route, routerClass)));
+        }
+
+        if (report != null) {
+            report.add(route, files);
+        }
+        return files;
     }
 
-    // simple route method that gets context and route to activity that annotation was used
-    // this also accepts an Intent modifier which gives caller a way of customizing intent
     @Nonnull
-    private MethodSpec getContextIntentModifierMethod(ClassName activityClass) {
-        return MethodSpec
-                .methodBuilder(METHOD_PREFIX)
-                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
-                .addParameter(classContext, "context")
-                .addParameter(classModifyIntent, "intentModifier")
-                .addStatement("$T intent = new $T($L, $L)", classIntent, classIntent, "context", activityClass + ".class")
-                .addStatement("intent = intentModifier.modifyIntent( intent )")
-                .addStatement("context.getApplicationContext().startActivity( intent )")
-                .build();
+    private static ClassName getRouterClass(Route route) {
+        return route.activityClass.peerClass(route.activityClass.simpleName() + "Router");
     }
 
-    // route method with context and also a bundle that will be passed in the intent
-    @Nonnull
-    private MethodSpec getContextBundleMethod(ClassName activityClass) {
-        return MethodSpec
-                .methodBuilder(METHOD_PREFIX)
-                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
-                .addParameter(classContext, "context")
-                .addParameter(classBundle, "bundle")
-                .addStatement("$T intent = new $T( $L, $L )", classIntent, classIntent, "context", activityClass + ".class")
-                .addStatement("intent.putExtras( bundle )")
-                .addStatement("context.getApplicationContext().startActivity( intent )")
-                .build();
+    // route comes from a class file, not a source, and its router is on classpath already
+    private boolean isCompiled(Route route) {
+        return trees != null && trees.getPath(route.element) == null
+                && elementUtils.getTypeElement(getRouterClass(route).toString()) != null;
     }
 
-    // route method with context and also a bundle that will be passed in the intent
     @Nonnull
-    private MethodSpec getContextBundleIntentModifierMethod(ClassName activityClass) {
-        return MethodSpec
-                .methodBuilder(METHOD_PREFIX)
-                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
-                .addParameter(classContext, "context")
-                .addParameter(classBundle, "bundle")
-                .addParameter(classModifyIntent, "intentModifier")
-                .addStatement("$T intent = new $T( $L, $L )", classIntent, classIntent, "context", activityClass + ".class")
-                .addStatement("intent.putExtras( bundle )")
-                .addStatement("intent = intentModifier.modifyIntent( intent )")
-                .addStatement("context.getApplicationContext().startActivity( intent )")
-                .build();
+    private ForkJoinPool getPool() {
+        if (pool == null) {
+            pool = new ForkJoinPool(threads);
+        }
+        return pool;
     }
 
-    // route method with context and also a bundle that will be passed in the intent
-    // also provides "finishCurrent" flag if true will finish current (caller) activity
-    @Nonnull
-    private MethodSpec getContextBundleFinishMethod(ClassName activityClass) {
-        return MethodSpec
-                .methodBuilder(METHOD_PREFIX)
-                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
-                .addParameter(classContext, "context")
-                .addParameter(classBundle, "bundle")
-                .addParameter(boolean.class, "finishCurrent")
-                .addStatement("$T intent = new $T( $L, $L )", classIntent, classIntent, "context", activityClass + ".class")
-                .addStatement("intent.putExtras( bundle )")
-                .addStatement("context.getApplicationContext().startActivity( intent )", "context")
-                .beginControlFlow("if(finishCurrent)")
-                .addStatement("(($T)$L).finish()", classActivity, "context")
-                .endControlFlow()
-                .build();
+    // write a .java class using filer, once per type
+    private void writeFile(SourceFile sourceFile) {
+        if (!writtenTypes.add(sourceFile.getQualifiedName())) {
+            return;
+        }
+        try {
+            sourceFile.writeTo(filer);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
     }
 
 
-    // route method with context and also a bundle that will be passed in the intent
-    // also provides "finishCurrent" flag if true will finish current (caller) activity
-    // this also accepts an Intent modifier which gives caller a way of customizing intent
-    @Nonnull
-    private MethodSpec getContextBundleFinishIntentModifierMethod(ClassName activityClass) {
-        return MethodSpec
-                .methodBuilder(METHOD_PREFIX)
-                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
-                .addParameter(classContext, "context")
-                .addParameter(classBundle, "bundle")
-                .addParameter(boolean.class, "finishCurrent")
-                .addParameter(classModifyIntent, "intentModifier")
-                .addStatement("$T intent = new $T( $L, $L )", classIntent, classIntent, "context", activityClass + ".class")
-                .addStatement("intent.putExtras( bundle )")
-                .addStatement("intent = intentModifier.modifyIntent( intent )")
-                .addStatement("context.getApplicationContext().startActivity( intent )")
-                .beginControlFlow("if (finishCurrent) ")
-                .addStatement("(($T)$L).finish()", classActivity, "context")
-                .endControlFlow()
-                .build();
+    // writes router size report to absolute path of report option, outside of generated sources
+    private void writeReport() {
+        File file = new File(reportPath);
+        File parent = file.getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "Can not create directory of -A" + OPTION_REPORT + ": " + parent);
+            return;
+        }
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            report.writeJson(writer);
+        } catch (IOException e) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "Can not write -A" + OPTION_REPORT + " to " + file + ": " + e.getMessage());
+        }
     }
 
-    // route method with context and also a String extra that will be passed in the intent
+    // families of static route overloads enabled by @Routeable(overloads)
     @Nonnull
-    private MethodSpec getContextStringExtraMethod(ClassName activityClass) {
-        return MethodSpec
-                .methodBuilder(METHOD_PREFIX)
-                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
-                .addParameter(classContext, "context")
-                .addParameter(String.class, "key")
-                .addParameter(String.class, "stringExtraData")
-                .addStatement("$T intent = new $T( $L, $L )", classIntent, classIntent, "context", activityClass + ".class")
-                .addStatement("intent.putExtra( key, stringExtraData )")
-                .addStatement("context.getApplicationContext().startActivity( intent )", "context")
-                .build();
+    private static Set<Routeable.Overload> getOverloads(Routeable routeable) {
+        Set<Routeable.Overload> overloads = EnumSet.noneOf(Routeable.Overload.class);
+        overloads.addAll(Arrays.asList(routeable.overloads()));
+        return overloads;
     }
 
-    // route method with context and also a String extra that will be passed in the intent
-    // this also accepts an Intent modifier which gives caller a way of customizing intent
-    @Nonnull
-    private MethodSpec getContextStringExtraIntentModifierMethod(ClassName activityClass) {
-        return MethodSpec
-                .methodBuilder(METHOD_PREFIX)
-                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
-                .addParameter(classContext, "context")
-                .addParameter(String.class, "key")
-                .addParameter(String.class, "stringExtraData")
-                .addParameter(classModifyIntent, "intentModifier")
-                .addStatement("$T intent = new $T( $L, $L )", classIntent, classIntent, "context", activityClass + ".class")
-                .addStatement("intent.putExtra( key, stringExtraData )")
-                .addStatement("intent = intentModifier.modifyIntent( intent )")
-                .addStatement("context.getApplicationContext().startActivity( intent )")
-                .build();
+    // superclasses and @Extra field types exist, false if one of them is generated in a later round
+    private boolean isComplete(TypeElement typeElement) {
+        if (targetTypes.getBaseClass(typeElement) == null) {
+            return false;
+        }
+        for (Element enclosed : typeElement.getEnclosedElements()) {
+            if (enclosed.getKind() == ElementKind.FIELD && enclosed.getAnnotation(Extra.class) != null
+                    && hasErrorType(enclosed.asType())) {
+                return false;
+            }
+        }
+        return true;
     }
 
-    // route method with context and also a String extra that will be passed in the intent
-    // also provides "finishCurrent" flag if true will finish current (caller) activity
-    @Nonnull
-    private MethodSpec getContextStringExtraFinishMethod(ClassName activityClass) {
-        return MethodSpec
-                .methodBuilder(METHOD_PREFIX)
-                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
-                .addParameter(classContext, "context")
-                .addParameter(String.class, "key")
-                .addParameter(String.class, "stringExtraData")
-                .addParameter(boolean.class, "finishCurrent")
-                .addStatement("$T intent = new $T( $L, $L )", classIntent, classIntent, "context", activityClass + ".class")
-                .addStatement("intent.putExtra( key, stringExtraData )")
-                .addStatement("context.getApplicationContext().startActivity( intent )")
-                .beginControlFlow("if( finishCurrent )")
-                .addStatement("(($T)$L).finish()", classActivity, "context")
-                .endControlFlow()
-                .build();
+    // type or one of its type arguments does not exist
+    private static boolean hasErrorType(TypeMirror type) {
+        if (type.getKind() == TypeKind.ERROR) {
+            return true;
+        }
+        if (type.getKind() == TypeKind.DECLARED) {
+            for (TypeMirror argument : ((DeclaredType) type).getTypeArguments()) {
+                if (hasErrorType(argument)) {
+                    return true;
+                }
+            }
+        }
+        return type.getKind() == TypeKind.ARRAY && hasErrorType(((ArrayType) type).getComponentType());
     }
 
+    // binary name of the framework class a class that Android can instantiate extends: public, not abstract,
+    // not inner, with a public no-arg constructor. null if class is not valid, Route.Target.of gives its target
+    private String getValidBaseClass(TypeElement typeElement) {
+        Set<Modifier> modifiers = typeElement.getModifiers();
+        boolean isNested = typeElement.getEnclosingElement().getKind() != ElementKind.PACKAGE;
+        if (!modifiers.contains(Modifier.PUBLIC) || modifiers.contains(Modifier.ABSTRACT)
+                || (isNested && !modifiers.contains(Modifier.STATIC))) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "@Routeable class has to be public, not abstract and not an inner class.", typeElement);
+            return null;
+        }
+
+        // unknown superclass is reported by compiler itself
+        String baseClass = targetTypes.getBaseClass(typeElement);
+        if (baseClass == null) {
+            return null;
+        }
+        if (baseClass.equals(SubtypeCache.NONE)) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "@Routeable class has to extend an Activity, Fragment, Service or BroadcastReceiver.", typeElement);
+            return null;
+        }
 
-    // route method with context and also a String extra that will be passed in the intent
-    // also provides "finishCurrent" flag if true will finish current (caller) activity
-    // this also accepts an Intent modifier which gives caller a way of customizing intent
-    @Nonnull
-    private MethodSpec getContextStringExtraFinishIntentModifierMethod(ClassName activityClass) {
-        return MethodSpec
-                .methodBuilder(METHOD_PREFIX)
-                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
-                .addParameter(classContext, "context")
-                .addParameter(String.class, "key")
-                .addParameter(String.class, "stringExtraData")
-                .addParameter(boolean.class, "finishCurrent")
-                .addParameter(classModifyIntent, "intentModifier")
-                .addStatement("$T intent = new $T( $L, $L )", classIntent, classIntent, "context", activityClass + ".class")
-                .addStatement("intent.putExtra( key, stringExtraData )")
-                .addStatement("intent = intentModifier.modifyIntent( intent )")
-                .addStatement("context.getApplicationContext().startActivity( intent )")
-                .beginControlFlow("if( finishCurrent )")
-                .addStatement("(($T)$L).finish()", classActivity, "context")
-                .endControlFlow()
-                .build();
+        for (Element enclosed : typeElement.getEnclosedElements()) {
+            if (enclosed.getKind() == ElementKind.CONSTRUCTOR && enclosed.getModifiers().contains(Modifier.PUBLIC)
+                    && ((ExecutableElement) enclosed).getParameters().isEmpty()) {
+                return baseClass;
+            }
+        }
+        messager.printMessage(Diagnostic.Kind.ERROR, "@Routeable class needs a public no-arg constructor.", typeElement);
+        return null;
     }
 
-
-    // route method with context and also a Serializable extra that will be passed in the intent
-    @Nonnull
-    private MethodSpec getContextSerializableExtraMethod(ClassName activityClass) {
-        return MethodSpec
-                .methodBuilder(METHOD_PREFIX)
-                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
-                .addParameter(classContext, "context")
-                .addParameter(String.class, "key")
-                .addParameter(classSerializable, "serializableExtra")
-                .addStatement("$T intent = new $T( $L, $L )", classIntent, classIntent, "context", activityClass + ".class")
-                .addStatement("intent.putExtra( key, serializableExtra )")
-                .addStatement("context.getApplicationContext().startActivity( intent )")
-                .build();
+    // fragment, service or receiver that uses no options of activity routers: they start activities through
+    // Intents, builder and binder, which component routers do not have
+    private boolean isValidComponent(TypeElement typeElement, Routeable routeable) {
+        String option = routeable.paths().length > 0 ? "paths"
+                : !routeable.featureModule().isEmpty() ? "featureModule"
+                : routeable.singleFlight() ? "singleFlight"
+                : routeable.prototype() ? "prototype"
+                : null;
+        if (option != null) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "@Routeable(" + option + ") is only supported on activities.", typeElement);
+            return false;
+        }
+        for (Element enclosed : typeElement.getEnclosedElements()) {
+            if (enclosed.getAnnotation(Extra.class) != null) {
+                messager.printMessage(Diagnostic.Kind.ERROR, "@Extra is only supported on activities.", enclosed);
+                return false;
+            }
+        }
+        return true;
     }
 
-    // route method with context and also a Serializable extra that will be passed in the intent
-    // this also accepts an Intent modifier which gives caller a way of customizing intent
+    // collect @Extra fields of a routeable type
     @Nonnull
-    private MethodSpec getContextSerializableExtraIntentModifierMethod(ClassName activityClass) {
-        return MethodSpec
-                .methodBuilder(METHOD_PREFIX)
-                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
-                .addParameter(classContext, "context")
-                .addParameter(String.class, "key")
-                .addParameter(classSerializable, "serializableExtra")
-                .addParameter(classModifyIntent, "intentModifier")
-                .addStatement("$T intent = new $T( $L, $L )", classIntent, classIntent, "context", activityClass + ".class")
-                .addStatement("intent.putExtra( key, serializableExtra )")
-                .addStatement("intent = intentModifier.modifyIntent( intent )")
-                .addStatement("context.getApplicationContext().startActivity( intent )")
-                .build();
+    private List<ExtraField> getExtras(TypeElement typeElement) {
+        List<ExtraField> extras = new ArrayList<>();
+        Set<String> keyConstants = new HashSet<>();
+        for (Element enclosed : typeElement.getEnclosedElements()) {
+            Extra extra = enclosed.getAnnotation(Extra.class);
+            if (enclosed.getKind() != ElementKind.FIELD || extra == null) {
+                continue;
+            }
+
+            // binder assigns fields directly, so they have to be accessible and assignable
+            Set<Modifier> modifiers = enclosed.getModifiers();
+            if (modifiers.contains(Modifier.PRIVATE) || modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.FINAL)) {
+                messager.printMessage(Diagnostic.Kind.ERROR, "@Extra field can not be private, static or final.", enclosed);
+                continue;
+            }
+
+            // fluent builder gets a setter named after each field
+            if (RouteBuilderGenerator.RESERVED_NAMES.contains(enclosed.getSimpleName().toString())) {
+                messager.printMessage(Diagnostic.Kind.ERROR, "@Extra field name is reserved by router builder: " + enclosed.getSimpleName(), enclosed);
+                continue;
+            }
+
+            // and routeWithExtras a parameter
+            if (ExtraBinderGenerator.RESERVED_NAMES.contains(enclosed.getSimpleName().toString())) {
+                messager.printMessage(Diagnostic.Kind.ERROR, "@Extra field name is reserved by routeWithExtras: " + enclosed.getSimpleName(), enclosed);
+                continue;
+            }
+
+            ExtraField.Kind kind = getExtraKind(enclosed.asType());
+            if (kind == null) {
+                messager.printMessage(Diagnostic.Kind.ERROR, "Unsupported @Extra type: " + enclosed.asType(), enclosed);
+                continue;
+            }
+
+            // binder falls back to a parcel in saved instance state, Bundle is a Parcelable of its own kind
+            if (extra.byReference() && kind != ExtraField.Kind.PARCELABLE && kind != ExtraField.Kind.BUNDLE) {
+                messager.printMessage(Diagnostic.Kind.ERROR, "@Extra(byReference = true) field has to be Parcelable.", enclosed);
+                continue;
+            }
+
+            // router declares a key constant per field, e.g. fooBar and foo_bar would both be EXTRA_FOO_BAR
+            String keyConstant = ExtraField.keyConstant(enclosed.getSimpleName().toString());
+            if (!keyConstants.add(keyConstant)) {
+                messager.printMessage(Diagnostic.Kind.ERROR, "@Extra field has the same key constant as another field: " + keyConstant, enclosed);
+                continue;
+            }
+
+            String key = extra.value().isEmpty() ? enclosed.getSimpleName().toString() : extra.value();
+            extras.add(new ExtraField((VariableElement) enclosed, key, TypeName.get(enclosed.asType()), kind, extra.byReference()));
+        }
+        return extras;
     }
 
+    // maps a field type to typed Intent extra methods, null if Intent can not carry it
+    private ExtraField.Kind getExtraKind(TypeMirror type) {
+        switch (type.getKind()) {
+            case BOOLEAN:
+                return ExtraField.Kind.BOOLEAN;
+            case BYTE:
+                return ExtraField.Kind.BYTE;
+            case CHAR:
+                return ExtraField.Kind.CHAR;
+            case SHORT:
+                return ExtraField.Kind.SHORT;
+            case INT:
+                return ExtraField.Kind.INT;
+            case LONG:
+                return ExtraField.Kind.LONG;
+            case FLOAT:
+                return ExtraField.Kind.FLOAT;
+            case DOUBLE:
+                return ExtraField.Kind.DOUBLE;
+            case DECLARED:
+                break;
+            default:
+                return null;
+        }
 
-    // route method with context and also a Serializable extra that will be passed in the intent
-    // also provides "finishCurrent" flag if true will finish current (caller) activity
-    @Nonnull
-    private MethodSpec getContextSerializableExtraFinishMethod(ClassName activityClass) {
-        return MethodSpec
-                .methodBuilder(METHOD_PREFIX)
-                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
-                .addParameter(classContext, "context")
-                .addParameter(String.class, "key")
-                .addParameter(classSerializable, "serializableExtra")
-                .addParameter(boolean.class, "finishCurrent")
-                .addStatement("$T intent = new $T( $L, $L )", classIntent, classIntent, "context", activityClass + ".class")
-                .addStatement("intent.putExtra( key, serializableExtra )")
-                .addStatement("context.getApplicationContext().startActivity( intent )")
-                .beginControlFlow("if( finishCurrent )")
-                .addStatement("(($T)$L).finish()", classActivity, "context")
-                .endControlFlow()
-                .build();
+        // order matters: String is Serializable and Bundle is Parcelable
+        String typeName = typeUtils.erasure(type).toString();
+        if (typeName.equals(String.class.getCanonicalName())) {
+            return ExtraField.Kind.STRING;
+        }
+        if (typeName.equals(CharSequence.class.getCanonicalName())) {
+            return ExtraField.Kind.CHAR_SEQUENCE;
+        }
+        if (typeName.equals(classBundle.toString())) {
+            return ExtraField.Kind.BUNDLE;
+        }
+        if (isAssignable(type, classParcelable.toString())) {
+            return ExtraField.Kind.PARCELABLE;
+        }
+        if (isAssignable(type, classSerializable.toString())) {
+            return ExtraField.Kind.SERIALIZABLE;
+        }
+        return null;
     }
 
-    // route method with context and also a Serializable extra that will be passed in the intent
-    // also provides "finishCurrent" flag if true will finish current (caller) activity
-    // this also accepts an Intent modifier which gives caller a way of customizing intent
-    @Nonnull
-    private MethodSpec getContextSerializableExtraFinishIntentModifierMethod(ClassName activityClass) {
-        return MethodSpec
-                .methodBuilder(METHOD_PREFIX)
-                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
-                .addParameter(classContext, "context")
-                .addParameter(String.class, "key")
-                .addParameter(classSerializable, "serializableExtra")
-                .addParameter(boolean.class, "finishCurrent")
-                .addParameter(classModifyIntent, "intentModifier")
-                .addStatement("$T intent = new $T( $L, $L )", classIntent, classIntent, "context", activityClass + ".class")
-                .addStatement("intent.putExtra( key, serializableExtra )")
-                .addStatement("intent = intentModifier.modifyIntent( intent )")
-                .addStatement("context.getApplicationContext().startActivity( intent )")
-                .beginControlFlow("if( finishCurrent )")
-                .addStatement("(($T)$L).finish()", classActivity, "context")
-                .endControlFlow()
-                .build();
+    // true if type can be assigned to given class, false if that class is not on compile classpath
+    private boolean isAssignable(TypeMirror type, String className) {
+        TypeElement target = elementUtils.getTypeElement(className);
+        return target != null && typeUtils.isAssignable(type, target.asType());
     }
 
-    // route method with context and also a Parcelable extra that will be passed in the intent
-    @Nonnull
-    private MethodSpec getContextParcelableExtraMethod(ClassName activityClass) {
-        return MethodSpec
-                .methodBuilder(METHOD_PREFIX)
-                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
-                .addParameter(classContext, "context")
-                .addParameter(String.class, "key")
-                .addParameter(classParcelable, "parcelableExtra")
-                .addStatement("$T intent = new $T( $L, $L )", classIntent, classIntent, "context", activityClass + ".class")
-                .addStatement("intent.putExtra( key, parcelableExtra )")
-                .addStatement("context.getApplicationContext().startActivity( intent )")
-                .build();
+    // deep link trie of all paths, encoded for RouteRegistry, null if no route has paths.
+    // Route ids are registry ids, so that a match can be dispatched by RouteRegistry.intent
+    private String[] getDeepLinks(List<Route> routes) {
+        RouteTrie.Builder trie = new RouteTrie.Builder();
+        boolean hasPaths = false;
+        for (Route route : RouteRegistryGenerator.sortById(routes)) {
+            for (String path : route.paths) {
+                try {
+                    trie.add(path, route.id);
+                    hasPaths = true;
+                } catch (IllegalArgumentException e) {
+                    messager.printMessage(Diagnostic.Kind.ERROR, e.getMessage(), route.element);
+                }
+            }
+        }
+        if (!hasPaths) {
+            return null;
+        }
+        try {
+            return trie.encode(RouteRegistryGenerator.CHUNK_SIZE);
+        } catch (IllegalStateException e) {
+            messager.printMessage(Diagnostic.Kind.ERROR, e.getMessage());
+            return null;
+        }
     }
 
+    // write META-INF/routes/<module>.idx so that RouteIndex can merge routes of all modules at runtime
+    private void writeRouteIndex(List<Route> routes) {
+        String[] names = new String[routes.size()];
+        String[] classNames = new String[routes.size()];
+        Element[] originatingElements = new Element[routes.size()];
+        for (int i = 0; i < routes.size(); i++) {
+            names[i] = routes.get(i).name;
+            classNames[i] = routes.get(i).binaryName;
+            originatingElements[i] = routes.get(i).element;
+        }
+        String path = RouteIndex.LOCATION + modulePackage + RouteIndex.EXTENSION;
+        try {
+            FileObject index = filer.createResource(StandardLocation.CLASS_OUTPUT, "", path, originatingElements);
+            try (OutputStream out = index.openOutputStream()) {
+                RouteIndex.write(out, names, classNames);
+            }
+        } catch (IOException e) {
+            // RouteIndex.load of app would miss routes of this module
+            messager.printMessage(Diagnostic.Kind.ERROR, "Can not write route index " + path + ": " + e.getMessage());
+        }
+    }
 
-    // route method with context and also a Parcelable extra that will be passed in the intent
-    // this also accepts an Intent modifier which gives caller a way of customizing intent
-    @Nonnull
-    private MethodSpec getContextParcelableExtraIntentModifierMethod(ClassName activityClass) {
-        return MethodSpec
-                .methodBuilder(METHOD_PREFIX)
-                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
-                .addParameter(classContext, "context")
-                .addParameter(String.class, "key")
-                .addParameter(classParcelable, "parcelableExtra")
-                .addParameter(classModifyIntent, "intentModifier")
-                .addStatement("$T intent = new $T( $L, $L )", classIntent, classIntent, "context", activityClass + ".class")
-                .addStatement("intent.putExtra( key, parcelableExtra )")
-                .addStatement("intent = intentModifier.modifyIntent( intent )")
-                .addStatement("context.getApplicationContext().startActivity( intent )")
-                .build();
+    // validates @RouteInterceptor classes of this round and writes RouteInterceptors with them sorted by priority
+    private void writeInterceptorChain(RoundEnvironment roundEnvironment) {
+        List<TypeElement> interceptors = new ArrayList<>();
+        for (Element element : roundEnvironment.getElementsAnnotatedWith(RouteInterceptor.class)) {
+            if (isValidInterceptor(element)) {
+                interceptors.add((TypeElement) element);
+            }
+        }
+        if (interceptors.isEmpty()) {
+            return;
+        }
+        if (modulePackage == null) {
+            for (TypeElement interceptor : interceptors) {
+                messager.printMessage(Diagnostic.Kind.ERROR, "@RouteInterceptor needs -A" + OPTION_MODULE + " processor option.", interceptor);
+            }
+            return;
+        }
+        // routers of earlier rounds would not call interceptors of this one
+        if (interceptorChain != null || isRouterGenerated) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "@RouteInterceptor on a generated class is not supported, routers are already generated.", interceptors.get(0));
+            return;
+        }
+
+        // stable order for equal priorities, so that output does not depend on compiler
+        Collections.sort(interceptors, new Comparator<TypeElement>() {
+            @Override
+            public int compare(TypeElement first, TypeElement second) {
+                int priority = Integer.compare(first.getAnnotation(RouteInterceptor.class).priority(),
+                        second.getAnnotation(RouteInterceptor.class).priority());
+                return priority != 0 ? priority : first.getQualifiedName().toString().compareTo(second.getQualifiedName().toString());
+            }
+        });
+        writeFile(new SourceFile(modulePackage, RouteInterceptorGenerator.generateChain(interceptors)));
+        interceptorChain = ClassName.get(modulePackage, RouteInterceptorGenerator.CLASS_NAME);
     }
 
+    // public, concrete Interceptor<Context, Intent> that generated code can instantiate
+    private boolean isValidInterceptor(Element element) {
+        if (element.getKind() != ElementKind.CLASS) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "@RouteInterceptor can be only applied to class.", element);
+            return false;
+        }
+        Set<Modifier> modifiers = element.getModifiers();
+        boolean isNested = element.getEnclosingElement().getKind() != ElementKind.PACKAGE;
+        if (!modifiers.contains(Modifier.PUBLIC) || modifiers.contains(Modifier.ABSTRACT)
+                || (isNested && !modifiers.contains(Modifier.STATIC))) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "@RouteInterceptor class has to be public, not abstract and not an inner class.", element);
+            return false;
+        }
+        boolean hasConstructor = false;
+        for (Element enclosed : element.getEnclosedElements()) {
+            if (enclosed.getKind() == ElementKind.CONSTRUCTOR && enclosed.getModifiers().contains(Modifier.PUBLIC)
+                    && ((ExecutableElement) enclosed).getParameters().isEmpty()) {
+                hasConstructor = true;
+            }
+        }
+        if (!hasConstructor) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "@RouteInterceptor class needs a public no-arg constructor.", element);
+            return false;
+        }
+        TypeElement interceptor = elementUtils.getTypeElement(Interceptor.class.getCanonicalName());
+        TypeElement context = elementUtils.getTypeElement("android.content.Context");
+        TypeElement intent = elementUtils.getTypeElement(classIntent.toString());
+        if (interceptor != null && context != null && intent != null && !typeUtils.isAssignable(element.asType(),
+                typeUtils.getDeclaredType(interceptor, context.asType(), intent.asType()))) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "@RouteInterceptor class has to implement Interceptor<Context, Intent>.", element);
+            return false;
+        }
+        return true;
+    }
 
-    // route method with context and also a Parcelable extra that will be passed in the intent
-    // also provides "finishCurrent" flag if true will finish current (caller) activity
-    @Nonnull
-    private MethodSpec getContextParcelableExtraFinishMethod(ClassName activityClass) {
-        return MethodSpec
-                .methodBuilder(METHOD_PREFIX)
-                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
-                .addParameter(classContext, "context")
-                .addParameter(String.class, "key")
-                .addParameter(classParcelable, "parcelableExtra")
-                .addParameter(boolean.class, "finishCurrent")
-                .addStatement("$T intent = new $T( $L, $L )", classIntent, classIntent, "context", activityClass + ".class")
-                .addStatement("intent.putExtra( key, parcelableExtra )")
-                .addStatement("context.getApplicationContext().startActivity( intent )", "context")
-                .beginControlFlow("if( finishCurrent )")
-                .addStatement("(($T)$L).finish()", classActivity, "context")
-                .endControlFlow()
-                .build();
+    // intercept statement of routers, null without interceptors
+    private CodeBlock getIntercept(Route route) {
+        return interceptorChain == null ? null : RouteInterceptorGenerator.intercept(interceptorChain, route);
     }
 
-    // route method with context and also a Parcelable extra that will be passed in the intent
-    // also provides "finishCurrent" flag if true will finish current (caller) activity
-    // this also accepts an Intent modifier which gives caller a way of customizing intent
-    @Nonnull
-    private MethodSpec getContextParcelableExtraFinishIntentModifierMethod(ClassName activityClass) {
-        return MethodSpec
-                .methodBuilder(METHOD_PREFIX)
-                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
-                .addParameter(classContext, "context")
-                .addParameter(String.class, "key")
-                .addParameter(classParcelable, "parcelableExtra")
-                .addParameter(boolean.class, "finishCurrent")
-                .addParameter(classModifyIntent, "intentModifier")
-                .addStatement("$T intent = new $T( $L, $L )", classIntent, classIntent, "context", activityClass + ".class")
-                .addStatement("intent.putExtra( key, parcelableExtra )")
-                .addStatement("intent = intentModifier.modifyIntent( intent )")
-                .addStatement("context.getApplicationContext().startActivity( intent )")
-                .beginControlFlow("if( finishCurrent )")
-                .addStatement("(($T)$L).finish()", classActivity, "context")
-                .endControlFlow()
-                .build();
+    // scans module sources of all rounds so far for router calls, null if compiler does not expose its trees
+    private RouteGraph getRouteGraph(List<Route> routes) {
+        if (trees == null) {
+            messager.printMessage(Diagnostic.Kind.WARNING, "-A" + OPTION_GRAPH + " needs javac, route graph is not generated.");
+            return null;
+        }
+        RouteGraph graph = new RouteGraph(routes, modulePackage);
+        for (CompilationUnitTree unit : graphUnits) {
+            graph.scan(unit);
+        }
+        return graph;
     }
 
-    // simple route for result method that gets context and route to activity using startActivityForResult that annotation was used.
-    private MethodSpec getActivityForResultMethod(ClassName activityClass) {
-        return MethodSpec
-                .methodBuilder(METHOD_PREFIX + "ForResult")
-                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
-                .addParameter(classContext, "context")
-                .addParameter(int.class, "requestCode")
-                .addStatement("(($T)$L).startActivityForResult( new $T($L, $L), requestCode)", classActivity, "context", classIntent, "context", activityClass + ".class")
-                .build();
+    // writes <module package>/route-graph.json next to generated sources and warns about routes that are
+    // never navigated to or only from routes that are never reached
+    private void writeRouteGraph(RouteGraph graph) {
+        // besides entry classes, deep links and routes entered from outside are roots of reachability
+        List<Route> sorted = graph.getRoutes();
+        BitSet roots = new BitSet(sorted.size());
+        for (int id = 0; id < sorted.size(); id++) {
+            if (!sorted.get(id).paths.isEmpty() || isDeadRouteSuppressed(sorted.get(id).element)) {
+                roots.set(id);
+            }
+        }
+        BitSet reachable = graph.getReachable(roots);
+        int[] fanIn = graph.getFanIn();
+        // a module without any root is entered from other modules only, reachability says nothing then
+        boolean hasRoots = graph.hasEntries() || !roots.isEmpty();
+        for (int id = 0; id < sorted.size(); id++) {
+            if (roots.get(id)) {
+                continue;
+            }
+            if (fanIn[id] == 0) {
+                messager.printMessage(Diagnostic.Kind.WARNING, "Route " + sorted.get(id).name + " is never navigated to in this module, use @SuppressWarnings(\"" + SUPPRESS_DEAD_ROUTE + "\") if it is entered from outside (launcher, other modules).", sorted.get(id).element);
+            } else if (hasRoots && !reachable.get(id)) {
+                messager.printMessage(Diagnostic.Kind.WARNING, "Route " + sorted.get(id).name + " is only navigated to from routes that are never reached in this module.", sorted.get(id).element);
+            }
+        }
+
+        Element[] originatingElements = new Element[sorted.size()];
+        for (int i = 0; i < sorted.size(); i++) {
+            originatingElements[i] = sorted.get(i).element;
+        }
+        try {
+            FileObject file = filer.createResource(StandardLocation.SOURCE_OUTPUT, modulePackage, "route-graph.json", originatingElements);
+            try (Writer writer = file.openWriter()) {
+                graph.writeJson(writer, reachable);
+            }
+        } catch (IOException e) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "Can not write route graph of -A" + OPTION_GRAPH + ": " + e.getMessage());
+        }
     }
 
-    // simple route for result method that gets context and route to activity using startActivityForResult that annotation was used.
-    private MethodSpec getActivityForResultIntentModifierMethod(ClassName activityClass) {
-        return MethodSpec
-                .methodBuilder(METHOD_PREFIX + "ForResult")
-                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
-                .addParameter(classContext, "context")
-                .addParameter(int.class, "requestCode")
-                .addParameter(classModifyIntent, "intentModifier")
-                .addStatement("$T intent = new $T($L, $L)", classIntent, classIntent, "context", activityClass + ".class")
-                .addStatement("intent = intentModifier.modifyIntent( intent )")
-                .addStatement("(($T)$L).startActivityForResult( intent, requestCode)", classActivity, "context")
-                .build();
+    private boolean isDeadRouteSuppressed(Element element) {
+        SuppressWarnings suppressWarnings = element.getAnnotation(SuppressWarnings.class);
+        return suppressWarnings != null && Arrays.asList(suppressWarnings.value()).contains(SUPPRESS_DEAD_ROUTE);
     }
 
-    // generate an interface that can be used to modify intent
+    // Generates Router classes for annotated types, using JavaPoet.
+    // In lazy mode this is the package private impl (implClass), builder then goes to facade generated from it
     @Nonnull
-    private TypeSpec.Builder generateInterface() {
+    private TypeSpec.Builder generateClass(Route route, ClassName routerClass, ClassName implClass) {
+
         // Class specification
-        TypeSpec.Builder generatedClass = TypeSpec
-                .interfaceBuilder("IntentModifier")
-                .addModifiers(Modifier.PUBLIC);
+        TypeSpec.Builder generatedClass = implClass == null
+                ? TypeSpec.classBuilder(routerClass).addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+                : TypeSpec.classBuilder(implClass).addModifiers(Modifier.FINAL);
+
+        // template Intent that every navigation copies
+        if (route.isPrototype) {
+            generatedClass.addField(IntentPrototypeGenerator.getPrototypeField());
+            generatedClass.addMethod(IntentPrototypeGenerator.getNewIntentMethod(route, implClass != null));
+            generatedClass.addMethod(IntentPrototypeGenerator.getPrewarmMethod());
+        }
+
+        // guard of RouteRecorder calls, and guard and route name for RouteTracer calls
+        generatedClass.addField(RouteTracingGenerator.getRecordField(implClass != null));
+        if (isTraced) {
+            generatedClass.addFields(RouteTracingGenerator.getFields(route, implClass != null));
+        }
+
+        // navigation gate shared by all route methods, see SingleFlightGenerator
+        if (route.isSingleFlight) {
+            generatedClass.addField(SingleFlightGenerator.getField(route, implClass != null));
+        }
+
+        // fluent builder, covers all combinations of route overloads below
+        if (implClass == null) {
+            generatedClass.addFields(ExtraBinderGenerator.getKeyFields(route));
+            generatedClass.addMethod(RouteBuilderGenerator.getWithMethod(routerClass));
+            generatedClass.addType(RouteBuilderGenerator.generateBuilder(route, routerClass, null, getIntercept(route), isTraced));
+            // routes through builder once feature module is loaded
+            if (route.featureModule != null) {
+                generatedClass.addMethod(RouteAsyncGenerator.getRouteAsyncMethod(route));
+            }
+        }
 
-        generatedClass.addMethod(MethodSpec
-                .methodBuilder("modifyIntent")
-                .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
-                .addParameter(classIntent, "intent")
-                .returns(classIntent)
-                .build());
+        // typed route method for @Extra fields
+        if (!route.extras.isEmpty()) {
+            MethodSpec routeWithExtras = ExtraBinderGenerator.getRouteWithExtrasMethod(route,
+                    implClass == null ? null : routerClass, getIntercept(route), isTraced);
+            generatedClass.addMethod(route.isSingleFlight ? SingleFlightGenerator.gate(routeWithExtras, null) : routeWithExtras);
+        }
+
+        if (!isLegacyOverloadsEnabled) {
+            return generatedClass;
+        }
 
+        // add static route overloads, see RouteMethodTemplates
+        List<MethodSpec> overloads = methodTemplates.build(route, getIntercept(route), isTraced);
+        generatedClass.addMethods(route.isSingleFlight ? SingleFlightGenerator.gate(overloads) : overloads);
 
+        // return generated class
         return generatedClass;
     }
 
 
     @Override
     public Set<String> getSupportedAnnotationTypes() {
-        return ImmutableSet.of(Routeable.class.getCanonicalName());
+        return ImmutableSet.of(Routeable.class.getCanonicalName(), Extra.class.getCanonicalName(),
+                RouteInterceptor.class.getCanonicalName());
+    }
+
+    // module level outputs (RouteRegistry, size report) aggregate all routes, so processor is only isolating without
+    // them: aggregating processors get every annotated class of module again, isolating ones only the recompiled.
+    // Route graph reads every source of module, not only annotated ones, so it is not incremental at all
+    @Override
+    public Set<String> getSupportedOptions() {
+        ImmutableSet.Builder<String> options = ImmutableSet.<String>builder()
+                .add(OPTION_MODULE, OPTION_LEGACY_OVERLOADS, OPTION_TRACE, OPTION_LAZY, OPTION_GRAPH, OPTION_THREADS, OPTION_REPORT);
+        if (!isGraphEnabled) {
+            options.add(modulePackage == null && report == null ? GRADLE_ISOLATING : GRADLE_AGGREGATING);
+        }
+        return options.build();
     }
 
     @Override
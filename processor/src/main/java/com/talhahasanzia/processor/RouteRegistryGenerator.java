@@ -0,0 +1,274 @@
+package com.talhahasanzia.processor;
+
+import com.squareup.javapoet.ArrayTypeName;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.TypeSpec;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+import javax.lang.model.element.Modifier;
+
+// Generates one RouteRegistry per module, a class-free dispatch table from route id / route name to an Intent factory.
+// Route ids are hashes of route names (see Route.id), so adding or removing other routes never changes them and ids
+// that javac inlined into other modules stay valid. Tables are sorted by id: lookup of an id is a binary search over
+// an int[], a name is hashed and checked against its entry, dispatch by id is a switch, no reflection, no boxing and
+// target activity class is only loaded when its case is actually taken.
+final class RouteRegistryGenerator {
+
+    static final String CLASS_NAME = "RouteRegistry";
+    // encoded deep link trie and route graph are split into string constants of this many chars, class file limit is 65535 UTF-8 bytes
+    static final int CHUNK_SIZE = 16384;
+
+    private static final ClassName classIntent = ClassName.get("android.content", "Intent");
+    private static final ClassName classContext = ClassName.get("android.content", "Context");
+    private static final ClassName classRouteTrie = ClassName.get("com.talhahasanzia.runtime", "RouteTrie");
+    private static final ClassName classMatch = classRouteTrie.nestedClass("Match");
+
+    private RouteRegistryGenerator() {
+    }
+
+    // sorts routes by id, index in returned list is the index of route in tables of RouteRegistry
+    @Nonnull
+    static List<Route> sortById(List<Route> routes) {
+        List<Route> sorted = new ArrayList<>(routes);
+        Collections.sort(sorted, new Comparator<Route>() {
+            @Override
+            public int compare(Route first, Route second) {
+                return Integer.compare(first.id, second.id);
+            }
+        });
+        return sorted;
+    }
+
+    // deepLinks is the encoded RouteTrie of @Routeable(paths), null if module has no deep links,
+    // targets is the encoded route graph for prewarmTargets, null without -Arouter.graph,
+    // interceptorChain is RouteInterceptors of module, null if module has no @RouteInterceptor
+    @Nonnull
+    static TypeSpec.Builder generate(List<Route> routes, String[] deepLinks, String[] targets, boolean isLazy,
+                                     ClassName interceptorChain) {
+        List<Route> sorted = sortById(routes);
+
+        TypeSpec.Builder generatedClass = TypeSpec
+                .classBuilder(CLASS_NAME)
+                .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+                .addMethod(MethodSpec.constructorBuilder().addModifiers(Modifier.PRIVATE).build());
+
+        // route id constants, sorted ids and names of the same index
+        CodeBlock.Builder ids = CodeBlock.builder().add("{");
+        CodeBlock.Builder names = CodeBlock.builder().add("{");
+        for (int index = 0; index < sorted.size(); index++) {
+            Route route = sorted.get(index);
+            generatedClass.addOriginatingElement(route.element);
+            generatedClass.addField(FieldSpec
+                    .builder(int.class, constantName(route.name), Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL)
+                    .initializer("$L", route.id)
+                    .build());
+            ids.add(index == 0 ? "$L" : ", $L", route.id);
+            names.add(index == 0 ? "$S" : ", $S", route.name);
+        }
+        ids.add("}");
+        names.add("}");
+        generatedClass.addField(FieldSpec
+                .builder(int[].class, "IDS", Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                .initializer(ids.build())
+                .build());
+        generatedClass.addField(FieldSpec
+                .builder(ArrayTypeName.of(String.class), "NAMES", Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                .initializer(names.build())
+                .build());
+        generatedClass.addField(RouteTracingGenerator.getRecordField(false));
+
+        // name -> id, same hash as Route.id
+        generatedClass.addMethod(MethodSpec
+                .methodBuilder("idOf")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameter(String.class, "name")
+                .returns(int.class)
+                .addStatement("int id = name.hashCode() & $T.MAX_VALUE", Integer.class)
+                .addStatement("int index = $T.binarySearch(IDS, id)", Arrays.class)
+                .addStatement("return index >= 0 && NAMES[index].equals(name) ? id : -1")
+                .build());
+
+        // id -> name
+        generatedClass.addMethod(MethodSpec
+                .methodBuilder("nameOf")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameter(int.class, "routeId")
+                .returns(String.class)
+                .addStatement("return NAMES[indexOf(routeId)]")
+                .build());
+
+        // id -> index into tables
+        generatedClass.addMethod(MethodSpec
+                .methodBuilder("indexOf")
+                .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+                .addParameter(int.class, "routeId")
+                .returns(int.class)
+                .addStatement("int index = $T.binarySearch(IDS, routeId)", Arrays.class)
+                .beginControlFlow("if (index < 0)")
+                .addStatement("throw new $T($S + routeId)", IllegalArgumentException.class, "Unknown route id: ")
+                .endControlFlow()
+                .addStatement("return index")
+                .build());
+
+        generatedClass.addMethod(MethodSpec
+                .methodBuilder("size")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .returns(int.class)
+                .addStatement("return NAMES.length")
+                .build());
+
+        // id -> intent factory
+        MethodSpec.Builder intentMethod = MethodSpec
+                .methodBuilder("intent")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameter(int.class, "routeId")
+                .addParameter(classContext, "context")
+                .returns(classIntent)
+                .beginControlFlow("switch (routeId)");
+        for (Route route : sorted) {
+            intentMethod.addStatement("case $L: return new $T(context, $T.class)", route.id, classIntent, route.activityClass);
+        }
+        intentMethod.addStatement("default: throw new $T($S + routeId)", IllegalArgumentException.class, "Unknown route id: ")
+                .endControlFlow();
+        generatedClass.addMethod(intentMethod.build());
+
+        // starts intent of a route, same interceptors as routers of module see it first, recorded like navigations of routers
+        MethodSpec.Builder startMethod = MethodSpec
+                .methodBuilder("start")
+                .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+                .addParameter(int.class, "routeId")
+                .addParameter(classContext, "context")
+                .addParameter(classIntent, "intent")
+                .returns(boolean.class)
+                .addCode(RouteTracingGenerator.record(CodeBlock.of("routeId"), CodeBlock.of("0"), null));
+        if (interceptorChain != null) {
+            startMethod.beginControlFlow("if (!$T.proceed( context, nameOf(routeId), intent ))", interceptorChain)
+                    .addStatement("return false")
+                    .endControlFlow();
+        }
+        generatedClass.addMethod(startMethod
+                .addStatement("context.startActivity( intent )")
+                .addStatement("return true")
+                .build());
+
+        // route by id, returns false if an interceptor cancelled navigation
+        generatedClass.addMethod(MethodSpec
+                .methodBuilder("route")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameter(int.class, "routeId")
+                .addParameter(classContext, "context")
+                .returns(boolean.class)
+                .addStatement("return start(routeId, context, intent(routeId, context))")
+                .build());
+
+        // route by name, returns false if no such route exists in this module or an interceptor cancelled navigation
+        generatedClass.addMethod(MethodSpec
+                .methodBuilder("route")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameter(String.class, "name")
+                .addParameter(classContext, "context")
+                .returns(boolean.class)
+                .addStatement("int id = idOf(name)")
+                .beginControlFlow("if (id < 0)")
+                .addStatement("return false")
+                .endControlFlow()
+                .addStatement("return route(id, context)")
+                .build());
+
+        if (deepLinks != null) {
+            addDeepLinks(generatedClass, deepLinks);
+        }
+        RoutePrewarmGenerator.addPrewarm(generatedClass, sorted, targets, isLazy);
+
+        return generatedClass;
+    }
+
+    // trie is decoded on first match by holder class, so apps that never open a deep link do not pay for it
+    private static void addDeepLinks(TypeSpec.Builder generatedClass, String[] deepLinks) {
+        CodeBlock.Builder chunks = CodeBlock.builder();
+        for (int i = 0; i < deepLinks.length; i++) {
+            chunks.add(i == 0 ? "$S" : ",\n$S", deepLinks[i]);
+        }
+        generatedClass.addType(TypeSpec
+                .classBuilder("DeepLinks")
+                .addModifiers(Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                .addField(FieldSpec
+                        .builder(classRouteTrie, "TRIE", Modifier.STATIC, Modifier.FINAL)
+                        .initializer("$T.decode($L)", classRouteTrie, chunks.build())
+                        .build())
+                .build());
+
+        // uri -> route id and params
+        generatedClass.addMethod(MethodSpec
+                .methodBuilder("match")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameter(String.class, "uri")
+                .returns(classMatch)
+                .addStatement("return DeepLinks.TRIE.match(uri)")
+                .build());
+
+        // uri -> intent, params are put as String extras, null if no path matches
+        generatedClass.addMethod(MethodSpec
+                .methodBuilder("intent")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameter(String.class, "uri")
+                .addParameter(classContext, "context")
+                .returns(classIntent)
+                .addStatement("$T match = match(uri)", classMatch)
+                .addStatement("return match == null ? null : intent(match, context)")
+                .build());
+
+        generatedClass.addMethod(MethodSpec
+                .methodBuilder("intent")
+                .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+                .addParameter(classMatch, "match")
+                .addParameter(classContext, "context")
+                .returns(classIntent)
+                .addStatement("$T intent = intent(match.routeId, context)", classIntent)
+                .beginControlFlow("for (int i = 0; i < match.size(); i++)")
+                .addStatement("intent.putExtra(match.name(i), match.value(i))")
+                .endControlFlow()
+                .addStatement("return intent")
+                .build());
+
+        // route by uri, returns false if no path matches or an interceptor cancelled navigation
+        generatedClass.addMethod(MethodSpec
+                .methodBuilder("routeUri")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameter(String.class, "uri")
+                .addParameter(classContext, "context")
+                .returns(boolean.class)
+                .addStatement("$T match = match(uri)", classMatch)
+                .beginControlFlow("if (match == null)")
+                .addStatement("return false")
+                .endControlFlow()
+                .addStatement("return start(match.routeId, context, intent(match, context))")
+                .build());
+    }
+
+    // "SecondActivity" -> "SECOND_ACTIVITY", "orders/detail" -> "ORDERS_DETAIL"
+    @Nonnull
+    static String constantName(String name) {
+        StringBuilder constant = new StringBuilder(name.length() + 8);
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (Character.isUpperCase(c) && i > 0 && Character.isLowerCase(name.charAt(i - 1))) {
+                constant.append('_');
+            }
+            constant.append(Character.isLetterOrDigit(c) ? Character.toUpperCase(c) : '_');
+        }
+        if (constant.length() == 0 || Character.isDigit(constant.charAt(0))) {
+            constant.insert(0, '_');
+        }
+        return constant.toString();
+    }
+}
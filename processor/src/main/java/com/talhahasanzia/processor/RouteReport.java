@@ -0,0 +1,146 @@
+package com.talhahasanzia.processor;
+
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+import javax.lang.model.element.Modifier;
+
+// Size of generated code per route (-Arouter.report), for modules that have to stay within dex size and method
+// count budgets. Counts methods and their parameters in every class generated for a route: router with its builder,
+// impl in lazy mode and binder, including constructors and static initializers javac adds. Methods are what dex limits;
+// code size is left to the dex tools.
+final class RouteReport {
+
+    // literal of a constant field
+    private static final Pattern CONSTANT = Pattern.compile("\"(?:[^\"\\\\]|\\\\.)*\"|-?\\d+[LlFfDd]?|true|false");
+
+    private final boolean isLegacyOverloadsEnabled;
+    // binary name of activity -> stats, routers of all rounds, sorted so that report does not depend on scheduling
+    private final Map<String, Stats> routes = new TreeMap<>();
+
+    RouteReport(boolean isLegacyOverloadsEnabled) {
+        this.isLegacyOverloadsEnabled = isLegacyOverloadsEnabled;
+    }
+
+    // called from generation threads
+    synchronized void add(Route route, List<SourceFile> files) {
+        Stats stats = new Stats(route);
+        for (SourceFile file : files) {
+            stats.classes.add(file.getQualifiedName());
+            stats.add(file.getTypeSpec());
+        }
+        routes.put(route.binaryName, stats);
+    }
+
+    synchronized boolean isEmpty() {
+        return routes.isEmpty();
+    }
+
+    // compact JSON: module totals, then routes by class name
+    synchronized void writeJson(Appendable out) throws IOException {
+        int methods = 0;
+        for (Stats stats : routes.values()) {
+            methods += stats.methods;
+        }
+        out.append("{\"routers\":").append(String.valueOf(routes.size()));
+        out.append(",\"methods\":").append(String.valueOf(methods));
+        out.append(",\"routes\":[");
+        boolean isFirst = true;
+        for (Stats stats : routes.values()) {
+            out.append(isFirst ? "{" : ",{");
+            out.append("\"name\":");
+            appendString(out, stats.route.name);
+            out.append(",\"class\":");
+            appendString(out, stats.route.binaryName);
+            out.append(",\"methods\":").append(String.valueOf(stats.methods));
+            out.append(",\"parameters\":").append(String.valueOf(stats.parameters));
+            out.append(",\"overloads\":[");
+            // component routers have no overloads
+            if (isLegacyOverloadsEnabled && stats.route.target == Route.Target.ACTIVITY) {
+                appendNames(out, new ArrayList<Object>(stats.route.overloads));
+            }
+            out.append("],\"generated\":[");
+            appendNames(out, new ArrayList<Object>(stats.classes));
+            out.append("]}");
+            isFirst = false;
+        }
+        out.append("]}\n");
+    }
+
+    // final primitive or String field of a literal, inlined by javac and set without code
+    private static boolean isConstant(FieldSpec field) {
+        return field.hasModifier(Modifier.FINAL)
+                && (field.type.isPrimitive() || field.type.equals(TypeName.get(String.class)))
+                && CONSTANT.matcher(field.initializer.toString()).matches();
+    }
+
+    private static void appendNames(Appendable out, List<Object> names) throws IOException {
+        for (int i = 0; i < names.size(); i++) {
+            if (i > 0) {
+                out.append(",");
+            }
+            appendString(out, names.get(i).toString());
+        }
+    }
+
+    private static void appendString(Appendable out, String value) throws IOException {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.append('\\').append(c);
+            } else if (c < 0x20) {
+                out.append(String.format("\\u%04x", (int) c));
+            } else {
+                out.append(c);
+            }
+        }
+        out.append('"');
+    }
+
+    private static final class Stats {
+
+        private final Route route;
+        // qualified names of generated files
+        private final List<String> classes = new ArrayList<>();
+        private int methods;
+        // parameters of all methods, each one is part of a method prototype in dex
+        private int parameters;
+
+        Stats(Route route) {
+            this.route = route;
+        }
+
+        // methods of a class and its nested classes, with constructor javac adds to classes without one
+        void add(TypeSpec type) {
+            boolean hasConstructor = false;
+            for (MethodSpec method : type.methodSpecs) {
+                methods++;
+                parameters += method.parameters.size();
+                hasConstructor |= method.isConstructor();
+            }
+            if (!hasConstructor && type.kind == TypeSpec.Kind.CLASS) {
+                methods++;
+            }
+            // static initializer of static fields that are no constants
+            for (FieldSpec field : type.fieldSpecs) {
+                if (field.hasModifier(Modifier.STATIC) && !field.initializer.isEmpty() && !isConstant(field)) {
+                    methods++;
+                    break;
+                }
+            }
+            for (TypeSpec nested : type.typeSpecs) {
+                add(nested);
+            }
+        }
+    }
+}
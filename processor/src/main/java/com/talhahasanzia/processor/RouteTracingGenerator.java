@@ -0,0 +1,129 @@
+package com.talhahasanzia.processor;
+
+import com.google.common.collect.ImmutableList;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.talhahasanzia.annotation.Routeable;
+
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.Nonnull;
+import javax.lang.model.element.Modifier;
+
+// Generates RouteRecorder calls of every router and RouteTracer calls of -Arouter.trace=true. Both are guarded by static
+// final booleans that router reads from RouteTracing once, so without an installed recorder or tracer JIT/ART folds
+// them away. Generated methods first record route id and flags of the overload families of method, then traced ones
+// mark traceStart, traceBuilt (intent and extras ready), traceModified (IntentModifier done) and report right after
+// activity is started.
+final class RouteTracingGenerator {
+
+    static final String RECORD_FIELD = "RECORD";
+    static final String TRACE_FIELD = "TRACE";
+    static final String ROUTE_FIELD = "ROUTE_NAME";
+
+    private static final ClassName classRouteTracing = ClassName.get("com.talhahasanzia.runtime", "RouteTracing");
+    private static final ClassName classRouteRecorder = ClassName.get("com.talhahasanzia.runtime", "RouteRecorder");
+
+    static final CodeBlock traceStart = mark("traceStart", null);
+    static final CodeBlock traceBuilt = mark("traceBuilt", null);
+    static final CodeBlock traceModified = mark("traceModified", null);
+
+    private RouteTracingGenerator() {
+    }
+
+    // recorder guard of every router, package private if isShared
+    @Nonnull
+    static FieldSpec getRecordField(boolean isShared) {
+        return FieldSpec
+                .builder(boolean.class, RECORD_FIELD, modifiers(isShared))
+                .initializer("$T.isRecording()", classRouteTracing)
+                .build();
+    }
+
+    // guard and route name of a traced router, package private if isShared
+    @Nonnull
+    static List<FieldSpec> getFields(Route route, boolean isShared) {
+        Modifier[] modifiers = modifiers(isShared);
+        FieldSpec trace = FieldSpec
+                .builder(boolean.class, TRACE_FIELD, modifiers)
+                .initializer("$T.isEnabled()", classRouteTracing)
+                .build();
+        FieldSpec routeName = FieldSpec
+                .builder(String.class, ROUTE_FIELD, modifiers)
+                .initializer("$S", route.name)
+                .build();
+        return ImmutableList.of(trace, routeName);
+    }
+
+    // records start of navigation to installed recorder, overloads are RouteRecorder flags.
+    // owner is the class that declares the guard when used outside of it (builder of a lazy router), null inside
+    @Nonnull
+    static CodeBlock record(Route route, CodeBlock overloads, ClassName owner) {
+        return record(CodeBlock.of("$L", route.id), overloads, owner);
+    }
+
+    // routeId is an int expression
+    @Nonnull
+    static CodeBlock record(CodeBlock routeId, CodeBlock overloads, ClassName owner) {
+        return CodeBlock.builder()
+                .beginControlFlow("if ($L)", field(RECORD_FIELD, owner))
+                .addStatement("$T.onRouteStart( $L, $L )", classRouteTracing, routeId, overloads)
+                .endControlFlow()
+                .build();
+    }
+
+    // reports marks to installed tracer, extras is an int expression
+    @Nonnull
+    static CodeBlock report(CodeBlock extras) {
+        return report(extras, null);
+    }
+
+    // owner as of start
+    @Nonnull
+    static CodeBlock report(CodeBlock extras, ClassName owner) {
+        return CodeBlock.builder()
+                .beginControlFlow("if ($L)", field(TRACE_FIELD, owner))
+                .addStatement("$T.onRoute( $L, traceStart, traceBuilt, traceModified, $L )",
+                        classRouteTracing, field(ROUTE_FIELD, owner), extras)
+                .endControlFlow()
+                .build();
+    }
+
+    // RouteRecorder flag, e.g. EXTRAS
+    @Nonnull
+    static CodeBlock overloads(String flag) {
+        return CodeBlock.of("$T.$L", classRouteRecorder, flag);
+    }
+
+    // RouteRecorder flags of overload families, constants have the names of Routeable.Overload
+    @Nonnull
+    static CodeBlock overloads(Set<Routeable.Overload> families) {
+        if (families.isEmpty()) {
+            return CodeBlock.of("0");
+        }
+        CodeBlock.Builder flags = CodeBlock.builder();
+        for (Routeable.Overload family : families) {
+            flags.add(flags.isEmpty() ? "$T.$L" : " | $T.$L", classRouteRecorder, family.name());
+        }
+        return flags.build();
+    }
+
+    @Nonnull
+    static CodeBlock mark(String name, ClassName owner) {
+        return CodeBlock.builder().addStatement("long $L = $L ? System.nanoTime() : 0L", name, field(TRACE_FIELD, owner)).build();
+    }
+
+    @Nonnull
+    private static Modifier[] modifiers(boolean isShared) {
+        return isShared
+                ? new Modifier[]{Modifier.STATIC, Modifier.FINAL}
+                : new Modifier[]{Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL};
+    }
+
+    @Nonnull
+    static CodeBlock field(String field, ClassName owner) {
+        return owner == null ? CodeBlock.of("$L", field) : CodeBlock.of("$T.$L", owner, field);
+    }
+}
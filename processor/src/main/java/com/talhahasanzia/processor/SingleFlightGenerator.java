@@ -0,0 +1,65 @@
+package com.talhahasanzia.processor;
+
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.MethodSpec;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+import javax.lang.model.element.Modifier;
+
+// Generates navigation gate of @Routeable(singleFlight = true): one SingleFlight per route in a static field, and
+// every route method of the router (overloads, routeWithExtras, builder go()) wrapped in tryAcquire / release.
+// Dropped calls return before an Intent is built.
+final class SingleFlightGenerator {
+
+    static final String FIELD = "SINGLE_FLIGHT";
+
+    private static final ClassName classSingleFlight = ClassName.get("com.talhahasanzia.runtime", "SingleFlight");
+
+    private SingleFlightGenerator() {
+    }
+
+    // gate of a route, package private if isShared
+    @Nonnull
+    static FieldSpec getField(Route route, boolean isShared) {
+        FieldSpec.Builder field = isShared
+                ? FieldSpec.builder(classSingleFlight, FIELD, Modifier.STATIC, Modifier.FINAL)
+                : FieldSpec.builder(classSingleFlight, FIELD, Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL);
+        return field.initializer("new $T( $LL )", classSingleFlight, route.singleFlightMillis).build();
+    }
+
+    @Nonnull
+    static List<MethodSpec> gate(List<MethodSpec> methods) {
+        List<MethodSpec> gated = new ArrayList<>(methods.size());
+        for (MethodSpec method : methods) {
+            gated.add(gate(method, null));
+        }
+        return gated;
+    }
+
+    // same void method, body runs only if gate lets it through. owner is the class that declares the gate when used
+    // outside of it (builder of a lazy router), null inside
+    @Nonnull
+    static MethodSpec gate(MethodSpec method, ClassName owner) {
+        CodeBlock field = RouteTracingGenerator.field(FIELD, owner);
+        return MethodSpec
+                .methodBuilder(method.name)
+                .addModifiers(method.modifiers)
+                .addAnnotations(method.annotations)
+                .addParameters(method.parameters)
+                .varargs(method.varargs)
+                .beginControlFlow("if (!$L.tryAcquire())", field)
+                .addStatement("return")
+                .endControlFlow()
+                .beginControlFlow("try")
+                .addCode(method.code)
+                .nextControlFlow("finally")
+                .addStatement("$L.release()", field)
+                .endControlFlow()
+                .build();
+    }
+}
@@ -0,0 +1,49 @@
+package com.talhahasanzia.processor;
+
+import com.squareup.javapoet.JavaFile;
+import com.squareup.javapoet.TypeSpec;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import javax.annotation.processing.Filer;
+import javax.lang.model.element.Element;
+import javax.tools.JavaFileObject;
+
+// A generated .java file, built and rendered to text up front so that only Filer write is left for compiler thread.
+// Text is exactly what JavaFile.writeTo(filer) would write.
+final class SourceFile {
+
+    private final TypeSpec typeSpec;
+    private final String qualifiedName;
+    private final Element[] originatingElements;
+    private final String content;
+
+    // builds and renders given class, pure CPU work, safe to run off compiler thread
+    SourceFile(String packageName, TypeSpec.Builder generatedClass) {
+        this.typeSpec = generatedClass.build();
+        this.qualifiedName = packageName.isEmpty() ? typeSpec.name : packageName + "." + typeSpec.name;
+        this.originatingElements = typeSpec.originatingElements.toArray(new Element[0]);
+        this.content = JavaFile.builder(packageName, typeSpec).build().toString();
+    }
+
+    TypeSpec getTypeSpec() {
+        return typeSpec;
+    }
+
+    String getQualifiedName() {
+        return qualifiedName;
+    }
+
+    Element[] getOriginatingElements() {
+        return originatingElements;
+    }
+
+    // write a .java class using filer, has to run on compiler thread
+    void writeTo(Filer filer) throws IOException {
+        JavaFileObject sourceFile = filer.createSourceFile(qualifiedName, originatingElements);
+        try (Writer writer = sourceFile.openWriter()) {
+            writer.write(content);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.talhahasanzia.processor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+
+// Memo of "class extends one of baseClasses" checks, kept by processor for the whole compilation. Superclass chain is
+// walked until a class with known answer, and every class on the way is remembered, so activities sharing deep base
+// classes cost one lookup each instead of a full Types.isSubtype walk. Keyed by binary name, not by TypeElement:
+// javac 8 creates new elements every round, elements of an earlier round are not equal to those of current one.
+final class SubtypeCache {
+
+    // result of classes that extend none of base classes
+    static final String NONE = "";
+
+    private final Elements elementUtils;
+    private final Set<String> baseClasses;
+    // binary name -> base class it extends, NONE if none
+    private final Map<String, String> subtypes = new HashMap<>();
+
+    SubtypeCache(Elements elementUtils, String... baseClasses) {
+        this.elementUtils = elementUtils;
+        this.baseClasses = new HashSet<>(Arrays.asList(baseClasses));
+    }
+
+    // binary name of the base class type extends, NONE if it extends none of them, null if a superclass does not
+    // exist (yet), e.g. it is generated in a later round, nothing is remembered then
+    String getBaseClass(TypeElement type) {
+        List<String> path = new ArrayList<>();
+        TypeElement current = type;
+        String result;
+        while (true) {
+            String name = elementUtils.getBinaryName(current).toString();
+            result = subtypes.get(name);
+            if (result != null) {
+                break;
+            }
+            path.add(name);
+            if (baseClasses.contains(name)) {
+                result = name;
+                break;
+            }
+            TypeMirror superclass = current.getSuperclass();
+            if (superclass.getKind() == TypeKind.NONE) {
+                result = NONE;
+                break;
+            }
+            if (superclass.getKind() != TypeKind.DECLARED) {
+                return null;
+            }
+            current = (TypeElement) ((DeclaredType) superclass).asElement();
+        }
+        for (String name : path) {
+            subtypes.put(name, result);
+        }
+        return result;
+    }
+}
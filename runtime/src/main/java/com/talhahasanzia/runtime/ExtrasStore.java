@@ -0,0 +1,120 @@
+package com.talhahasanzia.runtime;
+
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+// In-process store of @Extra(byReference = true) values. Router puts a value here and only its long token travels
+// in the Intent, so large objects are neither marshalled nor limited by binder transaction size; binder of the
+// target activity gets the same instance back. A value is held strongly only until a binder takes it, from then on
+// the activity field keeps it alive and the store only weakly, for binding again. Values that were never taken are
+// held strongly up to `capacity` of them in LRU order, older ones only weakly, so the store keeps at most capacity
+// objects alive, all of them values of navigations whose activity has not bound yet. Weak entries are bounded to
+// 4 * capacity tokens.
+// Tokens carry a random per-process prefix: a token of a previous process (activity recreated after process death)
+// never resolves, and binders fall back to the parcel saved in instance state.
+public final class ExtrasStore {
+
+    // token of null value, never resolves
+    public static final long NO_TOKEN = 0L;
+    // appended to extra key for the key of its token
+    public static final String TOKEN_SUFFIX = "#token";
+
+    private static final int DEFAULT_CAPACITY = 32;
+    private static final ExtrasStore DEFAULT = new ExtrasStore(DEFAULT_CAPACITY);
+
+    private final int capacity;
+    private final long process = (long) new Random().nextInt() << 32;
+
+    // guarded by this, both in access order
+    private final LinkedHashMap<Long, Object> strong = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<Long, WeakReference<Object>> weak = new LinkedHashMap<>(16, 0.75f, true);
+    private int counter;
+
+    public ExtrasStore(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity <= 0: " + capacity);
+        }
+        this.capacity = capacity;
+    }
+
+    // store generated routers and binders use
+    public static ExtrasStore getDefault() {
+        return DEFAULT;
+    }
+
+    // stores value, returns its token, NO_TOKEN for null
+    public synchronized long put(Object value) {
+        if (value == null) {
+            return NO_TOKEN;
+        }
+        // low 32 bits are never 0, so that no token is NO_TOKEN
+        counter = counter == -1 ? 1 : counter + 1;
+        long token = process | (counter & 0xFFFFFFFFL);
+        strong.put(token, value);
+        if (strong.size() > capacity) {
+            Iterator<Map.Entry<Long, Object>> eldest = strong.entrySet().iterator();
+            Map.Entry<Long, Object> entry = eldest.next();
+            eldest.remove();
+            demote(entry.getKey(), entry.getValue());
+        }
+        return token;
+    }
+
+    // value of token, or fallback if token is unknown, from another process or its value was collected.
+    // Value stays in store, so that binding again (e.g. after configuration change) gets the same instance
+    @SuppressWarnings("unchecked")
+    public synchronized <T> T get(long token, T fallback) {
+        if (token == NO_TOKEN) {
+            return fallback;
+        }
+        Object value = strong.get(token);
+        if (value == null) {
+            WeakReference<Object> reference = weak.get(token);
+            value = reference == null ? null : reference.get();
+        }
+        return value == null ? fallback : (T) value;
+    }
+
+    // same as get, and hands value over to caller: store keeps only a weak reference to it from now on.
+    // Generated binders take values, a value still resolves while the activity it was bound to holds it
+    public synchronized <T> T take(long token, T fallback) {
+        if (token == NO_TOKEN) {
+            return fallback;
+        }
+        Object value = strong.remove(token);
+        if (value != null) {
+            demote(token, value);
+        }
+        return get(token, fallback);
+    }
+
+    public synchronized void clear() {
+        strong.clear();
+        weak.clear();
+    }
+
+    // number of values held strongly, put and not taken yet
+    public synchronized int size() {
+        return strong.size();
+    }
+
+    // weak entries are bounded too, cleared ones go first, then least recently used
+    private void demote(long token, Object value) {
+        weak.put(token, new WeakReference<>(value));
+        if (weak.size() <= capacity * 4) {
+            return;
+        }
+        for (Iterator<WeakReference<Object>> references = weak.values().iterator(); references.hasNext(); ) {
+            if (references.next().get() == null) {
+                references.remove();
+            }
+        }
+        for (Iterator<Long> tokens = weak.keySet().iterator(); weak.size() > capacity * 4; ) {
+            tokens.next();
+            tokens.remove();
+        }
+    }
+}
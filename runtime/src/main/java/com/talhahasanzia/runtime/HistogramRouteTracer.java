@@ -0,0 +1,60 @@
+package com.talhahasanzia.runtime;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Reference RouteTracer, aggregates lock-free latency histograms per route.
+// Route names are constants of generated routers, so after first navigation of a route recording does not allocate.
+public final class HistogramRouteTracer implements RouteTracer {
+
+    private final ConcurrentMap<String, RouteStats> stats = new ConcurrentHashMap<>();
+
+    @Override
+    public void onRoute(String route, long buildNanos, long modifierNanos, long startNanos, int extras) {
+        RouteStats routeStats = stats.get(route);
+        if (routeStats == null) {
+            RouteStats created = new RouteStats();
+            routeStats = stats.putIfAbsent(route, created);
+            if (routeStats == null) {
+                routeStats = created;
+            }
+        }
+        routeStats.build.record(buildNanos);
+        routeStats.modifier.record(modifierNanos);
+        routeStats.start.record(startNanos);
+        routeStats.total.record(buildNanos + modifierNanos + startNanos);
+        if (extras > 0) {
+            routeStats.extras.addAndGet(extras);
+        }
+    }
+
+    // stats of given route, null if it was never traced
+    public RouteStats stats(String route) {
+        return stats.get(route);
+    }
+
+    // live view of stats of every traced route
+    public Map<String, RouteStats> stats() {
+        return Collections.unmodifiableMap(stats);
+    }
+
+    public static final class RouteStats {
+
+        // building intent, including extras
+        public final LatencyHistogram build = new LatencyHistogram();
+        // IntentModifier, 0 when none was used
+        public final LatencyHistogram modifier = new LatencyHistogram();
+        // startActivity call
+        public final LatencyHistogram start = new LatencyHistogram();
+        // route call to startActivity returning
+        public final LatencyHistogram total = new LatencyHistogram();
+        // total number of extras put by routers
+        public final AtomicLong extras = new AtomicLong();
+
+        RouteStats() {
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.talhahasanzia.runtime;
+
+// Gives caller a way of customizing intent before generated routers use it.
+// Lives in a shared artifact (instead of being generated next to the first annotated class)
+// so that every generated router has exactly one originating element, keeping the processor "isolating".
+// I is android.content.Intent in generated code, kept generic so this module does not need android classes.
+public interface IntentModifier<I> {
+
+    I modifyIntent(I intent);
+}
@@ -0,0 +1,10 @@
+package com.talhahasanzia.runtime;
+
+// Global hook of @RouteInterceptor classes, called by generated routers on navigating thread with the final intent,
+// after extras and IntentModifier and right before startActivity. Returning false cancels the navigation and
+// skips remaining interceptors. C and I are android.content.Context and Intent in generated code.
+public interface Interceptor<C, I> {
+
+    // route is route name, intent can be changed in place (flags, extras)
+    boolean intercept(C context, String route, I intent);
+}
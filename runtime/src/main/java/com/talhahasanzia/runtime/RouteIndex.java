@@ -0,0 +1,178 @@
+package com.talhahasanzia.runtime;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+// Merged view of route indexes written by the processor into META-INF/routes/<module>.idx of every module.
+// Each index is a compact binary file of route names sorted alphabetically with the class name they route to:
+//
+//   int magic ("RIDX"), int version, int count, count * (utf name, utf class name)
+//
+// Indexes are located by module name and stream-merged, so there is no ServiceLoader and no classpath scanning,
+// and no routed class is loaded: class names are enough to build an Intent with Intent.setClassName(...).
+public final class RouteIndex {
+
+    // location of index files in generated resources
+    public static final String LOCATION = "META-INF/routes/";
+    // extension of index files
+    public static final String EXTENSION = ".idx";
+
+    static final int MAGIC = 0x52494458;
+    static final int VERSION = 1;
+
+    // merged route names, sorted
+    private final String[] names;
+    // class names, same order as names
+    private final String[] classNames;
+
+    private RouteIndex(String[] names, String[] classNames) {
+        this.names = names;
+        this.classNames = classNames;
+    }
+
+    // number of routes in this index
+    public int size() {
+        return names.length;
+    }
+
+    // position of route in this index, -1 if there is no such route
+    public int indexOf(String name) {
+        int index = Arrays.binarySearch(names, name);
+        return index < 0 ? -1 : index;
+    }
+
+    public String name(int index) {
+        return names[index];
+    }
+
+    public String className(int index) {
+        return classNames[index];
+    }
+
+    // class name of route, null if there is no such route
+    public String className(String name) {
+        int index = indexOf(name);
+        return index < 0 ? null : classNames[index];
+    }
+
+    // loads and merges indexes of given modules, e.g. load(getClassLoader(), "com.example.app", "com.example.feature")
+    public static RouteIndex load(ClassLoader classLoader, String... modules) throws IOException {
+        List<InputStream> indexes = new ArrayList<>(modules.length);
+        try {
+            for (String module : modules) {
+                InputStream index = classLoader.getResourceAsStream(LOCATION + module + EXTENSION);
+                if (index == null) {
+                    throw new FileNotFoundException("No route index for module: " + module);
+                }
+                indexes.add(index);
+            }
+            return merge(indexes);
+        } finally {
+            for (InputStream index : indexes) {
+                index.close();
+            }
+        }
+    }
+
+    // k-way merge of given indexes, reads every index exactly once and front to back, streams are not closed
+    public static RouteIndex merge(List<? extends InputStream> indexes) throws IOException {
+        Reader[] readers = new Reader[indexes.size()];
+        int size = 0;
+        for (int i = 0; i < readers.length; i++) {
+            readers[i] = new Reader(indexes.get(i));
+            size += readers[i].count;
+        }
+
+        String[] names = new String[size];
+        String[] classNames = new String[size];
+        for (int position = 0; position < size; position++) {
+            // number of modules is small, linear pick of smallest head is cheaper than a heap
+            Reader smallest = null;
+            for (Reader reader : readers) {
+                if (reader.name != null && (smallest == null || reader.name.compareTo(smallest.name) < 0)) {
+                    smallest = reader;
+                }
+            }
+            if (position > 0 && smallest.name.equals(names[position - 1])) {
+                throw new IOException("Duplicate route: " + smallest.name);
+            }
+            names[position] = smallest.name;
+            classNames[position] = smallest.className;
+            smallest.next();
+        }
+        return new RouteIndex(names, classNames);
+    }
+
+    // writes an index of given routes, routes are sorted by name before writing
+    public static void write(OutputStream out, final String[] names, String[] classNames) throws IOException {
+        Integer[] order = new Integer[names.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer first, Integer second) {
+                return names[first].compareTo(names[second]);
+            }
+        });
+
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeInt(names.length);
+        for (Integer i : order) {
+            data.writeUTF(names[i]);
+            data.writeUTF(classNames[i]);
+        }
+        data.flush();
+    }
+
+    // reads one index entry by entry
+    private static final class Reader {
+
+        private final DataInputStream data;
+        // number of entries in index
+        private final int count;
+        private int remaining;
+        // current entry, name is null when index is exhausted
+        private String name;
+        private String className;
+
+        Reader(InputStream in) throws IOException {
+            data = new DataInputStream(in);
+            if (data.readInt() != MAGIC) {
+                throw new IOException("Not a route index");
+            }
+            int version = data.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported route index version: " + version);
+            }
+            count = data.readInt();
+            remaining = count;
+            next();
+        }
+
+        void next() throws IOException {
+            if (remaining == 0) {
+                name = null;
+                className = null;
+                return;
+            }
+            String previous = name;
+            name = data.readUTF();
+            className = data.readUTF();
+            remaining--;
+            if (previous != null && previous.compareTo(name) > 0) {
+                throw new IOException("Route index is not sorted at: " + name);
+            }
+        }
+    }
+}
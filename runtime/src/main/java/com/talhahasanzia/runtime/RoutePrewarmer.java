@@ -0,0 +1,176 @@
+package com.talhahasanzia.runtime;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+// Best effort background warm-up of routes, behind generated RouteRegistry.prewarm. Route ids wait in a bounded
+// queue and are warmed one at a time on the executor, requests over capacity are dropped and a route is warmed
+// at most once. Queued routes can be cancelled, a route that is already being warmed runs to completion.
+public final class RoutePrewarmer {
+
+    // what warming a route means, generated code loads router, binder and builds intent template
+    public interface Warmer {
+
+        void warm(int routeId) throws Exception;
+    }
+
+    private final Executor executor;
+    private final int capacity;
+    private final Warmer warmer;
+
+    // guarded by this
+    private final Set<Integer> queue = new LinkedHashSet<>();
+    private final Set<Integer> warmed = new HashSet<>();
+    private boolean isDraining;
+
+    private final Runnable drain = new Runnable() {
+        @Override
+        public void run() {
+            boolean isDone = false;
+            try {
+                Integer routeId;
+                while ((routeId = next()) != null) {
+                    try {
+                        warmer.warm(routeId);
+                    } catch (Exception | LinkageError e) {
+                        // warming is an optimization, navigation does the same work again if it fails. Loading
+                        // classes fails with errors too, e.g. ExceptionInInitializerError or NoClassDefFoundError
+                    }
+                }
+                isDone = true;
+            } finally {
+                // other errors end the drain, next prewarm starts a new one for what is still queued
+                if (!isDone) {
+                    stopDraining();
+                }
+            }
+        }
+    };
+
+    public RoutePrewarmer(Executor executor, int capacity, Warmer warmer) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity <= 0: " + capacity);
+        }
+        this.executor = executor;
+        this.capacity = capacity;
+        this.warmer = warmer;
+    }
+
+    // single low priority daemon thread, so that warming never competes with main thread
+    public static ExecutorService newDefaultExecutor() {
+        return Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "RoutePrewarmer");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            }
+        });
+    }
+
+    // queues route for warming, false if it is already warmed or queued or the queue is full
+    public boolean prewarm(int routeId) {
+        synchronized (this) {
+            if (warmed.contains(routeId) || queue.contains(routeId) || queue.size() >= capacity) {
+                return false;
+            }
+            queue.add(routeId);
+            if (isDraining) {
+                return true;
+            }
+            isDraining = true;
+        }
+        try {
+            executor.execute(drain);
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                isDraining = false;
+                queue.remove(routeId);
+            }
+            throw e;
+        }
+        return true;
+    }
+
+    // removes route from queue, false if it was not queued
+    public synchronized boolean cancel(int routeId) {
+        return queue.remove(routeId);
+    }
+
+    // removes every queued route, e.g. when user leaves the screen that asked for them
+    public synchronized void cancelAll() {
+        queue.clear();
+    }
+
+    public synchronized boolean isWarmed(int routeId) {
+        return warmed.contains(routeId);
+    }
+
+    public synchronized int queued() {
+        return queue.size();
+    }
+
+    // encodes targets of each route by route id as "count id id ..." per route, to strings of at most chunkSize chars
+    public static String[] encodeTargets(int[][] targets, int chunkSize) {
+        StringBuilder encoded = new StringBuilder();
+        for (int[] routeTargets : targets) {
+            encoded.append(routeTargets.length).append(' ');
+            for (int target : routeTargets) {
+                encoded.append(target).append(' ');
+            }
+        }
+        List<String> chunks = new ArrayList<>();
+        for (int start = 0; start < encoded.length(); start += chunkSize) {
+            chunks.add(encoded.substring(start, (int) Math.min((long) start + chunkSize, encoded.length())));
+        }
+        return chunks.toArray(new String[0]);
+    }
+
+    // decodes targets written by encodeTargets, chunks are concatenated
+    public static int[][] decodeTargets(int routes, String... chunks) {
+        StringBuilder joined = new StringBuilder();
+        for (String chunk : chunks) {
+            joined.append(chunk);
+        }
+        String encoded = joined.toString();
+        int[][] targets = new int[routes][];
+        int position = 0;
+        for (int routeId = 0; routeId < routes; routeId++) {
+            int end = encoded.indexOf(' ', position);
+            targets[routeId] = new int[Integer.parseInt(encoded.substring(position, end))];
+            position = end + 1;
+            for (int i = 0; i < targets[routeId].length; i++) {
+                end = encoded.indexOf(' ', position);
+                targets[routeId][i] = Integer.parseInt(encoded.substring(position, end));
+                position = end + 1;
+            }
+        }
+        return targets;
+    }
+
+    private synchronized void stopDraining() {
+        isDraining = false;
+    }
+
+    // takes next queued route and marks it as warmed, null when queue is empty and drain ends
+    private synchronized Integer next() {
+        Iterator<Integer> iterator = queue.iterator();
+        if (!iterator.hasNext()) {
+            isDraining = false;
+            return null;
+        }
+        Integer routeId = iterator.next();
+        iterator.remove();
+        warmed.add(routeId);
+        return routeId;
+    }
+}
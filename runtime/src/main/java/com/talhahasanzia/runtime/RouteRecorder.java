@@ -0,0 +1,167 @@
+package com.talhahasanzia.runtime;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Fixed size, lock-free ring buffer of the last navigations through generated routers, for crash reports and
+// diagnostics. Install it with RouteTracing.installRecorder(recorder) before first navigation, every router records to
+// it whether or not it is traced. Navigations are recorded when they start, so one that throws out of a router is the
+// last event of a crash dump. Events hold route ids, RouteRegistry.nameOf(id) of the app module gives their names.
+// All slots are allocated up front and hold primitives only, so recording does not allocate: one getAndIncrement
+// claims a slot, then its fields are written with ordered stores. A slot carries its
+// sequence number, readers take a slot only if sequence was the same before and after reading it (seqlock), so
+// snapshots skip slots that are being written. Oldest events are overwritten once buffer is full.
+public final class RouteRecorder {
+
+    // overload families of an event, same as Routeable.Overload
+    public static final int MODIFIER = 1;
+    public static final int FINISH = 1 << 1;
+    public static final int BUNDLE = 1 << 2;
+    public static final int STRING = 1 << 3;
+    public static final int SERIALIZABLE = 1 << 4;
+    public static final int PARCELABLE = 1 << 5;
+    public static final int FOR_RESULT = 1 << 6;
+    // routeWithExtras of @Extra fields
+    public static final int EXTRAS = 1 << 7;
+    // go() of fluent builder
+    public static final int BUILDER = 1 << 8;
+
+    private static final String[] FAMILY_NAMES = {
+            "MODIFIER", "FINISH", "BUNDLE", "STRING", "SERIALIZABLE", "PARCELABLE", "FOR_RESULT", "EXTRAS", "BUILDER"};
+
+    // sequence of a slot while it is written
+    private static final long BUSY = -1L;
+
+    private final int mask;
+    private final AtomicLong next = new AtomicLong();
+    // sequence + 1 of the event a slot holds, 0 if it was never written
+    private final AtomicLongArray sequences;
+    private final AtomicIntegerArray routeIds;
+    private final AtomicLongArray nanoTimes;
+    private final AtomicIntegerArray overloads;
+
+    // capacity is rounded up to a power of two
+    public RouteRecorder(int capacity) {
+        if (capacity <= 0 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("capacity: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity) == capacity ? capacity : Integer.highestOneBit(capacity) << 1;
+        this.mask = size - 1;
+        this.sequences = new AtomicLongArray(size);
+        this.routeIds = new AtomicIntegerArray(size);
+        this.nanoTimes = new AtomicLongArray(size);
+        this.overloads = new AtomicIntegerArray(size);
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    // records a navigation of route id (RouteRegistry constant) that started at nanoTime, overloads are family flags
+    // above. If a writer is lapped by capacity other writers while it is inside record, its event can be lost
+    public void record(int routeId, int overloads, long nanoTime) {
+        long sequence = next.getAndIncrement();
+        int slot = (int) (sequence & mask);
+        sequences.lazySet(slot, BUSY);
+        routeIds.lazySet(slot, routeId);
+        nanoTimes.lazySet(slot, nanoTime);
+        this.overloads.lazySet(slot, overloads);
+        sequences.lazySet(slot, sequence + 1);
+    }
+
+    // number of events recorded so far, including overwritten ones
+    public long count() {
+        return next.get();
+    }
+
+    // recorded events that are still in buffer, oldest first. Safe to call from any thread while routers record
+    public List<Event> snapshot() {
+        long end = next.get();
+        long start = Math.max(0, end - capacity());
+        List<Event> events = new ArrayList<>((int) (end - start));
+        for (long sequence = start; sequence < end; sequence++) {
+            int slot = (int) (sequence & mask);
+            long before = sequences.get(slot);
+            if (before != sequence + 1) {
+                // being written, or already overwritten by a newer event
+                continue;
+            }
+            int routeId = routeIds.get(slot);
+            long nanoTime = nanoTimes.get(slot);
+            int eventOverloads = overloads.get(slot);
+            if (sequences.get(slot) == before) {
+                events.add(new Event(sequence, routeId, nanoTime, eventOverloads));
+            }
+        }
+        return events;
+    }
+
+    // writes snapshot, one event per line
+    public void dump(PrintStream out) {
+        List<Event> events = snapshot();
+        out.println("RouteRecorder: " + events.size() + " of " + count() + " navigations");
+        for (Event event : events) {
+            out.println(event);
+        }
+    }
+
+    // dumps snapshot to out when a thread dies of an uncaught exception, then hands the exception on to
+    // the handler that was installed before (on Android the one that kills the process)
+    public void dumpOnCrash(final PrintStream out) {
+        final Thread.UncaughtExceptionHandler previous = Thread.getDefaultUncaughtExceptionHandler();
+        Thread.setDefaultUncaughtExceptionHandler(new Thread.UncaughtExceptionHandler() {
+            @Override
+            public void uncaughtException(Thread thread, Throwable error) {
+                try {
+                    dump(out);
+                } finally {
+                    if (previous != null) {
+                        previous.uncaughtException(thread, error);
+                    }
+                }
+            }
+        });
+    }
+
+    public static final class Event {
+
+        // position in order of recording, starts at 0
+        public final long sequence;
+        // route id, see RouteRegistry.nameOf
+        public final int routeId;
+        // System.nanoTime() when navigation started
+        public final long nanoTime;
+        // overload family flags
+        public final int overloads;
+
+        Event(long sequence, int routeId, long nanoTime, int overloads) {
+            this.sequence = sequence;
+            this.routeId = routeId;
+            this.nanoTime = nanoTime;
+            this.overloads = overloads;
+        }
+
+        // true if an IntentModifier ran on the intent
+        public boolean isModified() {
+            return (overloads & MODIFIER) != 0;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder()
+                    .append(sequence).append(' ').append(nanoTime).append(' ').append(routeId).append(" [");
+            boolean isFirst = true;
+            for (int i = 0; i < FAMILY_NAMES.length; i++) {
+                if ((overloads & (1 << i)) != 0) {
+                    builder.append(isFirst ? "" : ", ").append(FAMILY_NAMES[i]);
+                    isFirst = false;
+                }
+            }
+            return builder.append(']').toString();
+        }
+    }
+}
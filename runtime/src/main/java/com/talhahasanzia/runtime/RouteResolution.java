@@ -0,0 +1,167 @@
+package com.talhahasanzia.runtime;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+// Runs routes of feature module activities once RouteResolver has loaded their module. Routes to a module that is
+// loading wait for that load, one resolve per module no matter how many routes are requested meanwhile, and every
+// route and listener is dispatched on main executor, also when module was resolved before, so that routeAsync never
+// navigates re-entrantly. Failed loads are not remembered, next route to the module resolves it again.
+// A route that needs an activity which is gone by the time its module is loaded throws CallerGoneException, its
+// listener then gets onFailed instead of onRouted.
+// Install one in Application.onCreate, e.g. RouteResolution.install(resolver, new Handler(Looper.getMainLooper())::post)
+public final class RouteResolution {
+
+    private static volatile RouteResolution installed;
+
+    private final RouteResolver resolver;
+    private final Executor mainExecutor;
+
+    // guarded by this: routes waiting for module being resolved, and modules resolved successfully
+    private final Map<String, List<Pending>> pending = new HashMap<>();
+    private final Set<String> resolved = new HashSet<>();
+
+    public RouteResolution(RouteResolver resolver, Executor mainExecutor) {
+        if (resolver == null || mainExecutor == null) {
+            throw new NullPointerException("resolver and mainExecutor can not be null");
+        }
+        this.resolver = resolver;
+        this.mainExecutor = mainExecutor;
+    }
+
+    public static void install(RouteResolver resolver, Executor mainExecutor) {
+        installed = new RouteResolution(resolver, mainExecutor);
+    }
+
+    // installed resolution that generated routeAsync methods use
+    public static RouteResolution get() {
+        RouteResolution resolution = installed;
+        if (resolution == null) {
+            throw new IllegalStateException("routeAsync needs a RouteResolver, call RouteResolution.install first");
+        }
+        return resolution;
+    }
+
+    // runs route on main executor once module is resolved, listener can be null
+    public void route(String module, Runnable route, Listener listener) {
+        Pending request = new Pending(module, route, listener);
+        boolean isResolved;
+        boolean isFirst = false;
+        synchronized (this) {
+            isResolved = resolved.contains(module);
+            if (!isResolved) {
+                List<Pending> requests = pending.get(module);
+                isFirst = requests == null;
+                if (isFirst) {
+                    requests = new ArrayList<>(2);
+                    pending.put(module, requests);
+                }
+                requests.add(request);
+            }
+        }
+        if (isResolved) {
+            mainExecutor.execute(request);
+        } else if (isFirst) {
+            resolve(module);
+        }
+    }
+
+    public synchronized boolean isResolved(String module) {
+        return resolved.contains(module);
+    }
+
+    private void resolve(final String module) {
+        try {
+            resolver.resolve(module, new RouteResolver.Callback() {
+                @Override
+                public void onResolved() {
+                    complete(module, null);
+                }
+
+                @Override
+                public void onFailed(Exception error) {
+                    complete(module, error != null ? error : new IllegalStateException("Module failed to load: " + module));
+                }
+            });
+        } catch (RuntimeException e) {
+            complete(module, e);
+        }
+    }
+
+    // dispatches routes that waited for module, a second call of a resolver callback finds none
+    private void complete(String module, Exception error) {
+        List<Pending> requests;
+        synchronized (this) {
+            requests = pending.remove(module);
+            if (requests == null) {
+                return;
+            }
+            if (error == null) {
+                resolved.add(module);
+            }
+        }
+        for (Pending request : requests) {
+            request.error = error;
+            mainExecutor.execute(request);
+        }
+    }
+
+    // result of routeAsync, called on main executor
+    public interface Listener {
+
+        // route was taken, interceptors of the module can still have cancelled it
+        void onRouted();
+
+        // module could not be loaded or activity of the route is gone (CallerGoneException), nothing was routed
+        void onFailed(String module, Exception error);
+    }
+
+    // thrown by a route when the activity it routes for result from is gone once its module is loaded
+    public static final class CallerGoneException extends IllegalStateException {
+
+        public CallerGoneException(String message) {
+            super(message);
+        }
+    }
+
+    private static final class Pending implements Runnable {
+
+        private final String module;
+        private final Runnable route;
+        private final Listener listener;
+        // set before dispatch of a failed load, executor hands it over to main thread
+        private Exception error;
+
+        Pending(String module, Runnable route, Listener listener) {
+            this.module = module;
+            this.route = route;
+            this.listener = listener;
+        }
+
+        @Override
+        public void run() {
+            if (error != null) {
+                if (listener != null) {
+                    listener.onFailed(module, error);
+                }
+                return;
+            }
+            try {
+                route.run();
+            } catch (CallerGoneException e) {
+                if (listener != null) {
+                    listener.onFailed(module, e);
+                }
+                return;
+            }
+            if (listener != null) {
+                listener.onRouted();
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.talhahasanzia.runtime;
+
+// Loads feature modules of @Routeable(featureModule) activities for routeAsync, e.g. through SplitInstallManager.
+// RouteResolution batches concurrent routes to a module, so resolve is called once per module until the load
+// completes, and not at all once it succeeded.
+public interface RouteResolver {
+
+    // starts loading module and returns, it is called on navigating thread and must not block. Exactly one method
+    // of callback is called once module is ready or failed, on any thread
+    void resolve(String module, Callback callback);
+
+    interface Callback {
+
+        void onResolved();
+
+        void onFailed(Exception error);
+    }
+}
@@ -0,0 +1,10 @@
+package com.talhahasanzia.runtime;
+
+// Receives timings of navigations through generated routers, when processor runs with -Arouter.trace=true.
+// Called on navigating thread right after startActivity, implementations should be fast and must not block.
+public interface RouteTracer {
+
+    // route is route name, nanos are durations of: building intent (including extras), IntentModifier and
+    // starting activity. extras is number of extras router put, all extras of the intent for fluent builder
+    void onRoute(String route, long buildNanos, long modifierNanos, long startNanos, int extras);
+}
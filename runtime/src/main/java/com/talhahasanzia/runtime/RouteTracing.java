@@ -0,0 +1,59 @@
+package com.talhahasanzia.runtime;
+
+// Holds installed RouteTracer and RouteRecorder. Generated routers read isRecording() and, if traced, isEnabled() once
+// into static final fields when they are initialized, so install both before first navigation (e.g. in
+// Application.onCreate). Without them those guards are false and JIT/ART removes recording and tracing code from routers.
+public final class RouteTracing {
+
+    private static final RouteTracer NO_OP = new RouteTracer() {
+        @Override
+        public void onRoute(String route, long buildNanos, long modifierNanos, long startNanos, int extras) {
+        }
+    };
+
+    private static volatile RouteTracer tracer = NO_OP;
+    private static volatile RouteRecorder recorder;
+
+    private RouteTracing() {
+    }
+
+    public static void install(RouteTracer routeTracer) {
+        tracer = routeTracer == null ? NO_OP : routeTracer;
+    }
+
+    // null removes recorder
+    public static void installRecorder(RouteRecorder routeRecorder) {
+        recorder = routeRecorder;
+    }
+
+    public static boolean isEnabled() {
+        return tracer != NO_OP;
+    }
+
+    public static boolean isRecording() {
+        return recorder != null;
+    }
+
+    public static RouteTracer tracer() {
+        return tracer;
+    }
+
+    public static RouteRecorder recorder() {
+        return recorder;
+    }
+
+    // called by every router when navigation starts, with its route id and RouteRecorder overload family flags of the
+    // method. Recorded before anything else runs, so a navigation that throws is in a crash dump too
+    public static void onRouteStart(int routeId, int overloads) {
+        RouteRecorder routeRecorder = recorder;
+        if (routeRecorder != null) {
+            routeRecorder.record(routeId, overloads, System.nanoTime());
+        }
+    }
+
+    // called by traced routers right after activity is started with marks of the navigation (see RouteTracer)
+    public static void onRoute(String route, long traceStart, long traceBuilt, long traceModified, int extras) {
+        long end = System.nanoTime();
+        tracer.onRoute(route, traceBuilt - traceStart, traceModified - traceBuilt, end - traceModified, extras);
+    }
+}
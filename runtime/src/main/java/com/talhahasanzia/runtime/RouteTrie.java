@@ -0,0 +1,548 @@
+package com.talhahasanzia.runtime;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+// Deep link matcher for URI patterns of @Routeable(paths), e.g. "app://orders/{id}" or "https://x.com/u/{user}/posts".
+// Processor builds the trie at compile time and generated RouteRegistry keeps it encoded. Matching walks the tokens of
+// a URI once, one edge per token and never back, then takes param values of the matched pattern in a second scan:
+// O(URI length), no regex and no allocation except the returned Match.
+//
+// A URI is split into tokens: scheme with its colon ("app:"), then every non empty segment between slashes,
+// so host is the first segment. Scheme and host are case insensitive, query and fragment are ignored, param values
+// are percent-decoded as UTF-8.
+// Literal tokens are preferred over {params}: of all patterns that match, the one with a literal at the first
+// position where they differ wins. Builder makes this deterministic at compile time, a trie node stands for every
+// pattern prefix a URI prefix can match, so a literal edge that leads nowhere never needs a retry as {param}.
+// Such a node can stand for exponentially many prefixes of {params} mixed with literals, so builder stops at
+// MAX_STATES nodes.
+public final class RouteTrie {
+
+    // nodes of a trie at most, up to a few hundred KB of encoded constants
+    public static final int MAX_STATES = 10000;
+
+    // encoded fields are separated by this, it can not appear in a URI
+    private static final char SEPARATOR = ' ';
+    // per token of pattern in node signatures, literals sort before params
+    private static final char LITERAL = '0';
+    private static final char PARAM = '1';
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    // per node: route id if a pattern ends here or -1, child for {param} or -1, first edge, param names of route
+    // and indexes of their tokens
+    private final int[] routes;
+    private final int[] paramChildren;
+    private final int[] edgeStarts;
+    private final String[][] paramNames;
+    private final int[][] paramTokens;
+    // edges of node i are [edgeStarts[i], edgeStarts[i + 1]), sorted by label
+    private final String[] edgeLabels;
+    private final int[] edgeChildren;
+
+    private RouteTrie(int[] routes, int[] paramChildren, int[] edgeStarts, String[][] paramNames, int[][] paramTokens,
+                      String[] edgeLabels, int[] edgeChildren) {
+        this.routes = routes;
+        this.paramChildren = paramChildren;
+        this.edgeStarts = edgeStarts;
+        this.paramNames = paramNames;
+        this.paramTokens = paramTokens;
+        this.edgeLabels = edgeLabels;
+        this.edgeChildren = edgeChildren;
+    }
+
+    // route id and params of given URI, null if no pattern matches
+    public Match match(String uri) {
+        int end = uri.length();
+        int query = uri.indexOf('?');
+        if (query >= 0) {
+            end = query;
+        }
+        int fragment = uri.indexOf('#');
+        if (fragment >= 0 && fragment < end) {
+            end = fragment;
+        }
+
+        int node = 0;
+        int token = 0;
+        boolean hasScheme = false;
+        // first token that can be a param of a matching pattern, params are taken from there
+        int paramStart = -1;
+        int paramToken = 0;
+        for (int position = nextTokenStart(uri, 0, end); position < end; token++) {
+            if (paramStart < 0 && paramChildren[node] >= 0) {
+                paramStart = position;
+                paramToken = token;
+            }
+            int tokenEnd = tokenEnd(uri, position, end);
+            boolean isScheme = token == 0 && isScheme(uri, tokenEnd);
+            hasScheme |= isScheme;
+            int edge = findEdge(node, uri, position, tokenEnd, isScheme || (token == 1 && hasScheme));
+            if (edge >= 0) {
+                node = edgeChildren[edge];
+            } else if (paramChildren[node] >= 0 && uri.charAt(tokenEnd - 1) != ':') {
+                // scheme is never a param
+                node = paramChildren[node];
+            } else {
+                return null;
+            }
+            position = nextTokenStart(uri, tokenEnd, end);
+        }
+        if (routes[node] < 0) {
+            return null;
+        }
+
+        // values of params, tokens are scanned again from first possible param up to last param
+        int[] tokens = paramTokens[node];
+        String[] values = new String[tokens.length];
+        int position = paramStart;
+        for (int i = 0, current = paramToken; i < tokens.length; current++) {
+            int tokenEnd = tokenEnd(uri, position, end);
+            if (current == tokens[i]) {
+                values[i++] = percentDecode(uri, position, tokenEnd);
+            }
+            position = nextTokenStart(uri, tokenEnd, end);
+        }
+        return new Match(routes[node], paramNames[node], values);
+    }
+
+    // binary search of token among sorted edge labels of node, without creating a substring.
+    // Labels of scheme and host are lower case, ignoreCase lower cases token
+    private int findEdge(int node, String uri, int tokenStart, int tokenEnd, boolean ignoreCase) {
+        int low = edgeStarts[node];
+        int high = edgeStarts[node + 1] - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = compare(edgeLabels[middle], uri, tokenStart, tokenEnd, ignoreCase);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    // same ordering as String.compareTo(uri.substring(start, end)), of lower cased token if ignoreCase
+    private static int compare(String label, String uri, int start, int end, boolean ignoreCase) {
+        int length = end - start;
+        int common = Math.min(label.length(), length);
+        for (int i = 0; i < common; i++) {
+            char c = uri.charAt(start + i);
+            int difference = label.charAt(i) - (ignoreCase ? lowerCase(c) : c);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return label.length() - length;
+    }
+
+    // percent-decoded uri.substring(start, end), escapes that are not two hex digits are kept as they are
+    static String percentDecode(String uri, int start, int end) {
+        int escape = uri.indexOf('%', start);
+        if (escape < 0 || escape >= end) {
+            return uri.substring(start, end);
+        }
+        StringBuilder decoded = new StringBuilder(end - start);
+        decoded.append(uri, start, escape);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        for (int i = escape; i < end; ) {
+            int high = i + 2 < end && uri.charAt(i) == '%' ? Character.digit(uri.charAt(i + 1), 16) : -1;
+            int low = high < 0 ? -1 : Character.digit(uri.charAt(i + 2), 16);
+            if (low >= 0) {
+                // consecutive escapes are bytes of one UTF-8 sequence
+                bytes.write((high << 4) | low);
+                i += 3;
+                continue;
+            }
+            if (bytes.size() > 0) {
+                decoded.append(new String(bytes.toByteArray(), UTF_8));
+                bytes.reset();
+            }
+            decoded.append(uri.charAt(i++));
+        }
+        if (bytes.size() > 0) {
+            decoded.append(new String(bytes.toByteArray(), UTF_8));
+        }
+        return decoded.toString();
+    }
+
+    // skips slashes, end if there are no more tokens
+    private static int nextTokenStart(String uri, int position, int end) {
+        while (position < end && uri.charAt(position) == '/') {
+            position++;
+        }
+        return position;
+    }
+
+    // Character.toLowerCase, without its table lookup for ASCII
+    static char lowerCase(char c) {
+        if (c < 0x80) {
+            return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+        }
+        return Character.toLowerCase(c);
+    }
+
+    // first token is a scheme if it ends with colon of "scheme://"
+    private static boolean isScheme(String uri, int tokenEnd) {
+        return uri.charAt(tokenEnd - 1) == ':' && uri.startsWith("//", tokenEnd);
+    }
+
+    // end of token starting at start: scheme ends after "scheme:" of "scheme://", others end at next slash
+    private static int tokenEnd(String uri, int start, int end) {
+        if (start > 0) {
+            int slash = uri.indexOf('/', start);
+            return slash < 0 || slash > end ? end : slash;
+        }
+        for (int i = start; i < end; i++) {
+            char c = uri.charAt(i);
+            if (c == '/') {
+                return i;
+            }
+            if (c == ':' && start == 0 && uri.startsWith("//", i + 1)) {
+                return i + 1;
+            }
+        }
+        return end;
+    }
+
+    // decodes trie written by Builder.encode, chunks are concatenated
+    public static RouteTrie decode(String... chunks) {
+        StringBuilder joined = new StringBuilder();
+        for (String chunk : chunks) {
+            joined.append(chunk);
+        }
+        Decoder decoder = new Decoder(joined.toString());
+
+        int nodes = decoder.nextInt();
+        int edges = decoder.nextInt();
+        int[] routes = new int[nodes];
+        int[] paramChildren = new int[nodes];
+        int[] edgeStarts = new int[nodes + 1];
+        String[][] paramNames = new String[nodes][];
+        int[][] paramTokens = new int[nodes][];
+        String[] edgeLabels = new String[edges];
+        int[] edgeChildren = new int[edges];
+
+        int edge = 0;
+        for (int node = 0; node < nodes; node++) {
+            routes[node] = decoder.nextInt();
+            paramChildren[node] = decoder.nextInt();
+            paramNames[node] = new String[decoder.nextInt()];
+            paramTokens[node] = new int[paramNames[node].length];
+            for (int i = 0; i < paramNames[node].length; i++) {
+                paramNames[node][i] = decoder.next();
+                paramTokens[node][i] = decoder.nextInt();
+            }
+            edgeStarts[node] = edge;
+            int nodeEdges = decoder.nextInt();
+            for (int i = 0; i < nodeEdges; i++, edge++) {
+                edgeLabels[edge] = decoder.next();
+                edgeChildren[edge] = decoder.nextInt();
+            }
+        }
+        edgeStarts[nodes] = edge;
+        return new RouteTrie(routes, paramChildren, edgeStarts, paramNames, paramTokens, edgeLabels, edgeChildren);
+    }
+
+    // result of a match, params are in order of pattern
+    public static final class Match {
+
+        public final int routeId;
+        private final String[] names;
+        private final String[] values;
+
+        Match(int routeId, String[] names, String[] values) {
+            this.routeId = routeId;
+            this.names = names;
+            this.values = values;
+        }
+
+        public int size() {
+            return values.length;
+        }
+
+        public String name(int index) {
+            return names[index];
+        }
+
+        public String value(int index) {
+            return values[index];
+        }
+
+        // value of named param, null if pattern has no such param
+        public String param(String name) {
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].equals(name)) {
+                    return values[i];
+                }
+            }
+            return null;
+        }
+    }
+
+    // builds a trie from patterns, used by processor at compile time
+    public static final class Builder {
+
+        // trie of patterns as they are added, a node per pattern prefix
+        private final List<Node> nodes = new ArrayList<>();
+        private final int maxStates;
+
+        public Builder() {
+            this(MAX_STATES);
+        }
+
+        public Builder(int maxStates) {
+            this.maxStates = maxStates;
+            nodes.add(new Node(""));
+        }
+
+        // adds a pattern of given route, throws IllegalArgumentException if an equivalent pattern was added before
+        public Builder add(String pattern, int routeId) {
+            Node node = nodes.get(0);
+            List<String> names = new ArrayList<>();
+            List<Integer> paramTokens = new ArrayList<>();
+            List<String> tokens = tokens(pattern);
+            for (int i = 0; i < tokens.size(); i++) {
+                String token = tokens.get(i);
+                if (token.indexOf(SEPARATOR) >= 0) {
+                    throw new IllegalArgumentException("Invalid pattern: " + pattern);
+                }
+                if (isParam(token)) {
+                    names.add(token.substring(1, token.length() - 1));
+                    paramTokens.add(i);
+                    if (node.paramChild < 0) {
+                        node.paramChild = newNode(node.signature + PARAM);
+                    }
+                    node = nodes.get(node.paramChild);
+                } else {
+                    Integer child = node.edges.get(token);
+                    if (child == null) {
+                        child = newNode(node.signature + LITERAL);
+                        node.edges.put(token, child);
+                    }
+                    node = nodes.get(child);
+                }
+            }
+            if (node.route >= 0) {
+                throw new IllegalArgumentException("Pattern conflicts with another pattern: " + pattern);
+            }
+            node.route = routeId;
+            node.paramNames = names;
+            node.paramTokens = paramTokens;
+            return this;
+        }
+
+        // equivalent patterns have the same key: same literal tokens and params at same positions, whatever param
+        // names, query and case of scheme and host are. Params become empty tokens, which a literal token never is
+        public static String key(String pattern) {
+            StringBuilder key = new StringBuilder(pattern.length());
+            for (String token : tokens(pattern)) {
+                key.append(SEPARATOR).append(isParam(token) ? "" : token);
+            }
+            return key.toString();
+        }
+
+        public RouteTrie build() {
+            return decode(encode(Integer.MAX_VALUE));
+        }
+
+        // encodes trie to strings of at most chunkSize chars, to fit into string constants of generated code.
+        // Throws IllegalStateException if trie has more than maxStates nodes
+        public String[] encode(int chunkSize) {
+            List<State> states = determinize();
+            StringBuilder encoded = new StringBuilder();
+            int edges = 0;
+            for (State state : states) {
+                edges += state.edges.size();
+            }
+            append(encoded, states.size());
+            append(encoded, edges);
+            for (State state : states) {
+                Node route = state.route;
+                append(encoded, route == null ? -1 : route.route);
+                append(encoded, state.paramChild);
+                append(encoded, route == null ? 0 : route.paramNames.size());
+                for (int i = 0; route != null && i < route.paramNames.size(); i++) {
+                    append(encoded, route.paramNames.get(i));
+                    append(encoded, route.paramTokens.get(i));
+                }
+                append(encoded, state.edges.size());
+                for (Map.Entry<String, Integer> edge : state.edges.entrySet()) {
+                    append(encoded, edge.getKey());
+                    append(encoded, edge.getValue());
+                }
+            }
+
+            List<String> chunks = new ArrayList<>();
+            for (int start = 0; start < encoded.length(); start += chunkSize) {
+                chunks.add(encoded.substring(start, (int) Math.min((long) start + chunkSize, encoded.length())));
+            }
+            return chunks.toArray(new String[0]);
+        }
+
+        // deterministic trie that is encoded: a state per set of nodes that the same URI prefix reaches. Literal edges
+        // of a state also lead to param children of its nodes, so a literal edge is taken whenever there is one.
+        // Of the patterns that end in a state, the one with literals at earliest positions is its route
+        private List<State> determinize() {
+            List<State> states = new ArrayList<>();
+            Map<Set<Integer>, Integer> ids = new HashMap<>();
+            state(new TreeSet<>(Collections.singleton(0)), states, ids);
+            // states are added while they are visited
+            for (int i = 0; i < states.size(); i++) {
+                State state = states.get(i);
+                Map<String, Set<Integer>> targets = new TreeMap<>();
+                Set<Integer> params = new TreeSet<>();
+                for (int member : state.nodes) {
+                    Node node = nodes.get(member);
+                    if (node.route >= 0 && (state.route == null || node.signature.compareTo(state.route.signature) < 0)) {
+                        state.route = node;
+                    }
+                    if (node.paramChild >= 0) {
+                        params.add(node.paramChild);
+                    }
+                    for (Map.Entry<String, Integer> edge : node.edges.entrySet()) {
+                        Set<Integer> target = targets.get(edge.getKey());
+                        if (target == null) {
+                            target = new TreeSet<>();
+                            targets.put(edge.getKey(), target);
+                        }
+                        target.add(edge.getValue());
+                    }
+                }
+                for (Map.Entry<String, Set<Integer>> target : targets.entrySet()) {
+                    // scheme is never a param
+                    if (!target.getKey().endsWith(":")) {
+                        target.getValue().addAll(params);
+                    }
+                    state.edges.put(target.getKey(), state(target.getValue(), states, ids));
+                }
+                state.paramChild = params.isEmpty() ? -1 : state(params, states, ids);
+            }
+            return states;
+        }
+
+        // id of state of given nodes, added if there is none yet
+        private int state(Set<Integer> nodes, List<State> states, Map<Set<Integer>, Integer> ids) {
+            Integer id = ids.get(nodes);
+            if (id == null) {
+                if (states.size() == maxStates) {
+                    throw new IllegalStateException("Deep link patterns need more than " + maxStates
+                            + " trie states, use fewer {params} next to literals at the same positions.");
+                }
+                id = states.size();
+                ids.put(nodes, id);
+                states.add(new State(nodes));
+            }
+            return id;
+        }
+
+        private int newNode(String signature) {
+            nodes.add(new Node(signature));
+            return nodes.size() - 1;
+        }
+
+        private static void append(StringBuilder encoded, Object value) {
+            encoded.append(value).append(SEPARATOR);
+        }
+
+        // tokens of a pattern, same rules as matching
+        private static boolean isParam(String token) {
+            return token.length() > 2 && token.charAt(0) == '{' && token.charAt(token.length() - 1) == '}';
+        }
+
+        // scheme and host are lower cased, matching lower cases them in URIs
+        private static List<String> tokens(String pattern) {
+            int end = pattern.length();
+            int query = pattern.indexOf('?');
+            if (query >= 0) {
+                end = query;
+            }
+            List<String> tokens = new ArrayList<>();
+            boolean hasScheme = false;
+            int position = nextTokenStart(pattern, 0, end);
+            while (position < end) {
+                int tokenEnd = tokenEnd(pattern, position, end);
+                String token = pattern.substring(position, tokenEnd);
+                boolean isScheme = tokens.isEmpty() && isScheme(pattern, tokenEnd);
+                hasScheme |= isScheme;
+                if (isScheme || (tokens.size() == 1 && hasScheme && !isParam(token))) {
+                    token = lowerCase(token);
+                }
+                tokens.add(token);
+                position = nextTokenStart(pattern, tokenEnd, end);
+            }
+            return tokens;
+        }
+
+        // same case mapping as matching
+        private static String lowerCase(String token) {
+            char[] chars = token.toCharArray();
+            for (int i = 0; i < chars.length; i++) {
+                chars[i] = RouteTrie.lowerCase(chars[i]);
+            }
+            return new String(chars);
+        }
+    }
+
+    private static final class Node {
+
+        // LITERAL or PARAM per token of path from root
+        private final String signature;
+        private int route = -1;
+        private int paramChild = -1;
+        private List<String> paramNames = new ArrayList<>();
+        // token index of every param
+        private List<Integer> paramTokens = new ArrayList<>();
+        private final Map<String, Integer> edges = new HashMap<>();
+
+        Node(String signature) {
+            this.signature = signature;
+        }
+    }
+
+    private static final class State {
+
+        private final Set<Integer> nodes;
+        // node of route that ends in this state, null if none does
+        private Node route;
+        private int paramChild = -1;
+        // sorted, so that encoded edges can be binary searched
+        private final Map<String, Integer> edges = new TreeMap<>();
+
+        State(Set<Integer> nodes) {
+            this.nodes = nodes;
+        }
+    }
+
+    // reads fields written by Builder.encode
+    private static final class Decoder {
+
+        private final String encoded;
+        private int position;
+
+        Decoder(String encoded) {
+            this.encoded = encoded;
+        }
+
+        String next() {
+            int end = encoded.indexOf(SEPARATOR, position);
+            String value = encoded.substring(position, end);
+            position = end + 1;
+            return value;
+        }
+
+        int nextInt() {
+            return Integer.parseInt(next());
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.talhahasanzia.runtime;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Lock-free navigation gate of a @Routeable(singleFlight = true) route, held in a static field of its router.
+// A navigation passes only if no other one of the route is in flight and the last one finished at least window ago,
+// so double taps and taps during a slow navigation are dropped instead of starting the activity twice.
+// A single AtomicLong holds the whole state: IN_FLIGHT while a navigation runs, otherwise System.nanoTime() of the
+// end of last navigation. Of concurrent callers exactly one wins the compare-and-set, the others are dropped.
+public final class SingleFlight {
+
+    private static final long IN_FLIGHT = Long.MIN_VALUE;
+    // no navigation yet
+    private static final long IDLE = Long.MIN_VALUE + 1;
+
+    private final long windowNanos;
+    private final AtomicLong state = new AtomicLong(IDLE);
+
+    public SingleFlight(long windowMillis) {
+        if (windowMillis < 0) {
+            throw new IllegalArgumentException("windowMillis < 0: " + windowMillis);
+        }
+        this.windowNanos = windowMillis * 1000000L;
+    }
+
+    // true if caller may navigate, it then has to call release once done, also if navigation fails
+    public boolean tryAcquire() {
+        long current = state.get();
+        if (current == IN_FLIGHT || (current != IDLE && System.nanoTime() - current < windowNanos)) {
+            return false;
+        }
+        return state.compareAndSet(current, IN_FLIGHT);
+    }
+
+    // ends navigation of the caller tryAcquire let through, window starts now
+    public void release() {
+        long now = System.nanoTime();
+        // nanoTime is arbitrary, it must not look like a state
+        state.set(now == IN_FLIGHT || now == IDLE ? now + 2 : now);
+    }
+}
@@ -0,0 +1,92 @@
+package com.talhahasanzia.runtime;
+
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+// In-process store of @Extra(byReference = true) values: last 32 values that were not bound are held strongly, bound
+// ones weakly, tokens resolve in their own process only.
+public class ExtrasStoreTest {
+
+    @Test
+    public void tokensResolveToSameInstance() {
+        ExtrasStore store = new ExtrasStore(32);
+        Object first = new Object();
+        Object second = new Object();
+        long firstToken = store.put(first);
+        long secondToken = store.put(second);
+
+        assertNotEquals(firstToken, secondToken);
+        assertSame(first, store.get(firstToken, null));
+        assertSame(second, store.get(secondToken, null));
+        // values stay in store, binding again gets them too
+        assertSame(first, store.get(firstToken, null));
+
+        assertEquals(ExtrasStore.NO_TOKEN, store.put(null));
+        assertEquals("fallback", store.get(ExtrasStore.NO_TOKEN, "fallback"));
+        assertEquals("fallback", store.get(firstToken + 1000, "fallback"));
+        // token of another store, as of a previous process
+        assertEquals("fallback", new ExtrasStore(32).get(firstToken, "fallback"));
+    }
+
+    @Test
+    public void leastRecentlyUsedValueIsEvictedAfter32() throws InterruptedException {
+        ExtrasStore store = new ExtrasStore(32);
+        Object[] values = new Object[33];
+        long[] tokens = new long[33];
+        for (int i = 0; i < 32; i++) {
+            tokens[i] = store.put(values[i] = new Object());
+        }
+        assertEquals(32, store.size());
+        // first value is used again, second one is least recently used now
+        store.get(tokens[0], null);
+        tokens[32] = store.put(values[32] = new Object());
+        assertEquals(32, store.size());
+
+        // evicted value is held weakly, it resolves while someone else holds it
+        assertSame(values[1], store.get(tokens[1], null));
+        WeakReference<Object> evicted = new WeakReference<>(values[1]);
+        Arrays.fill(values, null);
+        for (int i = 0; i < 100 && evicted.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull("evicted value is still held", evicted.get());
+        assertEquals("fallback", store.get(tokens[1], "fallback"));
+        for (int i = 0; i < tokens.length; i++) {
+            if (i != 1) {
+                assertNotEquals(String.valueOf(i), "fallback", store.get(tokens[i], "fallback"));
+            }
+        }
+    }
+
+    @Test
+    public void takenValueIsHeldWeakly() throws InterruptedException {
+        ExtrasStore store = new ExtrasStore(32);
+        Object value = new Object();
+        long token = store.put(value);
+        assertEquals(1, store.size());
+
+        assertSame(value, store.take(token, null));
+        assertEquals(0, store.size());
+        // bound again while activity holds it
+        assertSame(value, store.take(token, null));
+        assertSame(value, store.get(token, null));
+
+        WeakReference<Object> taken = new WeakReference<>(value);
+        value = null;
+        for (int i = 0; i < 100 && taken.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull("taken value is still held", taken.get());
+        assertEquals("fallback", store.take(token, "fallback"));
+        assertEquals("fallback", store.take(ExtrasStore.NO_TOKEN, "fallback"));
+    }
+}
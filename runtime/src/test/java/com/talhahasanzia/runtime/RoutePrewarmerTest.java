@@ -0,0 +1,195 @@
+package com.talhahasanzia.runtime;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+// Queue of RoutePrewarmer: bounded, every route warmed at most once, queued routes can be cancelled, failures of
+// warm-ups do not stop it. Runs drains on a manual executor.
+public class RoutePrewarmerTest {
+
+    @Test
+    public void queueIsBounded() {
+        ManualExecutor executor = new ManualExecutor();
+        RecordingWarmer warmer = new RecordingWarmer();
+        RoutePrewarmer prewarmer = new RoutePrewarmer(executor, 8, warmer);
+
+        for (int routeId = 0; routeId < 8; routeId++) {
+            assertTrue(prewarmer.prewarm(routeId));
+        }
+        assertFalse(prewarmer.prewarm(8));
+        assertEquals(8, prewarmer.queued());
+        // one drain for the whole queue
+        assertEquals(1, executor.pending.size());
+
+        executor.runAll();
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7), warmer.warmed);
+        assertEquals(0, prewarmer.queued());
+        assertTrue(prewarmer.prewarm(8));
+    }
+
+    @Test
+    public void routeIsWarmedOnce() {
+        ManualExecutor executor = new ManualExecutor();
+        RecordingWarmer warmer = new RecordingWarmer();
+        warmer.failing = 3;
+        RoutePrewarmer prewarmer = new RoutePrewarmer(executor, 8, warmer);
+
+        assertTrue(prewarmer.prewarm(3));
+        assertFalse(prewarmer.prewarm(3));
+        assertFalse(prewarmer.isWarmed(3));
+        executor.runAll();
+
+        // failed warm-up is not retried, navigation does the work
+        assertTrue(prewarmer.isWarmed(3));
+        assertFalse(prewarmer.prewarm(3));
+        executor.runAll();
+        assertEquals(Collections.singletonList(3), warmer.warmed);
+    }
+
+    @Test
+    public void queuedRoutesAreCancelled() {
+        ManualExecutor executor = new ManualExecutor();
+        final RecordingWarmer warmer = new RecordingWarmer();
+        final RoutePrewarmer prewarmer = new RoutePrewarmer(executor, 8, warmer);
+        warmer.onWarm = new Runnable() {
+            @Override
+            public void run() {
+                // route that is being warmed is no longer queued
+                if (warmer.warmed.size() == 1) {
+                    assertFalse(prewarmer.cancel(1));
+                    assertTrue(prewarmer.cancel(4));
+                }
+            }
+        };
+
+        for (int routeId = 1; routeId <= 4; routeId++) {
+            assertTrue(prewarmer.prewarm(routeId));
+        }
+        assertTrue(prewarmer.cancel(2));
+        assertFalse(prewarmer.cancel(2));
+        executor.runAll();
+
+        assertEquals(Arrays.asList(1, 3), warmer.warmed);
+        assertFalse(prewarmer.isWarmed(2));
+        assertFalse(prewarmer.isWarmed(4));
+        // cancelled routes can be queued again
+        assertTrue(prewarmer.prewarm(2));
+        assertTrue(prewarmer.prewarm(4));
+        prewarmer.cancelAll();
+        assertEquals(0, prewarmer.queued());
+        executor.runAll();
+        assertEquals(Arrays.asList(1, 3), warmer.warmed);
+    }
+
+    @Test
+    public void drainSurvivesErrors() {
+        ManualExecutor executor = new ManualExecutor();
+        RecordingWarmer warmer = new RecordingWarmer();
+        warmer.error = new ExceptionInInitializerError();
+        warmer.failing = 1;
+        RoutePrewarmer prewarmer = new RoutePrewarmer(executor, 8, warmer);
+
+        // class loading errors are failed warm-ups
+        assertTrue(prewarmer.prewarm(1));
+        assertTrue(prewarmer.prewarm(2));
+        executor.runAll();
+        assertEquals(Arrays.asList(1, 2), warmer.warmed);
+
+        // any other error ends the drain, but not the prewarmer
+        warmer.error = new AssertionError();
+        warmer.failing = 3;
+        assertTrue(prewarmer.prewarm(3));
+        assertTrue(prewarmer.prewarm(4));
+        try {
+            executor.runAll();
+            fail();
+        } catch (AssertionError expected) {
+            assertSame(warmer.error, expected);
+        }
+        assertEquals(1, prewarmer.queued());
+        assertTrue(prewarmer.prewarm(5));
+        executor.runAll();
+        assertEquals(Arrays.asList(1, 2, 3, 4, 5), warmer.warmed);
+        assertEquals(0, prewarmer.queued());
+    }
+
+    @Test
+    public void rejectedDrainIsNotQueued() {
+        final boolean[] isRejecting = {true};
+        RecordingWarmer warmer = new RecordingWarmer();
+        RoutePrewarmer prewarmer = new RoutePrewarmer(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                if (isRejecting[0]) {
+                    throw new RejectedExecutionException();
+                }
+                command.run();
+            }
+        }, 8, warmer);
+
+        try {
+            prewarmer.prewarm(5);
+            fail();
+        } catch (RejectedExecutionException expected) {
+        }
+        assertEquals(0, prewarmer.queued());
+        isRejecting[0] = false;
+        assertTrue(prewarmer.prewarm(5));
+        assertEquals(Collections.singletonList(5), warmer.warmed);
+    }
+
+    // runs submitted drains when asked to
+    private static final class ManualExecutor implements Executor {
+
+        final Deque<Runnable> pending = new ArrayDeque<>();
+
+        @Override
+        public void execute(Runnable command) {
+            pending.add(command);
+        }
+
+        void runAll() {
+            Runnable command;
+            while ((command = pending.poll()) != null) {
+                command.run();
+            }
+        }
+    }
+
+    private static final class RecordingWarmer implements RoutePrewarmer.Warmer {
+
+        final List<Integer> warmed = new ArrayList<>();
+        int failing = -1;
+        // thrown for failing route instead of an exception
+        Error error;
+        Runnable onWarm;
+
+        @Override
+        public void warm(int routeId) throws Exception {
+            warmed.add(routeId);
+            if (onWarm != null) {
+                onWarm.run();
+            }
+            if (routeId == failing) {
+                if (error != null) {
+                    throw error;
+                }
+                throw new IllegalStateException("warm-up failed");
+            }
+        }
+    }
+}
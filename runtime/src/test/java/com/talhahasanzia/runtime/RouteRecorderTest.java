@@ -0,0 +1,138 @@
+package com.talhahasanzia.runtime;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+// Ring buffer of navigations that every router records to through RouteTracing.onRouteStart, by route id.
+public class RouteRecorderTest {
+
+    private static final int THREADS = 4;
+    private static final int EVENTS = 50000;
+
+    @Test
+    public void capacityIsRoundedUpToPowerOfTwo() {
+        assertEquals(1, new RouteRecorder(1).capacity());
+        assertEquals(64, new RouteRecorder(33).capacity());
+        assertEquals(64, new RouteRecorder(64).capacity());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void emptyBuffer() {
+        new RouteRecorder(0);
+    }
+
+    @Test
+    public void keepsLastEventsOldestFirst() {
+        RouteRecorder recorder = new RouteRecorder(4);
+        for (int i = 0; i < 10; i++) {
+            recorder.record(i, RouteRecorder.BUNDLE, i);
+        }
+
+        List<RouteRecorder.Event> events = recorder.snapshot();
+        assertEquals(10, recorder.count());
+        assertEquals(4, events.size());
+        for (int i = 0; i < 4; i++) {
+            RouteRecorder.Event event = events.get(i);
+            assertEquals(6 + i, event.sequence);
+            assertEquals(6 + i, event.routeId);
+            assertEquals(6 + i, event.nanoTime);
+        }
+    }
+
+    @Test
+    public void routersReportThroughRouteTracing() {
+        RouteRecorder recorder = new RouteRecorder(8);
+        RouteTracing.installRecorder(recorder);
+        long before = System.nanoTime();
+        try {
+            assertTrue(RouteTracing.isRecording());
+            // recording does not depend on a tracer
+            assertFalse(RouteTracing.isEnabled());
+            RouteTracing.onRouteStart(42, RouteRecorder.MODIFIER | RouteRecorder.FINISH);
+        } finally {
+            RouteTracing.installRecorder(null);
+        }
+        assertFalse(RouteTracing.isRecording());
+        RouteTracing.onRouteStart(43, 0);
+
+        List<RouteRecorder.Event> events = recorder.snapshot();
+        assertEquals(1, events.size());
+        assertEquals(42, events.get(0).routeId);
+        assertTrue(events.get(0).nanoTime - before >= 0);
+        assertTrue(events.get(0).isModified());
+    }
+
+    @Test
+    public void dumpsOneEventPerLine() {
+        RouteRecorder recorder = new RouteRecorder(8);
+        recorder.record(42, RouteRecorder.MODIFIER | RouteRecorder.FINISH, 100L);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        recorder.dump(new PrintStream(out, true));
+        assertEquals("RouteRecorder: 1 of 1 navigations\n0 100 42 [MODIFIER, FINISH]\n",
+                out.toString().replace(System.lineSeparator(), "\n"));
+    }
+
+    @Test
+    public void snapshotsWhileThreadsRecord() throws Exception {
+        final RouteRecorder recorder = new RouteRecorder(256);
+        final CyclicBarrier start = new CyclicBarrier(THREADS + 1);
+        ExecutorService threads = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Void>> results = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                final int routeId = t;
+                final int overloads = 1 << t;
+                results.add(threads.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        start.await();
+                        for (int i = 0; i < EVENTS; i++) {
+                            // nanoTime and overloads identify the writer, a torn event would mix them
+                            recorder.record(routeId, overloads, overloads);
+                        }
+                        return null;
+                    }
+                }));
+            }
+            start.await();
+            for (int i = 0; i < 200; i++) {
+                assertConsistent(recorder.snapshot());
+            }
+            for (Future<Void> result : results) {
+                result.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            threads.shutdownNow();
+        }
+
+        List<RouteRecorder.Event> events = recorder.snapshot();
+        assertEquals((long) THREADS * EVENTS, recorder.count());
+        assertEquals(256, events.size());
+        assertConsistent(events);
+    }
+
+    private static void assertConsistent(List<RouteRecorder.Event> events) {
+        long sequence = -1;
+        for (RouteRecorder.Event event : events) {
+            assertTrue("not in order", event.sequence > sequence);
+            sequence = event.sequence;
+            assertEquals(event.overloads, event.nanoTime);
+            assertEquals(Integer.numberOfTrailingZeros(event.overloads), event.routeId);
+        }
+    }
+}
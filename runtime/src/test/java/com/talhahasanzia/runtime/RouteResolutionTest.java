@@ -0,0 +1,173 @@
+package com.talhahasanzia.runtime;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+// Batching and dispatch of routeAsync with a fake resolver completed by hand and a main executor run by hand.
+public class RouteResolutionTest {
+
+    private final FakeResolver resolver = new FakeResolver();
+    private final QueueExecutor mainExecutor = new QueueExecutor();
+    private final RouteResolution resolution = new RouteResolution(resolver, mainExecutor);
+    private final List<String> events = new ArrayList<>();
+
+    @Test
+    public void concurrentRoutesToModuleShareOneLoad() {
+        resolution.route("orders", route("a"), listener("a"));
+        resolution.route("orders", route("b"), listener("b"));
+        resolution.route("orders", route("c"), null);
+
+        assertEquals(Collections.singletonList("orders"), resolver.requests);
+        assertEquals(0, mainExecutor.runAll());
+
+        resolver.complete("orders", null);
+        assertTrue(events.isEmpty());
+        assertEquals(3, mainExecutor.runAll());
+        assertEquals(Arrays.asList("route a", "routed a", "route b", "routed b", "route c"), events);
+        assertTrue(resolution.isResolved("orders"));
+    }
+
+    @Test
+    public void resolvedModuleIsDispatchedWithoutLoad() {
+        resolution.route("orders", route("a"), null);
+        resolver.complete("orders", null);
+        mainExecutor.runAll();
+        events.clear();
+
+        resolution.route("orders", route("b"), listener("b"));
+        assertEquals(1, resolver.requests.size());
+        // never routes re-entrantly, also when module is there already
+        assertTrue(events.isEmpty());
+        assertEquals(1, mainExecutor.runAll());
+        assertEquals(Arrays.asList("route b", "routed b"), events);
+    }
+
+    @Test
+    public void failedLoadIsReportedAndRetried() {
+        resolution.route("orders", route("a"), listener("a"));
+        resolution.route("orders", route("b"), listener("b"));
+        resolver.complete("orders", new IOException("offline"));
+        mainExecutor.runAll();
+
+        assertEquals(Arrays.asList("failed a orders offline", "failed b orders offline"), events);
+        assertFalse(resolution.isResolved("orders"));
+
+        resolution.route("orders", route("c"), null);
+        assertEquals(Arrays.asList("orders", "orders"), resolver.requests);
+    }
+
+    @Test
+    public void modulesAreResolvedSeparately() {
+        resolution.route("orders", route("a"), null);
+        resolution.route("profile", route("b"), null);
+        assertEquals(Arrays.asList("orders", "profile"), resolver.requests);
+
+        resolver.complete("profile", null);
+        mainExecutor.runAll();
+        assertEquals(Collections.singletonList("route b"), events);
+    }
+
+    @Test
+    public void secondCallbackIsIgnored() {
+        resolution.route("orders", route("a"), listener("a"));
+        RouteResolver.Callback callback = resolver.callbacks.get(0);
+        callback.onResolved();
+        callback.onFailed(new IOException("late"));
+
+        assertEquals(1, mainExecutor.runAll());
+        assertEquals(Arrays.asList("route a", "routed a"), events);
+    }
+
+    @Test
+    public void throwingResolverFailsRoutes() {
+        RouteResolution failing = new RouteResolution(new RouteResolver() {
+            @Override
+            public void resolve(String module, Callback callback) {
+                throw new IllegalStateException("no split install");
+            }
+        }, mainExecutor);
+
+        failing.route("orders", route("a"), listener("a"));
+        mainExecutor.runAll();
+        assertEquals(Collections.singletonList("failed a orders no split install"), events);
+    }
+
+    private Runnable route(final String name) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                events.add("route " + name);
+            }
+        };
+    }
+
+    private RouteResolution.Listener listener(final String name) {
+        return new RouteResolution.Listener() {
+            @Override
+            public void onRouted() {
+                events.add("routed " + name);
+            }
+
+            @Override
+            public void onFailed(String module, Exception error) {
+                events.add("failed " + name + " " + module + " " + error.getMessage());
+            }
+        };
+    }
+
+    // records resolve calls, test completes them
+    private static final class FakeResolver implements RouteResolver {
+
+        private final List<String> requests = new ArrayList<>();
+        private final List<Callback> callbacks = new ArrayList<>();
+
+        @Override
+        public void resolve(String module, Callback callback) {
+            requests.add(module);
+            callbacks.add(callback);
+        }
+
+        // completes last request of module
+        void complete(String module, Exception error) {
+            Callback callback = callbacks.get(requests.lastIndexOf(module));
+            if (error == null) {
+                callback.onResolved();
+            } else {
+                callback.onFailed(error);
+            }
+        }
+    }
+
+    // main thread stand-in, runs queued tasks when asked
+    private static final class QueueExecutor implements Executor {
+
+        private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+        @Override
+        public void execute(Runnable task) {
+            tasks.add(task);
+        }
+
+        // number of tasks run
+        int runAll() {
+            int count = 0;
+            for (Runnable task = tasks.poll(); task != null; task = tasks.poll()) {
+                task.run();
+                count++;
+            }
+            return count;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.talhahasanzia.runtime;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+// Deep link matching of RouteTrie: literal tokens win over {params}, case insensitive scheme and host, percent-decoded
+// params and a bounded number of trie states.
+public class RouteTrieTest {
+
+    @Test
+    public void literalIsPreferredOverParam() {
+        RouteTrie trie = trie("app://orders/{id}", "app://orders/new");
+
+        assertEquals(1, trie.match("app://orders/new").routeId);
+        RouteTrie.Match match = trie.match("app://orders/42");
+        assertEquals(0, match.routeId);
+        assertEquals("42", match.param("id"));
+    }
+
+    @Test
+    public void literalThatLeadsNowhereMatchesAsParam() {
+        RouteTrie trie = trie("app://orders/new", "app://orders/{id}/items");
+
+        RouteTrie.Match match = trie.match("app://orders/new/items");
+        assertEquals(1, match.routeId);
+        assertEquals("new", match.param("id"));
+        assertNull(trie.match("app://orders/new/other"));
+    }
+
+    @Test
+    public void earliestLiteralWins() {
+        RouteTrie trie = trie("app://{section}/list", "app://home/{tab}", "app://{section}/{tab}");
+
+        RouteTrie.Match match = trie.match("app://home/list");
+        assertEquals(1, match.routeId);
+        assertEquals("list", match.param("tab"));
+        assertNull(match.param("section"));
+        assertEquals(0, trie.match("app://cart/list").routeId);
+        match = trie.match("app://cart/summary");
+        assertEquals(2, match.routeId);
+        assertEquals("cart", match.value(0));
+        assertEquals("summary", match.value(1));
+    }
+
+    @Test
+    public void paramsOfEveryPosition() {
+        RouteTrie trie = trie("https://x.com/u/{user}/posts/{post}", "https://{host}/about");
+
+        RouteTrie.Match match = trie.match("https://x.com/u/alice/posts/7?ref=mail#top");
+        assertEquals(0, match.routeId);
+        assertEquals(2, match.size());
+        assertEquals("user", match.name(0));
+        assertEquals("alice", match.value(0));
+        assertEquals("7", match.param("post"));
+        assertEquals("Example.org", trie.match("https://Example.org/about").param("host"));
+    }
+
+    @Test
+    public void schemeAndHostIgnoreCase() {
+        RouteTrie trie = trie("HTTPS://X.com/u/{user}/posts", "app://orders");
+
+        RouteTrie.Match match = trie.match("https://x.COM/u/Alice/posts");
+        assertEquals(0, match.routeId);
+        assertEquals("Alice", match.param("user"));
+        assertEquals(0, trie.match("Https://X.Com/u/bob/posts").routeId);
+        assertEquals(1, trie.match("APP://ORDERS").routeId);
+        // path is case sensitive
+        assertNull(trie.match("https://x.com/U/alice/posts"));
+    }
+
+    @Test
+    public void noMatch() {
+        RouteTrie trie = trie("app://orders/{id}", "app://orders");
+
+        assertNull(trie.match("other://orders"));
+        assertNull(trie.match("app://orders/1/2"));
+        assertNull(trie.match("app://"));
+        assertNull(trie.match(""));
+        // scheme is never a param
+        assertNull(trie("{scheme}/orders").match("app://orders"));
+        assertEquals(1, trie.match("app:///orders//").routeId);
+    }
+
+    @Test
+    public void equivalentPatterns() {
+        assertEquals(RouteTrie.Builder.key("app://orders/{id}"), RouteTrie.Builder.key("APP://Orders/{order}?x=1"));
+        try {
+            trie("app://orders/{id}", "App://ORDERS/{order}");
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("Pattern conflicts with another pattern: App://ORDERS/{order}", e.getMessage());
+        }
+    }
+
+    @Test
+    public void encodedInChunks() {
+        RouteTrie.Builder builder = new RouteTrie.Builder();
+        for (int i = 0; i < 100; i++) {
+            builder.add("app://section" + (i % 10) + "/{id}/screen" + i, i);
+        }
+        RouteTrie trie = RouteTrie.decode(builder.encode(7));
+        for (int i = 0; i < 100; i++) {
+            RouteTrie.Match match = trie.match("app://section" + (i % 10) + "/" + i + "/screen" + i);
+            assertEquals(i, match.routeId);
+            assertEquals(String.valueOf(i), match.param("id"));
+        }
+    }
+
+    @Test
+    public void paramsArePercentDecoded() {
+        RouteTrie trie = trie("app://u/{name}/{city}");
+
+        RouteTrie.Match match = trie.match("app://u/a%20b/S%C3%A3o%2FPaulo");
+        assertEquals("a b", match.param("name"));
+        assertEquals("S\u00e3o/Paulo", match.param("city"));
+        // malformed escapes stay as they are
+        assertEquals("100%", trie.match("app://u/x/100%").param("city"));
+        assertEquals("%zz%4", trie.match("app://u/x/%zz%4").param("city"));
+    }
+
+    @Test
+    public void stateCountIsCapped() {
+        // pattern i has literal "a" at position i and params elsewhere, a state per set of positions of "a" in a URI
+        RouteTrie.Builder builder = new RouteTrie.Builder(1000);
+        for (int i = 0; i < 12; i++) {
+            StringBuilder pattern = new StringBuilder("app:/");
+            for (int j = 0; j < 12; j++) {
+                pattern.append(j == i ? "/a" : "/{p" + j + "}");
+            }
+            builder.add(pattern.toString(), i);
+        }
+        try {
+            builder.encode(Integer.MAX_VALUE);
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals("Deep link patterns need more than 1000 trie states, use fewer {params} next to literals at the same positions.", e.getMessage());
+        }
+    }
+
+    // route ids are positions of patterns
+    private static RouteTrie trie(String... patterns) {
+        RouteTrie.Builder builder = new RouteTrie.Builder();
+        for (int i = 0; i < patterns.length; i++) {
+            builder.add(patterns[i], i);
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,124 @@
+package com.talhahasanzia.runtime;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+// Gate of @Routeable(singleFlight = true) routers, stressed by threads that all start navigating at once.
+public class SingleFlightTest {
+
+    private static final int THREADS = 8;
+    private static final int ATTEMPTS = 20000;
+
+    @Test
+    public void oneNavigationPerWindowUnderContention() throws Exception {
+        final SingleFlight gate = new SingleFlight(TimeUnit.HOURS.toMillis(1));
+        int passed = stress(new Navigation() {
+            @Override
+            public boolean navigate() {
+                if (!gate.tryAcquire()) {
+                    return false;
+                }
+                gate.release();
+                return true;
+            }
+        });
+        assertEquals(1, passed);
+    }
+
+    @Test
+    public void navigationsNeverOverlap() throws Exception {
+        final SingleFlight gate = new SingleFlight(0);
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger overlaps = new AtomicInteger();
+        int passed = stress(new Navigation() {
+            @Override
+            public boolean navigate() {
+                if (!gate.tryAcquire()) {
+                    return false;
+                }
+                try {
+                    if (inFlight.incrementAndGet() != 1) {
+                        overlaps.incrementAndGet();
+                    }
+                    Thread.yield();
+                    inFlight.decrementAndGet();
+                } finally {
+                    gate.release();
+                }
+                return true;
+            }
+        });
+        assertEquals(0, overlaps.get());
+        assertTrue("no navigation passed", passed > 0);
+    }
+
+    @Test
+    public void windowStartsWhenNavigationEnds() throws Exception {
+        SingleFlight gate = new SingleFlight(50);
+        assertTrue(gate.tryAcquire());
+        // in flight, however long it takes
+        assertFalse(gate.tryAcquire());
+        Thread.sleep(60);
+        assertFalse(gate.tryAcquire());
+
+        gate.release();
+        assertFalse(gate.tryAcquire());
+        Thread.sleep(60);
+        assertTrue(gate.tryAcquire());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeWindow() {
+        new SingleFlight(-1);
+    }
+
+    private interface Navigation {
+
+        // true if navigation passed the gate
+        boolean navigate();
+    }
+
+    // total number of passed navigations of THREADS threads that start together and try ATTEMPTS times each
+    private static int stress(final Navigation navigation) throws Exception {
+        final CyclicBarrier start = new CyclicBarrier(THREADS);
+        ExecutorService threads = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                results.add(threads.submit(new Callable<Integer>() {
+                    @Override
+                    public Integer call() throws Exception {
+                        start.await();
+                        int passed = 0;
+                        for (int attempt = 0; attempt < ATTEMPTS; attempt++) {
+                            if (navigation.navigate()) {
+                                passed++;
+                            }
+                        }
+                        return passed;
+                    }
+                }));
+            }
+            int passed = 0;
+            for (Future<Integer> result : results) {
+                passed += result.get(30, TimeUnit.SECONDS);
+            }
+            return passed;
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+}